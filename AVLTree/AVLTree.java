@@ -2,6 +2,10 @@ package AVLTree;
 
 import BinarySearchTree.*;
 import Excepciones.*;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class AVLTree<E extends Comparable<E>> implements BinarySearchTree<E> {
     private boolean altura;
@@ -29,6 +33,23 @@ public class AVLTree<E extends Comparable<E>> implements BinarySearchTree<E> {
         return size;
     }
 
+    /********************************************************************
+     ***************************** STREAMS  *****************************
+     ********************************************************************/
+
+    //Recorre en inorden; se divide por subárboles para los streams paralelos
+    public Spliterator<E> spliterator() {
+        return new SpliteratorAVL<E>(raiz, size);
+    }
+
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
     //Obtiene la altura de un nodo (null = 0)
     private int getAltura(AVLNodo<E> nodo) {
         if (nodo == null) {
@@ -119,34 +140,51 @@ public class AVLTree<E extends Comparable<E>> implements BinarySearchTree<E> {
      **************************** BÚSQUEDA  ****************************
      ********************************************************************/
 
-    //Busca un elemento en el AVL
+    //Busca un elemento en el AVL (lanza ItemNotFound si no está; se mantiene por compatibilidad)
     public E search(E valor) throws ItemNotFound {
-        E resultadoBusqueda = searchRecursivo(raiz, valor);
+        E resultadoBusqueda = find(valor);
         if (resultadoBusqueda == null) {
             throw new ItemNotFound();
         }
         return resultadoBusqueda;
     }
 
-    //Busca recursivamente el valor de un nodo en el árbol
-    private E searchRecursivo(AVLNodo<E> nodoTemporal, E valor) {
-        if (nodoTemporal == null) {
+    /*
+    Búsqueda sin excepciones: retorna el elemento almacenado o null si no está.
+    Es el camino a usar cuando los fallos son frecuentes, porque no construye
+    ninguna excepción ni su traza de pila.
+     */
+    public E find(E valor) {
+        if (valor == null) {
             return null;
         }
-
-        int resultado = valor.compareTo(nodoTemporal.getValor());
-        if (resultado > 0) {
-            return searchRecursivo(nodoTemporal.getDerecho(), valor);
-        } else if (resultado < 0) {
-            return searchRecursivo(nodoTemporal.getIzquierdo(), valor);
-        } else {
-            return nodoTemporal.getValor();
+        AVLNodo<E> nodoTemporal = raiz;
+        while (nodoTemporal != null) {
+            int resultado = valor.compareTo(nodoTemporal.getValor());
+            if (resultado > 0) {
+                nodoTemporal = nodoTemporal.getDerecho();
+            } else if (resultado < 0) {
+                nodoTemporal = nodoTemporal.getIzquierdo();
+            } else {
+                return nodoTemporal.getValor();
+            }
         }
+        return null;
+    }
+
+    //Igual que find pero envuelto en Optional
+    public Optional<E> searchOptional(E valor) {
+        return Optional.ofNullable(find(valor));
+    }
+
+    //Verifica si el elemento está en el árbol
+    public boolean contains(E valor) {
+        return find(valor) != null;
     }
 
     //Método de búsqueda privada para uso interno
     private E searchInterno(E valor) {
-        return searchRecursivo(raiz, valor);
+        return find(valor);
     }
 
     /********************************************************************
@@ -0,0 +1,103 @@
+package AVLTree;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/*
+Spliterator en orden (inorden) del AVL que se divide por subárboles.
+Los pendientes son subárboles completos o valores sueltos, en el orden en que se entregan.
+Un subárbol se expande en (izquierdo, valor, derecho) cuando hace falta avanzar o dividir,
+así cada mitad de una división es un rango contiguo de claves.
+ */
+class SpliteratorAVL<E extends Comparable<E>> implements Spliterator<E> {
+    //Elemento pendiente: un subárbol completo o un único valor
+    private static final class Pendiente<E> {
+        final AVLNodo<E> subarbol;
+        final E valor;
+
+        Pendiente(AVLNodo<E> subarbol, E valor) {
+            this.subarbol = subarbol;
+            this.valor = valor;
+        }
+    }
+
+    private final ArrayDeque<Pendiente<E>> pendientes;
+    private long tamanioEstimado;
+
+    SpliteratorAVL(AVLNodo<E> raiz, long tamanioEstimado) {
+        this.pendientes = new ArrayDeque<>();
+        if (raiz != null) {
+            this.pendientes.add(new Pendiente<>(raiz, null));
+        }
+        this.tamanioEstimado = tamanioEstimado;
+    }
+
+    private SpliteratorAVL(ArrayDeque<Pendiente<E>> pendientes, long tamanioEstimado) {
+        this.pendientes = pendientes;
+        this.tamanioEstimado = tamanioEstimado;
+    }
+
+    //Reemplaza el primer pendiente (un subárbol) por su hijo izquierdo, su valor y su hijo derecho
+    private void expandirPrimero() {
+        AVLNodo<E> nodo = pendientes.pollFirst().subarbol;
+        if (nodo.getDerecho() != null) {
+            pendientes.addFirst(new Pendiente<>(nodo.getDerecho(), null));
+        }
+        pendientes.addFirst(new Pendiente<>(null, nodo.getValor()));
+        if (nodo.getIzquierdo() != null) {
+            pendientes.addFirst(new Pendiente<>(nodo.getIzquierdo(), null));
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super E> accion) {
+        if (accion == null) {
+            throw new NullPointerException();
+        }
+        while (!pendientes.isEmpty()) {
+            if (pendientes.peekFirst().subarbol == null) {
+                accion.accept(pendientes.pollFirst().valor);
+                return true;
+            }
+            expandirPrimero();
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator<E> trySplit() {
+        if (pendientes.size() == 1 && pendientes.peekFirst().subarbol != null) {
+            expandirPrimero();
+        }
+        if (pendientes.size() < 2) {
+            return null;
+        }
+
+        int mitad = pendientes.size() / 2;
+        ArrayDeque<Pendiente<E>> prefijo = new ArrayDeque<>(mitad);
+        for (int i = 0; i < mitad; i++) {
+            prefijo.addLast(pendientes.pollFirst());
+        }
+        SpliteratorAVL<E> primeraParte = new SpliteratorAVL<>(prefijo, tamanioEstimado / 2);
+        tamanioEstimado -= tamanioEstimado / 2;
+        return primeraParte;
+    }
+
+    @Override
+    public long estimateSize() {
+        return tamanioEstimado;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SORTED | DISTINCT | NONNULL;
+    }
+
+    //Orden natural de los elementos
+    @Override
+    public Comparator<? super E> getComparator() {
+        return null;
+    }
+}
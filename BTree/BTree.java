@@ -2,6 +2,8 @@ package BTree;
 
 import Queue.Cola;
 import LinkedList.MensajeException;
+import Eventos.BusEventos;
+import Eventos.TipoEvento;
 
 public class BTree<E extends Comparable<E>> {
     private BNode<E> raiz;
@@ -69,7 +71,7 @@ public class BTree<E extends Comparable<E>> {
 
             //No permitir duplicados
             if(claveEncontrada){
-                System.out.println("Item duplicado\n");
+                BusEventos.publicar(TipoEvento.ITEM_DUPLICADO, nuevaClave);
                 dividido = false;
                 return null;
             }
@@ -181,20 +183,20 @@ public class BTree<E extends Comparable<E>> {
 
     public void remove(E clave) {
         if (isEmpty()) {
-            System.out.println("El árbol está vacío. No se puede eliminar la clave.");
+            BusEventos.publicar(TipoEvento.CLAVE_NO_ENCONTRADA, null);
             return;
         }
 
         boolean eliminado = removeKey(this.raiz, clave);
 
         if (eliminado) {
-            System.out.println("Se eliminó la clave " + clave + " del árbol.");
+            BusEventos.publicar(TipoEvento.CLAVE_ELIMINADA, clave);
             //Ajustar raíz si quedó vacía
             if (this.raiz.contadorClaves == 0 && this.raiz.getChild(0) != null) {
                 this.raiz = this.raiz.getChild(0);
             }
         } else {
-            System.out.println("La clave " + clave + " no se encontró en el árbol.");
+            BusEventos.publicar(TipoEvento.CLAVE_NO_ENCONTRADA, clave);
         }
     }
 
@@ -1,20 +1,28 @@
 package BTreePlus;
 
-import java.util.ArrayList;
-
+import java.util.Comparator;
+
+/*
+Nodo del árbol B+ sobre arreglos planos.
+Las claves se guardan en un Object[] de tamaño orden-1 y los hijos en un arreglo de tamaño orden:
+la búsqueda dentro del nodo es binaria y los desplazamientos se hacen con System.arraycopy,
+así un nodo con orden alto (64-256) se recorre sobre memoria contigua.
+ */
 public class BNodePlus<E extends Comparable<E>> {
     //Define si el nodo es una hoja terminal o un nodo interno del árbol
     protected boolean esHoja;
-    //Almacena las claves del nodo en orden ascendente usando ArrayList
-    protected ArrayList<E> claves;
-    //Contiene referencias a los nodos hijos para navegación en nodos internos
-    protected ArrayList<BNodePlus<E>> hijos;
+    //Almacena las claves del nodo en orden ascendente (posiciones 0..contadorClaves-1)
+    protected Object[] claves;
+    //Contiene referencias a los nodos hijos para navegación en nodos internos (null en hojas)
+    protected BNodePlus<E>[] hijos;
     //Enlaza horizontalmente los nodos hoja para recorrido secuencial
     protected BNodePlus<E> siguiente;
     //Cuenta el número actual de claves almacenadas en el nodo
     protected int contadorClaves;
     //Define el orden máximo del árbol B+ que determina capacidad del nodo
     protected int orden;
+    //Criterio de orden de las claves (null = orden natural)
+    protected Comparator<? super E> comparador;
 
     //Genera identificadores únicos incrementales para cada nodo creado
     private static int contadorId = 0;
@@ -23,31 +31,22 @@ public class BNodePlus<E extends Comparable<E>> {
 
     //Inicializa un nuevo nodo configurando su tipo y capacidades según el orden
     public BNodePlus(boolean esHoja, int orden) {
+        this(esHoja, orden, null);
+    }
+
+    //Nodo cuyas claves se ordenan con el comparador dado (null = orden natural)
+    public BNodePlus(boolean esHoja, int orden, Comparator<? super E> comparador) {
         this.esHoja = esHoja;
         this.orden = orden;
-        //Crea lista de claves con capacidad máxima de orden-1 elementos
-        this.claves = new ArrayList<>(orden - 1);
-        //Crea lista de hijos con capacidad máxima de orden elementos
-        this.hijos = new ArrayList<>(orden);
+        this.comparador = comparador;
+        //Hasta orden-1 claves; los nodos internos tienen además hasta orden hijos
+        this.claves = new Object[orden - 1];
+        @SuppressWarnings("unchecked")
+        BNodePlus<E>[] hijos = esHoja ? null : (BNodePlus<E>[]) new BNodePlus<?>[orden];
+        this.hijos = hijos;
         this.siguiente = null;
         this.contadorClaves = 0;
 
-        //Prellena con valores nulos la lista de claves según el tipo de nodo
-        if (esHoja) {
-            //Nodos hoja pueden almacenar hasta orden-1 claves
-            for (int i = 0; i < orden - 1; i++) {
-                this.claves.add(null);
-            }
-        } else {
-            //Nodos internos almacenan hasta orden-1 claves y orden hijos
-            for (int i = 0; i < orden - 1; i++) {
-                this.claves.add(null);
-            }
-            for (int i = 0; i < orden; i++) {
-                this.hijos.add(null);
-            }
-        }
-
         //Asigna un identificador único al nodo recién creado
         asignarId();
     }
@@ -62,96 +61,83 @@ public class BNodePlus<E extends Comparable<E>> {
         return this.contadorClaves == 0;
     }
 
-    //Busca una clave específica en el nodo y retorna su posición mediante referencia
-    public boolean searchKey(E clave, int[] posicion) {
-        int i = 0;
+    @SuppressWarnings("unchecked")
+    private E clave(int indice) {
+        return (E) this.claves[indice];
+    }
 
-        //Recorre las claves existentes hasta encontrar la posición correcta
-        while (i < this.contadorClaves && clave.compareTo(this.claves.get(i)) > 0) {
-            i++;
+    /*
+    Búsqueda binaria de la clave en el nodo.
+    Retorna su índice si está; si no, -(posición de inserción) - 1, como Arrays.binarySearch.
+     */
+    public int buscarIndice(E clave) {
+        int bajo = 0;
+        int alto = this.contadorClaves - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            int comparacion = comparador == null ? clave(medio).compareTo(clave) : comparador.compare(clave(medio), clave);
+            if (comparacion < 0) {
+                bajo = medio + 1;
+            } else if (comparacion > 0) {
+                alto = medio - 1;
+            } else {
+                return medio;
+            }
         }
+        return -(bajo + 1);
+    }
 
-        //Almacena la posición encontrada en el array de referencia
-        posicion[0] = i;
+    //Índice del hijo por el que sigue la búsqueda de la clave (iguales van a la derecha)
+    public int indiceHijo(E clave) {
+        int indice = buscarIndice(clave);
+        return indice >= 0 ? indice + 1 : -(indice + 1);
+    }
 
-        //Determina si la clave existe exactamente en la posición encontrada
-        if (i < this.contadorClaves && clave.compareTo(this.claves.get(i)) == 0) {
+    //Busca una clave específica en el nodo y retorna su posición mediante referencia
+    public boolean searchKey(E clave, int[] posicion) {
+        int indice = buscarIndice(clave);
+        if (indice >= 0) {
+            posicion[0] = indice;
             return true; //Clave encontrada
-        } else {
-            return false; //Clave no encontrada
         }
+        posicion[0] = -(indice + 1);
+        return false; //Clave no encontrada
     }
 
     //Obtiene la clave almacenada en el índice especificado del nodo
     public E getKey(int indice) {
         if (indice >= 0 && indice < this.contadorClaves) {
-            return this.claves.get(indice);
+            return clave(indice);
         }
         return null;
     }
 
     //Retorna el nodo hijo ubicado en el índice dado para nodos internos
     public BNodePlus<E> getChild(int indice) {
-        if (!this.esHoja && indice >= 0 && indice < this.hijos.size()) {
-            return this.hijos.get(indice);
+        if (!this.esHoja && indice >= 0 && indice < this.hijos.length) {
+            return this.hijos[indice];
         }
         return null;
     }
 
     //Establece un nodo hijo en la posición especificada para nodos internos
     public void setChild(int indice, BNodePlus<E> hijo) {
-        if (!this.esHoja) {
-            //Expande el ArrayList si el índice excede el tamaño actual
-            while (this.hijos.size() <= indice) {
-                this.hijos.add(null);
-            }
-            this.hijos.set(indice, hijo);
+        if (!this.esHoja && indice >= 0 && indice < this.hijos.length) {
+            this.hijos[indice] = hijo;
         }
     }
 
     //Inserta una clave nueva manteniendo el orden ascendente en el nodo
     public void insertKey(E clave) {
-        int position = 0;
-
-        //Localiza la posición correcta para insertar manteniendo el orden
-        while (position < this.contadorClaves && clave.compareTo(this.claves.get(position)) > 0) {
-            position++;
-        }
-
-        //Desplaza todas las claves hacia la derecha para crear espacio
-        for (int i = this.contadorClaves; i > position; i--) {
-            if (this.claves.size() <= i) {
-                this.claves.add(null);
-            }
-            this.claves.set(i, this.claves.get(i - 1));
-        }
-
-        //Coloca la nueva clave en la posición correcta calculada
-        if (this.claves.size() <= position) {
-            this.claves.add(null);
-        }
-        this.claves.set(position, clave);
-        this.contadorClaves++;
+        int indice = buscarIndice(clave);
+        insertKeyIndex(indice >= 0 ? indice : -(indice + 1), clave);
     }
 
     //Elimina una clave específica del nodo buscándola por valor
     public void removeKey(E clave) {
-        int posicion = -1;
-
-        //Busca la posición exacta de la clave a eliminar
-        for (int i = 0; i < this.contadorClaves; i++) {
-            if (this.claves.get(i).compareTo(clave) == 0) {
-                posicion = i;
-                break;
-            }
-        }
-
-        if (posicion != -1) {
-            //Desplaza todas las claves hacia la izquierda para llenar el hueco
-            for (int i = posicion; i < this.contadorClaves - 1; i++) {
-                this.claves.set(i, this.claves.get(i + 1));
-            }
-            this.contadorClaves--;
+        int indice = buscarIndice(clave);
+        if (indice >= 0) {
+            removeKeyIndex(indice);
         }
     }
 
@@ -159,73 +145,73 @@ public class BNodePlus<E extends Comparable<E>> {
     public void removeKeyIndex(int indice) {
         if (indice >= 0 && indice < this.contadorClaves) {
             //Mueve todas las claves hacia la izquierda desde el índice
-            for (int i = indice; i < this.contadorClaves - 1; i++) {
-                this.claves.set(i, this.claves.get(i + 1));
-            }
+            System.arraycopy(this.claves, indice + 1, this.claves, indice, this.contadorClaves - indice - 1);
             this.contadorClaves--;
+            this.claves[this.contadorClaves] = null;
         }
     }
 
     //Inserta un nodo hijo en la posición especificada para nodos internos
+    //Se llama después de insertar la clave correspondiente, con hasta contadorClaves + 1 hijos
     public void insertChild(int indice, BNodePlus<E> hijo) {
-        if (!this.esHoja) {
-            //Desplaza todos los hijos hacia la derecha desde el índice
-            for (int i = this.getChildCount(); i > indice; i--) {
-                if (this.hijos.size() <= i) {
-                    this.hijos.add(null);
-                }
-                this.hijos.set(i, this.hijos.get(i - 1));
-            }
-
-            //Coloca el nuevo hijo en la posición especificada
-            if (this.hijos.size() <= indice) {
-                this.hijos.add(null);
-            }
-            this.hijos.set(indice, hijo);
+        if (!this.esHoja && indice >= 0 && indice <= this.contadorClaves) {
+            System.arraycopy(this.hijos, indice, this.hijos, indice + 1, this.contadorClaves - indice);
+            this.hijos[indice] = hijo;
         }
     }
 
     //Elimina el nodo hijo ubicado en la posición dada para nodos internos
     public void removeChild(int posicion) {
-        if (!this.esHoja && posicion >= 0 && posicion < this.hijos.size()) {
+        if (!this.esHoja && posicion >= 0 && posicion < this.hijos.length) {
             //Desplaza todos los hijos hacia la izquierda desde la posición
-            for (int i = posicion; i < this.hijos.size() - 1; i++) {
-                this.hijos.set(i, this.hijos.get(i + 1));
-            }
-
+            System.arraycopy(this.hijos, posicion + 1, this.hijos, posicion, this.hijos.length - posicion - 1);
             //Limpia la última posición estableciéndola como null
-            if (this.hijos.size() > 0) {
-                this.hijos.set(this.hijos.size() - 1, null);
-            }
+            this.hijos[this.hijos.length - 1] = null;
         }
     }
 
     //Modifica directamente la clave en la posición especificada del nodo
     public void setKey(int posicion, E clave) {
         if (posicion >= 0 && posicion < this.contadorClaves) {
-            this.claves.set(posicion, clave);
+            this.claves[posicion] = clave;
         }
     }
 
     //Inserta una clave en el índice exacto especificado sin buscar posición
     public void insertKeyIndex(int posicion, E clave) {
         if (posicion >= 0 && posicion <= this.contadorClaves && this.contadorClaves < this.orden - 1) {
-            //Expande el ArrayList si no tiene capacidad suficiente
-            while (this.claves.size() <= this.contadorClaves) {
-                this.claves.add(null);
-            }
-
             //Mueve todas las claves hacia la derecha desde la posición
-            for (int i = this.contadorClaves; i > posicion; i--) {
-                this.claves.set(i, this.claves.get(i - 1));
-            }
-
+            System.arraycopy(this.claves, posicion, this.claves, posicion + 1, this.contadorClaves - posicion);
             //Coloca la nueva clave en la posición exacta especificada
-            this.claves.set(posicion, clave);
+            this.claves[posicion] = clave;
             this.contadorClaves++;
         }
     }
 
+    //Agrega al final las claves [desde, desde + cantidad) de otro nodo
+    void copiarClavesAlFinal(BNodePlus<E> origen, int desde, int cantidad) {
+        System.arraycopy(origen.claves, desde, this.claves, this.contadorClaves, cantidad);
+        this.contadorClaves += cantidad;
+    }
+
+    //Agrega al final los hijos [desde, desde + cantidad) de otro nodo, a partir de la posición dada
+    void copiarHijos(BNodePlus<E> origen, int desde, int posicion, int cantidad) {
+        System.arraycopy(origen.hijos, desde, this.hijos, posicion, cantidad);
+    }
+
+    //Deja el nodo con sus primeras 'cantidad' claves, limpiando referencias sobrantes
+    void truncar(int cantidad) {
+        for (int i = cantidad; i < this.contadorClaves; i++) {
+            this.claves[i] = null;
+        }
+        if (!this.esHoja) {
+            for (int i = cantidad + 1; i < this.hijos.length; i++) {
+                this.hijos[i] = null;
+            }
+        }
+        this.contadorClaves = cantidad;
+    }
+
     //Cuenta el número total de hijos no nulos en el nodo
     public int getChildCount() {
         if (this.esHoja) {
@@ -234,8 +220,8 @@ public class BNodePlus<E extends Comparable<E>> {
 
         int contador = 0;
         //Recorre hasta encontrar el último hijo no nulo consecutivo
-        for (int i = 0; i <= this.contadorClaves; i++) {
-            if (i < this.hijos.size() && this.hijos.get(i) != null) {
+        for (int i = 0; i <= this.contadorClaves && i < this.hijos.length; i++) {
+            if (this.hijos[i] != null) {
                 contador = i + 1;
             }
         }
@@ -247,7 +233,7 @@ public class BNodePlus<E extends Comparable<E>> {
         if (this.esHoja) {
             return (this.orden - 1) / 2; //Para nodos hoja
         } else {
-            return (this.orden / 2) - 1; //Para nodos internos
+            return (this.orden + 1) / 2 - 1; //Para nodos internos: al menos ceil(orden/2) hijos
         }
     }
 
@@ -312,7 +298,7 @@ public class BNodePlus<E extends Comparable<E>> {
             if (i > 0) {
                 resultado.append(", ");
             }
-            resultado.append(this.claves.get(i));
+            resultado.append(this.claves[i]);
         }
 
         resultado.append("]");
@@ -324,4 +310,4 @@ public class BNodePlus<E extends Comparable<E>> {
 
         return resultado.toString();
     }
-}
\ No newline at end of file
+}
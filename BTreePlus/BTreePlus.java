@@ -1,20 +1,41 @@
 package BTreePlus;
 
 import Queue.Cola;
+import Eventos.BusEventos;
+import Eventos.TipoEvento;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class BTreePlus<E extends Comparable<E>> {
+public class BTreePlus<E extends Comparable<E>> implements Iterable<E> {
     private BNodePlus<E> raiz;
     private int orden;
+    private final Comparator<? super E> comparador; //null = orden natural de las claves
     private BNodePlus<E> primeraHoja; //Referencia a la primera hoja para recorrido secuencial
+    private int cantidadClaves; //Se mantiene en cada inserción y eliminación: size() es O(1)
+    private int modificaciones; //Lo consultan los cursores para detectar cambios durante un recorrido
 
     //Útiles para la inserción
     private boolean dividido; //Controla si se realizó división durante inserción
     private BNodePlus<E> derechoTemporal; //Almacena nodo derecho resultante de división
+    private boolean insertado; //Indica si la última inserción agregó la clave (no era duplicada)
 
     //Constructor
     public BTreePlus(int orden) {
+        this(orden, null);
+    }
+
+    //Árbol ordenado con un comparador propio, p. ej. claves que son handles enteros
+    //ordenados por un dato externo (null = orden natural)
+    public BTreePlus(int orden, Comparator<? super E> comparador) {
+        if (orden < 3) {
+            throw new IllegalArgumentException("El orden del árbol B+ debe ser al menos 3: " + orden);
+        }
         this.orden = orden;
+        this.comparador = comparador;
         this.raiz = null;
         this.primeraHoja = null;
     }
@@ -24,111 +45,101 @@ public class BTreePlus<E extends Comparable<E>> {
         return this.raiz == null;
     }
 
+    //Cantidad de claves almacenadas
+    public int size() {
+        return this.cantidadClaves;
+    }
+
+    //Comparador de las claves, null si se usa el orden natural
+    public Comparator<? super E> getComparator() {
+        return this.comparador;
+    }
+
+    int comparar(E a, E b) {
+        return comparador == null ? a.compareTo(b) : comparador.compare(a, b);
+    }
+
+    private BNodePlus<E> nuevoNodo(boolean esHoja) {
+        return new BNodePlus<E>(esHoja, this.orden, this.comparador);
+    }
+
+    int getModificaciones() {
+        return this.modificaciones;
+    }
+
     /************************************************************************************
-     * MÉTODOS DE BÚSQUEDA
+     * RECORRIDO POR HOJAS
      ************************************************************************************/
 
-    //Busca una clave y retorna true si existe, false en caso contrario
-    public boolean search(E clave) {
-        if (isEmpty() || clave == null) {
-            return false;
-        }
-        return searchKey(this.raiz, clave);
+    //Cursor sobre todas las claves en orden ascendente
+    public CursorHojas<E> cursor() {
+        return new CursorHojas<E>(this);
     }
 
-    //Busca una clave recursivamente en el árbol
-    private boolean searchKey(BNodePlus<E> nodoActual, E clave) {
-        if (nodoActual == null) {
-            return false;
-        }
+    //Cursor sobre las claves entre minimo y maximo (ambos inclusivos; null = sin límite)
+    public CursorHojas<E> cursor(E minimo, E maximo) {
+        return new CursorHojas<E>(this).seek(minimo).hasta(maximo);
+    }
 
-        int[] posicion = new int[1];
-        boolean encontrado = nodoActual.searchKey(clave, posicion);
+    @Override
+    public Iterator<E> iterator() {
+        return cursor();
+    }
 
-        //Si es nodo hoja, se verifica si se encontro la clave
-        if (nodoActual.esHoja()) {
-            return encontrado;
-        }
+    //Se divide por subárboles: cada parte recorre un rango contiguo de claves
+    @Override
+    public Spliterator<E> spliterator() {
+        return new SpliteratorBTreePlus<E>(this);
+    }
 
-        //Si es nodo interno, se continua la búsqueda hacia abajo
-        //Incluso si se encuentra la clave en nodo interno, se debe ir a la hoja
-        if (encontrado) {
-            //Si se encuentra la clave en nodo interno, vamos al hijo derecho
-            return searchKey(nodoActual.getChild(posicion[0] + 1), clave);
-        } else {
-            //Si no encontramos la clave, vamos al hijo correspondiente
-            return searchKey(nodoActual.getChild(posicion[0]), clave);
-        }
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
     }
 
-    //Busca una clave y retorna el nodo hoja donde debería estar
-    public BNodePlus<E> searchNodoHoja(E clave) {
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /************************************************************************************
+     * MÉTODOS DE BÚSQUEDA
+     ************************************************************************************/
+
+    //Busca una clave y retorna true si existe, false en caso contrario
+    public boolean search(E clave) {
         if (isEmpty() || clave == null) {
-            return null;
+            return false;
         }
-        return searchNodoHojaRecursivo(this.raiz, clave);
+        return searchNodoHoja(clave).buscarIndice(clave) >= 0;
     }
 
-    //Encuentra el nodo hoja recursivamente
-    private BNodePlus<E> searchNodoHojaRecursivo(BNodePlus<E> nodoActual, E clave) {
-        if (nodoActual == null) {
+    //Busca una clave y retorna el nodo hoja donde debería estar
+    //En cada nodo interno se elige el hijo con búsqueda binaria; si la clave coincide con
+    //un separador se sigue por el hijo derecho, que es donde está la clave en la hoja
+    public BNodePlus<E> searchNodoHoja(E clave) {
+        if (isEmpty() || clave == null) {
             return null;
         }
 
-        //Si es nodo hoja, lo retornamos
-        if (nodoActual.esHoja()) {
-            return nodoActual;
-        }
-
-        //Si es nodo interno, encontramos el hijo correcto
-        int[] posicion = new int[1];
-        boolean encontrado = nodoActual.searchKey(clave, posicion);
-
-        if (encontrado) {
-            //Si encontramos la clave en nodo interno, vamos al hijo derecho
-            return searchNodoHojaRecursivo(nodoActual.getChild(posicion[0] + 1), clave);
-        } else {
-            //Si no encontramos la clave, vamos al hijo correspondiente
-            return searchNodoHojaRecursivo(nodoActual.getChild(posicion[0]), clave);
+        BNodePlus<E> nodoActual = this.raiz;
+        while (!nodoActual.esHoja()) {
+            nodoActual = nodoActual.getChild(nodoActual.indiceHijo(clave));
         }
+        return nodoActual;
     }
 
     //Búsqueda por rango -> retorna todas las claves entre minimo y maximo -> rango
+    //Para recorrer rangos grandes sin copiarlos conviene cursor(minimo, maximo)
     public ArrayList<E> searchRango(E minimo, E maximo) {
         ArrayList<E> resultado = new ArrayList<>();
 
-        if (isEmpty() || minimo == null || maximo == null || minimo.compareTo(maximo) > 0) {
+        if (isEmpty() || minimo == null || maximo == null || comparar(minimo, maximo) > 0) {
             return resultado;
         }
 
-        //Encuentra el nodo hoja donde inicia el rango
-        BNodePlus<E> nodoActual = searchNodoHoja(minimo);
-
-        if (nodoActual == null) {
-            return resultado;
-        }
-
-        //Recorre las hojas secuencialmente usando los enlaces
-        while (nodoActual != null) {
-            //Examina todas las claves en el nodo actual
-            for (int i = 0; i < nodoActual.getContadorClaves(); i++) {
-                E clave = nodoActual.getKey(i);
-
-                //Si la clave está en el rango, se agrega
-                if (clave.compareTo(minimo) >= 0 && clave.compareTo(maximo) <= 0) {
-                    resultado.add(clave);
-                }
-
-                //Si pasamos el máximo, termina
-                if (clave.compareTo(maximo) > 0) {
-                    return resultado;
-                }
-            }
-
-            //Avanza al siguiente nodo hoja
-            nodoActual = nodoActual.getNext();
+        CursorHojas<E> cursor = cursor(minimo, maximo);
+        while (cursor.hasNext()) {
+            resultado.add(cursor.next());
         }
-
         return resultado;
     }
 
@@ -148,18 +159,25 @@ public class BTreePlus<E extends Comparable<E>> {
 
         //Si el árbol está vacío, se crea la primera hoja
         if (isEmpty()) {
-            this.raiz = new BNodePlus<E>(true, this.orden);
+            this.raiz = nuevoNodo(true);
             this.raiz.insertKey(nuevaClave);
             this.primeraHoja = this.raiz;
+            this.cantidadClaves = 1;
+            this.modificaciones++;
             return;
         }
 
+        insertado = false;
         claveMedia = push(this.raiz, nuevaClave);
+        if (insertado) {
+            this.cantidadClaves++;
+            this.modificaciones++;
+        }
 
         //Si hubo división, se crea una nueva raíz
         if (dividido) {
-            nuevaRaiz = new BNodePlus<E>(false, this.orden); //Nueva raíz es nodo interno
-            nuevaRaiz.insertKey(claveMedia);
+            nuevaRaiz = nuevoNodo(false); //Nueva raíz es nodo interno
+            nuevaRaiz.insertKeyIndex(0, claveMedia);
             nuevaRaiz.setChild(0, this.raiz);
             nuevaRaiz.setChild(1, derechoTemporal);
             this.raiz = nuevaRaiz;
@@ -169,63 +187,45 @@ public class BTreePlus<E extends Comparable<E>> {
     //Inserta recursivamente y propaga divisiones hacia arriba
     //Retorna la clave mediana en caso de división
     private E push(BNodePlus<E> nodoActual, E nuevaClave) {
-        int[] posicion = new int[1];
-        E claveMedia = null;
-
-        //Caso base: nodo nulo, se inserta aquí
-        if (nodoActual == null) {
-            dividido = true;
-            derechoTemporal = null;
-            return nuevaClave;
-        }
-
-        boolean claveEncontrada = nodoActual.searchKey(nuevaClave, posicion);
-
-        //No permite duplicados
-        if (claveEncontrada && nodoActual.esHoja()) {
-            System.out.println("Item duplicado");
-            dividido = false;
-            return null;
-        }
+        int indice = nodoActual.buscarIndice(nuevaClave);
 
         //Si es nodo hoja, se inserta directamente
         if (nodoActual.esHoja()) {
-            //Inserta en hoja
-            if (nodoActual.isFull()) {
-                //Dividir hoja
-                claveMedia = dividirHoja(nodoActual, nuevaClave, posicion[0]);
-            } else {
-                //Inserta sin división
-                nodoActual.insertKey(nuevaClave);
+            //No permite duplicados
+            if (indice >= 0) {
+                BusEventos.publicar(TipoEvento.ITEM_DUPLICADO, nuevaClave);
                 dividido = false;
-                claveMedia = null; //No hay división, no hay clave mediana
+                return null;
             }
-            return claveMedia;
-        } else {
-            // Nodo interno: encontrar hijo apropiado
-            int indiceHijo;
-            if (claveEncontrada) {
-                //Si encontramos la clave en nodo interno, ir al hijo derecho
-                indiceHijo = posicion[0] + 1;
-            } else {
-                //Si no encontramos la clave, ir al hijo correspondiente
-                indiceHijo = posicion[0];
+
+            int posicionInsertar = -(indice + 1);
+            insertado = true;
+            if (nodoActual.isFull()) {
+                //Dividir hoja
+                return dividirHoja(nodoActual, nuevaClave, posicionInsertar);
             }
+            //Inserta sin división
+            nodoActual.insertKeyIndex(posicionInsertar, nuevaClave);
+            dividido = false;
+            return null; //No hay división, no hay clave mediana
+        }
 
-            //Insertar recursivamente en hijo apropiado
-            claveMedia = push(nodoActual.getChild(indiceHijo), nuevaClave);
+        //Nodo interno: si la clave coincide con un separador se va al hijo derecho
+        int indiceHijo = indice >= 0 ? indice + 1 : -(indice + 1);
 
-            //Manejar división propagada desde hijo
-            if (dividido) {
-                if (nodoActual.isFull()) {
-                    claveMedia = dividirNodoInterno(nodoActual, claveMedia, indiceHijo);
-                } else {
-                    dividido = false;
-                    putNode(nodoActual, claveMedia, derechoTemporal, indiceHijo);
-                }
+        //Insertar recursivamente en hijo apropiado
+        E claveMedia = push(nodoActual.getChild(indiceHijo), nuevaClave);
+
+        //Manejar división propagada desde hijo
+        if (dividido) {
+            if (nodoActual.isFull()) {
+                claveMedia = dividirNodoInterno(nodoActual, claveMedia, indiceHijo);
+            } else {
+                dividido = false;
+                putNode(nodoActual, claveMedia, derechoTemporal, indiceHijo);
             }
-            return claveMedia;
         }
+        return claveMedia;
     }
 
     //Divide un nodo hoja lleno
@@ -234,41 +234,21 @@ public class BTreePlus<E extends Comparable<E>> {
         dividido = true;
 
         //Crea nuevo nodo hoja derecho
-        derechoTemporal = new BNodePlus<E>(true, this.orden);
-
-        //Crea array temporal con todas las claves (incluyendo la nueva)
-        ArrayList<E> listaClavesTemporal = new ArrayList<>();
+        derechoTemporal = nuevoNodo(true);
 
-        //Copiar claves existentes y la nueva en orden
-        int i = 0, j = 0;
-        while (i < nodoHoja.getContadorClaves()) {
-            if (j == posicionInsertar) {
-                listaClavesTemporal.add(nuevaClave);
-                j++;
-            }
-            listaClavesTemporal.add(nodoHoja.getKey(i));
-            i++;
-            j++;
-        }
-        if (j == posicionInsertar) {
-            listaClavesTemporal.add(nuevaClave);
-        }
-
-        // Calcular posición de división
-        int posicionMediana = (listaClavesTemporal.size() + 1) / 2;
-
-        // Limpiar nodo original
-        nodoHoja.contadorClaves = 0;
-
-        // Distribuir claves
-        // Claves menores permanecen en nodo original (izquierdo)
-        for (i = 0; i < posicionMediana; i++) {
-            nodoHoja.insertKey(listaClavesTemporal.get(i));
-        }
+        //Con la nueva clave hay 'orden' claves: la mitad inferior queda en el nodo original
+        int clavesIzquierda = (this.orden + 1) / 2;
 
-        // Clave mediana y mayores van al nuevo nodo derecho
-        for (i = posicionMediana; i < listaClavesTemporal.size(); i++) {
-            derechoTemporal.insertKey(listaClavesTemporal.get(i));
+        if (posicionInsertar < clavesIzquierda) {
+            //La nueva clave queda a la izquierda: se mueve una clave más al nodo derecho
+            int desde = clavesIzquierda - 1;
+            derechoTemporal.copiarClavesAlFinal(nodoHoja, desde, nodoHoja.getContadorClaves() - desde);
+            nodoHoja.truncar(desde);
+            nodoHoja.insertKeyIndex(posicionInsertar, nuevaClave);
+        } else {
+            derechoTemporal.copiarClavesAlFinal(nodoHoja, clavesIzquierda, nodoHoja.getContadorClaves() - clavesIzquierda);
+            nodoHoja.truncar(clavesIzquierda);
+            derechoTemporal.insertKeyIndex(posicionInsertar - clavesIzquierda, nuevaClave);
         }
 
         // Mantener enlaces entre hojas
@@ -279,52 +259,47 @@ public class BTreePlus<E extends Comparable<E>> {
         return derechoTemporal.getKey(0);
     }
 
-    //Divide un nodo interno lleno
-    //Retorna la clave mediana para propagar al padre
+    //Divide un nodo interno lleno al insertar la clave y el hijo derecho que subieron
+    //Retorna la clave mediana, que sube al padre y no queda en ninguno de los dos nodos
+    @SuppressWarnings("unchecked")
     private E dividirNodoInterno(BNodePlus<E> nodoInterno, E nuevaClave, int posicionInsertar) {
         BNodePlus<E> nuevoDerecho = derechoTemporal;
-        int posicionMediana;
+        int totalClaves = nodoInterno.getContadorClaves(); //orden - 1
+
+        //Arreglos temporales con 'orden' claves y 'orden + 1' hijos
+        Object[] claves = new Object[totalClaves + 1];
+        Object[] hijos = new Object[totalClaves + 2];
+        System.arraycopy(nodoInterno.claves, 0, claves, 0, posicionInsertar);
+        claves[posicionInsertar] = nuevaClave;
+        System.arraycopy(nodoInterno.claves, posicionInsertar, claves, posicionInsertar + 1, totalClaves - posicionInsertar);
+        System.arraycopy(nodoInterno.hijos, 0, hijos, 0, posicionInsertar + 1);
+        hijos[posicionInsertar + 1] = nuevoDerecho;
+        System.arraycopy(nodoInterno.hijos, posicionInsertar + 1, hijos, posicionInsertar + 2, totalClaves - posicionInsertar);
 
         //Calcula posición de la mediana
-        posicionMediana = (posicionInsertar <= this.orden / 2) ? this.orden / 2 : this.orden / 2 + 1;
-        derechoTemporal = new BNodePlus<E>(false, this.orden);
+        int posicionMediana = this.orden / 2;
+        derechoTemporal = nuevoNodo(false);
 
-        //Mover mitad superior de claves e hijos al nuevo nodo
-        for (int i = posicionMediana; i < this.orden - 1; i++) {
-            if (i < nodoInterno.getContadorClaves()) {
-                derechoTemporal.insertKey(nodoInterno.getKey(i));
-            }
-        }
-
-        //Mover hijos correspondientes
-        for (int i = posicionMediana; i <= nodoInterno.getContadorClaves(); i++) {
-            BNodePlus<E> hijo = nodoInterno.getChild(i);
-            if (hijo != null) {
-                derechoTemporal.setChild(i - posicionMediana, hijo);
-            }
-        }
-
-        //Ajustar contador de claves del nodo original
-        int clavesOriginales = nodoInterno.contadorClaves;
+        //Mitad inferior en el nodo original
+        nodoInterno.truncar(0);
+        System.arraycopy(claves, 0, nodoInterno.claves, 0, posicionMediana);
+        System.arraycopy(hijos, 0, nodoInterno.hijos, 0, posicionMediana + 1);
         nodoInterno.contadorClaves = posicionMediana;
 
-        //Insertar nueva clave en el nodo apropiado
-        if (posicionInsertar <= this.orden / 2) {
-            putNode(nodoInterno, nuevaClave, nuevoDerecho, posicionInsertar);
-        } else {
-            putNode(derechoTemporal, nuevaClave, nuevoDerecho, posicionInsertar - posicionMediana);
-        }
-
-        //Extraer y retornar clave mediana
-        E claveMediana = nodoInterno.getKey(nodoInterno.contadorClaves - 1);
+        //Mitad superior en el nuevo nodo
+        int clavesDerecha = claves.length - posicionMediana - 1;
+        System.arraycopy(claves, posicionMediana + 1, derechoTemporal.claves, 0, clavesDerecha);
+        System.arraycopy(hijos, posicionMediana + 1, derechoTemporal.hijos, 0, clavesDerecha + 1);
+        derechoTemporal.contadorClaves = clavesDerecha;
 
-        return claveMediana;
+        //dividido sigue en true: el padre debe recibir la mediana y el nuevo nodo
+        return (E) claves[posicionMediana];
     }
 
     //Inserta clave e hijo en nodo con espacio disponible
     private void putNode(BNodePlus<E> nodoActual, E nuevaClave, BNodePlus<E> nuevoDerecho, int posicionInsertar) {
         //Inserta la clave
-        nodoActual.insertKey(nuevaClave);
+        nodoActual.insertKeyIndex(posicionInsertar, nuevaClave);
 
         //Inserta el hijo derecho
         if (nuevoDerecho != null) {
@@ -332,6 +307,161 @@ public class BTreePlus<E extends Comparable<E>> {
         }
     }
 
+    /************************************************************************************
+     * CARGA MASIVA
+     ************************************************************************************/
+
+    /*
+    Construye el árbol a partir de claves en orden ascendente sin pasar por insert:
+    las hojas se llenan de izquierda a derecha y los niveles internos se arman de abajo
+    hacia arriba con la clave mínima de cada hijo como separador. Costo O(n).
+    - factorLlenado (0, 1]: fracción de la capacidad de cada nodo que se ocupa. Dejar espacio
+      libre evita divisiones en las primeras inserciones posteriores.
+    - Las claves repetidas consecutivas se descartan. Si la entrada no está ordenada se lanza
+      IllegalArgumentException y el árbol no se modifica.
+    - Si el árbol ya tenía claves, se mezclan con las nuevas y se reconstruye completo.
+     */
+    public void bulkLoad(Iterator<E> clavesOrdenadas, double factorLlenado) {
+        if (clavesOrdenadas == null) {
+            throw new IllegalArgumentException("El iterador de claves no puede ser null");
+        }
+        if (!(factorLlenado > 0 && factorLlenado <= 1)) {
+            throw new IllegalArgumentException("El factor de llenado debe estar en (0, 1]: " + factorLlenado);
+        }
+
+        ArrayList<E> claves = new ArrayList<>();
+        E anterior = null;
+        while (clavesOrdenadas.hasNext()) {
+            E clave = clavesOrdenadas.next();
+            if (clave == null) {
+                continue;
+            }
+            if (anterior != null) {
+                int comparacion = comparar(clave, anterior);
+                if (comparacion < 0) {
+                    throw new IllegalArgumentException("Las claves no están en orden ascendente: " + anterior + " > " + clave);
+                }
+                if (comparacion == 0) {
+                    continue; //Duplicado
+                }
+            }
+            claves.add(clave);
+            anterior = clave;
+        }
+
+        if (!isEmpty()) {
+            claves = mezclarOrdenadas(getTotalClaves(), claves);
+        }
+        construirDesdeOrdenadas(claves, factorLlenado);
+    }
+
+    //Carga masiva con las hojas completamente llenas
+    public void bulkLoad(Iterator<E> clavesOrdenadas) {
+        bulkLoad(clavesOrdenadas, 1.0);
+    }
+
+    //Mezcla dos listas ordenadas sin repetidos; ante claves iguales se conserva la nueva
+    private ArrayList<E> mezclarOrdenadas(ArrayList<E> existentes, ArrayList<E> nuevas) {
+        ArrayList<E> resultado = new ArrayList<>(existentes.size() + nuevas.size());
+        int i = 0, j = 0;
+        while (i < existentes.size() && j < nuevas.size()) {
+            int comparacion = comparar(existentes.get(i), nuevas.get(j));
+            if (comparacion < 0) {
+                resultado.add(existentes.get(i++));
+            } else if (comparacion > 0) {
+                resultado.add(nuevas.get(j++));
+            } else {
+                resultado.add(nuevas.get(j++));
+                i++;
+            }
+        }
+        while (i < existentes.size()) {
+            resultado.add(existentes.get(i++));
+        }
+        while (j < nuevas.size()) {
+            resultado.add(nuevas.get(j++));
+        }
+        return resultado;
+    }
+
+    private void construirDesdeOrdenadas(ArrayList<E> claves, double factorLlenado) {
+        this.raiz = null;
+        this.primeraHoja = null;
+        this.cantidadClaves = claves.size();
+        this.modificaciones++;
+        if (claves.isEmpty()) {
+            return;
+        }
+
+        //Nivel de hojas
+        int maximoHoja = this.orden - 1;
+        int minimoHoja = Math.max(1, (this.orden - 1) / 2); //Mismo mínimo que BNodePlus.getMinKeys
+        int objetivoHoja = Math.max(minimoHoja, Math.min(maximoHoja, (int) Math.round(maximoHoja * factorLlenado)));
+
+        ArrayList<BNodePlus<E>> nivel = new ArrayList<>();
+        ArrayList<E> minimos = new ArrayList<>(); //Clave mínima del subárbol de cada nodo del nivel
+        int cantidadHojas = cantidadGrupos(claves.size(), objetivoHoja, minimoHoja);
+        int posicion = 0;
+        BNodePlus<E> hojaAnterior = null;
+        for (int g = 0; g < cantidadHojas; g++) {
+            int tamanio = tamanioGrupo(claves.size(), cantidadHojas, g);
+            BNodePlus<E> hoja = nuevoNodo(true);
+            for (int k = 0; k < tamanio; k++) {
+                hoja.insertKeyIndex(k, claves.get(posicion++));
+            }
+            if (hojaAnterior != null) {
+                hojaAnterior.setNext(hoja);
+            }
+            hojaAnterior = hoja;
+            nivel.add(hoja);
+            minimos.add(hoja.getKey(0));
+        }
+        this.primeraHoja = nivel.get(0);
+
+        //Niveles internos, de abajo hacia arriba
+        int maximoHijos = this.orden;
+        int minimoHijos = (this.orden + 1) / 2;
+        int objetivoHijos = Math.max(minimoHijos, Math.min(maximoHijos, (int) Math.round(maximoHijos * factorLlenado)));
+
+        while (nivel.size() > 1) {
+            ArrayList<BNodePlus<E>> nivelSuperior = new ArrayList<>();
+            ArrayList<E> minimosSuperior = new ArrayList<>();
+            int cantidadNodos = cantidadGrupos(nivel.size(), objetivoHijos, minimoHijos);
+            posicion = 0;
+            for (int g = 0; g < cantidadNodos; g++) {
+                int tamanio = tamanioGrupo(nivel.size(), cantidadNodos, g);
+                BNodePlus<E> interno = nuevoNodo(false);
+                for (int k = 0; k < tamanio; k++) {
+                    interno.setChild(k, nivel.get(posicion));
+                    if (k > 0) {
+                        interno.insertKeyIndex(k - 1, minimos.get(posicion)); //Separador = mínimo del hijo derecho
+                    }
+                    posicion++;
+                }
+                nivelSuperior.add(interno);
+                minimosSuperior.add(minimos.get(posicion - tamanio));
+            }
+            nivel = nivelSuperior;
+            minimos = minimosSuperior;
+        }
+        this.raiz = nivel.get(0);
+    }
+
+    /*
+    Cantidad de nodos para repartir n elementos: la que da el objetivo de llenado,
+    reducida si hiciera falta para que ningún nodo quede bajo el mínimo.
+    Como el máximo es al menos 2 * mínimo - 1, el reparto parejo nunca lo supera.
+     */
+    private static int cantidadGrupos(int elementos, int objetivo, int minimo) {
+        int segunObjetivo = (elementos + objetivo - 1) / objetivo;
+        return Math.max(1, Math.min(segunObjetivo, elementos / minimo));
+    }
+
+    //Tamaño del grupo g al repartir los elementos en partes lo más parejas posible
+    private static int tamanioGrupo(int elementos, int grupos, int g) {
+        return elementos / grupos + (g < elementos % grupos ? 1 : 0);
+    }
+
     /************************************************************************************
      * MÉTODOS DE ELIMINACIÓN
      ************************************************************************************/
@@ -339,117 +469,89 @@ public class BTreePlus<E extends Comparable<E>> {
     //Elimina una clave
     public void remove(E clave) {
         if (isEmpty() || clave == null) {
-            System.out.println("El árbol está vacío o la clave es nula. No se puede eliminar.");
+            BusEventos.publicar(TipoEvento.CLAVE_NO_ENCONTRADA, null);
             return;
         }
 
         boolean eliminado = removeKey(this.raiz, clave);
 
         if (eliminado) {
-            System.out.println("Se eliminó la clave " + clave + " del árbol.");
+            BusEventos.publicar(TipoEvento.CLAVE_ELIMINADA, clave);
+            this.cantidadClaves--;
+            this.modificaciones++;
 
             //Ajusta la raíz si se quedó vacía
             if (!this.raiz.esHoja() && this.raiz.getContadorClaves() == 0) {
                 this.raiz = this.raiz.getChild(0);
+            } else if (this.raiz.esHoja() && this.raiz.isEmpty()) {
+                this.raiz = null;
+                this.primeraHoja = null;
             }
+            reemplazarSeparador(clave);
         } else {
-            System.out.println("La clave " + clave + " no se encontró en el árbol.");
+            BusEventos.publicar(TipoEvento.CLAVE_NO_ENCONTRADA, clave);
         }
     }
 
-    //Elimina clave recursivamente manejando underflow y actualización de índices
+    /*
+    Elimina clave recursivamente manejando underflow.
+    Si la clave también era separador de un nodo interno, remove lo reemplaza al final con
+    reemplazarSeparador.
+     */
     private boolean removeKey(BNodePlus<E> nodoActual, E clave) {
-        if (nodoActual == null) {
-            return false;
-        }
-
-        int[] posicion = new int[1];
-        boolean encontrado = nodoActual.searchKey(clave, posicion);
-
         if (nodoActual.esHoja()) {
             //En nodo hoja: eliminar si existe
-            if (encontrado) {
-                //Obtener el sucesor antes de eliminar (si existe)
-                E sucesor = null;
-                if (posicion[0] < nodoActual.getContadorClaves() - 1) {
-                    //Hay un sucesor en la misma hoja
-                    sucesor = nodoActual.getKey(posicion[0] + 1);
-                } else {
-                    //Buscar sucesor en la siguiente hoja
-                    BNodePlus<E> siguienteHoja = nodoActual.getNext();
-                    if (siguienteHoja != null && siguienteHoja.getContadorClaves() > 0) {
-                        sucesor = siguienteHoja.getKey(0);
-                    }
-                }
-
-                //Eliminar la clave de la hoja
-                nodoActual.removeKey(clave);
-
-                //Actualizar índices en nodos internos si es necesario
-                if (sucesor != null) {
-                    actualizarIndices(this.raiz, clave, sucesor);
-                }
-
-                return true;
-            } else {
+            int indice = nodoActual.buscarIndice(clave);
+            if (indice < 0) {
                 return false; //Clave no encontrada
             }
-        } else {
-            //En nodo interno: continuar búsqueda hacia abajo
-            int indiceHijo;
-            if (encontrado) {
-                //Si encontramos la clave en nodo interno, ir al hijo derecho
-                indiceHijo = posicion[0] + 1;
-            } else {
-                //Si no encontramos la clave, ir al hijo correspondiente
-                indiceHijo = posicion[0];
-            }
-
-            boolean eliminado = removeKey(nodoActual.getChild(indiceHijo), clave);
+            nodoActual.removeKeyIndex(indice);
+            return true;
+        }
 
-            //Verificar y corregir underflow en hijo
-            if (eliminado && nodoActual.getChild(indiceHijo) != null) {
-                BNodePlus<E> hijoAfectado = nodoActual.getChild(indiceHijo);
+        //En nodo interno: continuar búsqueda hacia abajo
+        int indiceHijo = nodoActual.indiceHijo(clave);
+        BNodePlus<E> hijoAfectado = nodoActual.getChild(indiceHijo);
+        boolean eliminado = removeKey(hijoAfectado, clave);
 
-                //Verificar underflow
-                if (hijoAfectado.getContadorClaves() < getMinimoClaves(hijoAfectado)) {
-                    corrigeUnderflow(nodoActual, indiceHijo);
-                }
-            }
-
-            return eliminado;
+        //Verificar y corregir underflow en hijo
+        if (eliminado && hijoAfectado.getContadorClaves() < hijoAfectado.getMinKeys()) {
+            corrigeUnderflow(nodoActual, indiceHijo);
         }
-    }
 
-    //Actualiza los índices en nodos internos cuando se elimina una clave
-    private void actualizarIndices(BNodePlus<E> nodo, E claveEliminada, E sucesor) {
-        if (nodo == null || nodo.esHoja()) {
-            return;
-        }
+        return eliminado;
+    }
 
-        //Buscar la clave eliminada en el nodo actual
-        for (int i = 0; i < nodo.getContadorClaves(); i++) {
-            if (nodo.getKey(i).equals(claveEliminada)) {
-                // Reemplazar con el sucesor
-                nodo.setKey(i, sucesor);
-                break;
+    /*
+    Después de eliminar una clave, si sigue como separador en un nodo interno de su camino se
+    reemplaza por la mínima de su subárbol derecho (la sucesora). Así todo separador es una clave
+    presente en las hojas, algo necesario cuando el comparador consulta datos externos (p. ej.
+    handles ordenados por el código guardado en otro arreglo): una clave eliminada puede dejar
+    de ser comparable y no debe quedar guiando búsquedas.
+     */
+    private void reemplazarSeparador(E clave) {
+        BNodePlus<E> nodoActual = this.raiz;
+        while (nodoActual != null && !nodoActual.esHoja()) {
+            int indice = nodoActual.buscarIndice(clave);
+            if (indice >= 0) {
+                BNodePlus<E> minimo = nodoActual.getChild(indice + 1);
+                while (!minimo.esHoja()) {
+                    minimo = minimo.getChild(0);
+                }
+                nodoActual.setKey(indice, minimo.getKey(0));
+                nodoActual = nodoActual.getChild(indice + 1);
+            } else {
+                nodoActual = nodoActual.getChild(-(indice + 1));
             }
         }
-
-        //Recursivamente actualizar en todos los hijos
-        for (int i = 0; i <= nodo.getContadorClaves(); i++) {
-            actualizarIndices(nodo.getChild(i), claveEliminada, sucesor);
-        }
     }
 
     //Corrige underflow en un nodo hijo
     private void corrigeUnderflow(BNodePlus<E> padre, int indiceHijo) {
-        BNodePlus<E> hijoDeficitario = padre.getChild(indiceHijo);
-
         // Intentar redistribuir con hermano izquierdo
         if (indiceHijo > 0) {
             BNodePlus<E> hermanoIzquierdo = padre.getChild(indiceHijo - 1);
-            if (hermanoIzquierdo.getContadorClaves() > getMinimoClaves(hermanoIzquierdo)) {
+            if (hermanoIzquierdo.getContadorClaves() > hermanoIzquierdo.getMinKeys()) {
                 redistribuyeIzquierdo(padre, indiceHijo - 1, indiceHijo);
                 return;
             }
@@ -458,19 +560,19 @@ public class BTreePlus<E extends Comparable<E>> {
         //Intentar redistribuir con hermano derecho
         if (indiceHijo < padre.getContadorClaves()) {
             BNodePlus<E> hermanoDerecho = padre.getChild(indiceHijo + 1);
-            if (hermanoDerecho.getContadorClaves() > getMinimoClaves(hermanoDerecho)) {
+            if (hermanoDerecho.getContadorClaves() > hermanoDerecho.getMinKeys()) {
                 redistribuyeDerecho(padre, indiceHijo, indiceHijo + 1);
                 return;
             }
         }
 
-        //Si no se puede redistribuir, fusionar
+        //Si no se puede redistribuir, fusionar (el hermano tiene exactamente el mínimo, así que caben)
         if (indiceHijo > 0) {
             //Fusionar con hermano izquierdo
-            fusionIzquierdo(padre, indiceHijo - 1, indiceHijo);
+            fusionar(padre, indiceHijo - 1, indiceHijo);
         } else if (indiceHijo < padre.getContadorClaves()) {
             //Fusionar con hermano derecho
-            fusionDerecho(padre, indiceHijo, indiceHijo + 1);
+            fusionar(padre, indiceHijo, indiceHijo + 1);
         }
     }
 
@@ -478,31 +580,28 @@ public class BTreePlus<E extends Comparable<E>> {
     private void redistribuyeIzquierdo(BNodePlus<E> padre, int indiceIzquierdo, int indiceDerecho) {
         BNodePlus<E> hermanoIzquierdo = padre.getChild(indiceIzquierdo);
         BNodePlus<E> hijoDeficitario = padre.getChild(indiceDerecho);
+        int ultima = hermanoIzquierdo.getContadorClaves() - 1;
 
         if (hermanoIzquierdo.esHoja()) {
             //Redistribución en hojas
-            E claveAMover = hermanoIzquierdo.getKey(hermanoIzquierdo.getContadorClaves() - 1);
-            hermanoIzquierdo.removeKey(claveAMover);
+            E claveAMover = hermanoIzquierdo.getKey(ultima);
+            hermanoIzquierdo.removeKeyIndex(ultima);
             hijoDeficitario.insertKeyIndex(0, claveAMover); // Insertar al inicio
 
             //Actualizar clave guía en el padre (primera clave del hijo derecho)
-            padre.setKey(indiceIzquierdo, hijoDeficitario.getKey(0));
+            padre.setKey(indiceIzquierdo, claveAMover);
         } else {
-            //Redistribución en nodos internos
+            //Redistribución en nodos internos: la clave del padre baja y la última del hermano sube
             E claveDelPadre = padre.getKey(indiceIzquierdo);
-            E claveAMover = hermanoIzquierdo.getKey(hermanoIzquierdo.getContadorClaves() - 1);
-            BNodePlus<E> hijoAMover = hermanoIzquierdo.getChild(hermanoIzquierdo.getContadorClaves());
+            E claveAMover = hermanoIzquierdo.getKey(ultima);
+            BNodePlus<E> hijoAMover = hermanoIzquierdo.getChild(ultima + 1);
 
-            //Mover clave del padre al hijo deficitario (al inicio)
             hijoDeficitario.insertKeyIndex(0, claveDelPadre);
-            //Mover hijo al inicio
             hijoDeficitario.insertChild(0, hijoAMover);
 
-            //Remover del hermano izquierdo
-            hermanoIzquierdo.removeKey(claveAMover);
-            hermanoIzquierdo.removeChild(hermanoIzquierdo.getContadorClaves() + 1);
+            hermanoIzquierdo.removeKeyIndex(ultima);
+            hermanoIzquierdo.setChild(ultima + 1, null);
 
-            //Actualizar clave en el padre
             padre.setKey(indiceIzquierdo, claveAMover);
         }
     }
@@ -515,129 +614,46 @@ public class BTreePlus<E extends Comparable<E>> {
         if (hermanoDerecho.esHoja()) {
             //Redistribución en hojas
             E claveAMover = hermanoDerecho.getKey(0);
-            hermanoDerecho.removeKey(claveAMover);
-            hijoDeficitario.insertKey(claveAMover); // Insertar al final
+            hermanoDerecho.removeKeyIndex(0);
+            hijoDeficitario.insertKeyIndex(hijoDeficitario.getContadorClaves(), claveAMover); // Insertar al final
 
             // Actualizar clave guía en el padre (primera clave del hermano derecho)
             padre.setKey(indiceIzquierdo, hermanoDerecho.getKey(0));
         } else {
-            // Redistribución en nodos internos
+            // Redistribución en nodos internos: la clave del padre baja y la primera del hermano sube
             E claveDelPadre = padre.getKey(indiceIzquierdo);
             E claveAMover = hermanoDerecho.getKey(0);
             BNodePlus<E> hijoAMover = hermanoDerecho.getChild(0);
 
-            // Mover clave del padre al hijo deficitario
-            hijoDeficitario.insertKey(claveDelPadre);
-            // Mover hijo
+            hijoDeficitario.insertKeyIndex(hijoDeficitario.getContadorClaves(), claveDelPadre);
             hijoDeficitario.setChild(hijoDeficitario.getContadorClaves(), hijoAMover);
 
-            // Remover del hermano derecho
-            hermanoDerecho.removeKey(claveAMover);
+            hermanoDerecho.removeKeyIndex(0);
             hermanoDerecho.removeChild(0);
 
-            // Actualizar clave en el padre
             padre.setKey(indiceIzquierdo, claveAMover);
         }
     }
 
-    //Fusión con hermano izquierdo
-    private void fusionIzquierdo(BNodePlus<E> padre, int indiceIzquierdo, int indiceDerecho) {
-        BNodePlus<E> hermanoIzquierdo = padre.getChild(indiceIzquierdo);
-        BNodePlus<E> hijoDeficitario = padre.getChild(indiceDerecho);
-
-        if (hermanoIzquierdo.esHoja()) {
-            //Fusión de hojas
-            //Mover todas las claves del hijo deficitario al hermano izquierdo
-            for (int i = 0; i < hijoDeficitario.getContadorClaves(); i++) {
-                hermanoIzquierdo.insertKey(hijoDeficitario.getKey(i));
-            }
+    //Fusiona el hijo derecho dentro del izquierdo y quita del padre la clave que los separaba
+    private void fusionar(BNodePlus<E> padre, int indiceIzquierdo, int indiceDerecho) {
+        BNodePlus<E> izquierdo = padre.getChild(indiceIzquierdo);
+        BNodePlus<E> derecho = padre.getChild(indiceDerecho);
 
-            //Actualizar enlace entre hojas
-            hermanoIzquierdo.setNext(hijoDeficitario.getNext());
+        if (izquierdo.esHoja()) {
+            //Fusión de hojas: se mueven las claves y se actualiza el enlace entre hojas
+            izquierdo.copiarClavesAlFinal(derecho, 0, derecho.getContadorClaves());
+            izquierdo.setNext(derecho.getNext());
         } else {
-            //Fusión de nodos internos
-            //Bajar la clave del padre
-            E claveDelPadre = padre.getKey(indiceIzquierdo);
-            hermanoIzquierdo.insertKey(claveDelPadre);
-
-            //Mover todas las claves del hijo deficitario
-            for (int i = 0; i < hijoDeficitario.getContadorClaves(); i++) {
-                hermanoIzquierdo.insertKey(hijoDeficitario.getKey(i));
-            }
-
-            //Mover todos los hijos
-            for (int i = 0; i <= hijoDeficitario.getContadorClaves(); i++) {
-                BNodePlus<E> hijo = hijoDeficitario.getChild(i);
-                if (hijo != null) {
-                    int nuevaPosicion = hermanoIzquierdo.getContadorClaves() - hijoDeficitario.getContadorClaves() + i;
-                    hermanoIzquierdo.setChild(nuevaPosicion, hijo);
-                }
-            }
-        }
-
-        //Remover clave del padre y reorganizar hijos
-        padre.removeKey(padre.getKey(indiceIzquierdo));
-        for (int i = indiceDerecho; i <= padre.getContadorClaves(); i++) {
-            padre.setChild(i, padre.getChild(i + 1));
-        }
-    }
-
-    //Fusión con hermano derecho
-    private void fusionDerecho(BNodePlus<E> padre, int indiceIzquierdo, int indiceDerecho) {
-        BNodePlus<E> hijoDeficitario = padre.getChild(indiceIzquierdo);
-        BNodePlus<E> hermanoDerecho = padre.getChild(indiceDerecho);
-
-        if (hijoDeficitario.esHoja()) {
-            //Fusión de hojas
-            //Mover todas las claves del hermano derecho al hijo deficitario
-            for (int i = 0; i < hermanoDerecho.getContadorClaves(); i++) {
-                hijoDeficitario.insertKey(hermanoDerecho.getKey(i));
-            }
-
-            //Actualizar enlace entre hojas
-            hijoDeficitario.setNext(hermanoDerecho.getNext());
-        } else {
-            //Fusión de nodos internos
-            //Bajar la clave del padre
-            E claveDelPadre = padre.getKey(indiceIzquierdo);
-            hijoDeficitario.insertKey(claveDelPadre);
-
-            //Mover todas las claves del hermano derecho
-            for (int i = 0; i < hermanoDerecho.getContadorClaves(); i++) {
-                hijoDeficitario.insertKey(hermanoDerecho.getKey(i));
-            }
-
-            //Mover todos los hijos
-            for (int i = 0; i <= hermanoDerecho.getContadorClaves(); i++) {
-                BNodePlus<E> hijo = hermanoDerecho.getChild(i);
-                if (hijo != null) {
-                    int nuevaPosicion = hijoDeficitario.getContadorClaves() - hermanoDerecho.getContadorClaves() + i;
-                    hijoDeficitario.setChild(nuevaPosicion, hijo);
-                }
-            }
+            //Fusión de nodos internos: baja la clave del padre y luego claves e hijos del derecho
+            izquierdo.insertKeyIndex(izquierdo.getContadorClaves(), padre.getKey(indiceIzquierdo));
+            izquierdo.copiarHijos(derecho, 0, izquierdo.getContadorClaves(), derecho.getContadorClaves() + 1);
+            izquierdo.copiarClavesAlFinal(derecho, 0, derecho.getContadorClaves());
         }
 
         //Remover clave del padre y reorganizar hijos
-        padre.removeKey(padre.getKey(indiceIzquierdo));
-        for (int i = indiceDerecho; i <= padre.getContadorClaves(); i++) {
-            padre.setChild(i, padre.getChild(i + 1));
-        }
-    }
-
-    //Calcula el mínimo número de claves para un nodo
-    private int getMinimoClaves(BNodePlus<E> nodo) {
-        if (nodo == this.raiz) {
-            //La raíz puede tener menos claves
-            return nodo.esHoja() ? 1 : 1;
-        }
-
-        if (nodo.esHoja()) {
-            // Para hojas: al menos (orden-1)/2 claves
-            return (this.orden - 1) / 2;
-        } else {
-            // Para nodos internos: al menos orden/2 - 1 claves
-            return (this.orden / 2) - 1;
-        }
+        padre.removeKeyIndex(indiceIzquierdo);
+        padre.removeChild(indiceDerecho);
     }
 
     //Método auxiliar para obtener la clave mínima de un subárbol
@@ -668,30 +684,35 @@ public class BTreePlus<E extends Comparable<E>> {
         return nodo.getKey(nodo.getContadorClaves() - 1);
     }
 
-    //Retorna todas las claves del árbol en orden ascendente
-    public ArrayList<E> getTotalClaves() {
-        ArrayList<E> resultado = new ArrayList<>();
-
-        if (isEmpty()) {
-            return resultado;
-        }
-
-        // Empezar desde la primera hoja
-        BNodePlus<E> nodoActual = this.primeraHoja;
-
-        // Si no tenemos referencia a la primera hoja, la encontramos
-        if (nodoActual == null) {
-            nodoActual = searchPrimeraHoja();
+    //Retorna las 'cantidad' claves mayores en orden descendente. Las hojas solo se enlazan hacia
+    //adelante, así que se baja desde la raíz recorriendo los hijos de derecha a izquierda
+    public ArrayList<E> mayores(int cantidad) {
+        ArrayList<E> resultado = new ArrayList<>(Math.max(0, Math.min(cantidad, this.cantidadClaves)));
+        if (!isEmpty() && cantidad > 0) {
+            agregarMayores(this.raiz, cantidad, resultado);
         }
+        return resultado;
+    }
 
-        // Recorrer todas las hojas
-        while (nodoActual != null) {
-            for (int i = 0; i < nodoActual.getContadorClaves(); i++) {
-                resultado.add(nodoActual.getKey(i));
+    private void agregarMayores(BNodePlus<E> nodo, int cantidad, ArrayList<E> resultado) {
+        if (nodo.esHoja()) {
+            for (int i = nodo.getContadorClaves() - 1; i >= 0 && resultado.size() < cantidad; i--) {
+                resultado.add(nodo.getKey(i));
             }
-            nodoActual = nodoActual.getNext();
+            return;
         }
+        for (int i = nodo.getContadorClaves(); i >= 0 && resultado.size() < cantidad; i--) {
+            agregarMayores(nodo.getChild(i), cantidad, resultado);
+        }
+    }
 
+    //Retorna todas las claves del árbol en orden ascendente
+    //Para recorrerlas sin copiarlas a una lista conviene usar cursor() o un for-each sobre el árbol
+    public ArrayList<E> getTotalClaves() {
+        ArrayList<E> resultado = new ArrayList<>(this.cantidadClaves);
+        for (E clave : this) {
+            resultado.add(clave);
+        }
         return resultado;
     }
 
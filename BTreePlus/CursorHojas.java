@@ -0,0 +1,86 @@
+package BTreePlus;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/*
+Cursor perezoso sobre las hojas del árbol B+.
+Recorre la cadena de hojas (siguiente) entregando una clave por vez, sin copiar nada a una lista:
+- seek(minimo) se posiciona en la primera clave >= minimo bajando una sola vez desde la raíz.
+- hasta(maximo) fija un límite superior inclusivo; al pasarlo el cursor termina.
+Si el árbol se modifica mientras el cursor está abierto, next() lanza ConcurrentModificationException.
+ */
+public class CursorHojas<E extends Comparable<E>> implements Iterator<E> {
+    private final BTreePlus<E> arbol;
+    private BNodePlus<E> hojaActual;
+    private int indice; //Posición de la próxima clave dentro de hojaActual
+    private E maximo; //Límite superior inclusivo, null si no hay
+    private int modificacionesEsperadas;
+
+    //Cursor posicionado en la primera clave del árbol
+    CursorHojas(BTreePlus<E> arbol) {
+        this.arbol = arbol;
+        this.maximo = null;
+        seek(null);
+    }
+
+    //Posiciona el cursor en la primera clave >= minimo (null = primera clave del árbol)
+    public CursorHojas<E> seek(E minimo) {
+        this.modificacionesEsperadas = arbol.getModificaciones();
+        if (minimo == null) {
+            this.hojaActual = arbol.getPrimeraHoja();
+            this.indice = 0;
+            return this;
+        }
+
+        this.hojaActual = arbol.searchNodoHoja(minimo);
+        if (hojaActual != null) {
+            int posicion = hojaActual.buscarIndice(minimo);
+            this.indice = posicion >= 0 ? posicion : -(posicion + 1);
+        }
+        return this;
+    }
+
+    //Fija el límite superior inclusivo del recorrido (null = hasta el final)
+    public CursorHojas<E> hasta(E maximo) {
+        this.maximo = maximo;
+        return this;
+    }
+
+    //Avanza por la cadena de hojas hasta una posición con clave, si la hay
+    private void ubicarSiguiente() {
+        while (hojaActual != null && indice >= hojaActual.getContadorClaves()) {
+            hojaActual = hojaActual.getNext();
+            indice = 0;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        comprobarModificaciones();
+        ubicarSiguiente();
+        if (hojaActual == null) {
+            return false;
+        }
+        if (maximo != null && arbol.comparar(hojaActual.getKey(indice), maximo) > 0) {
+            hojaActual = null; //Se pasó el límite: el recorrido termina sin visitar más hojas
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return hojaActual.getKey(indice++);
+    }
+
+    private void comprobarModificaciones() {
+        if (arbol.getModificaciones() != modificacionesEsperadas) {
+            throw new ConcurrentModificationException("El árbol B+ se modificó durante el recorrido");
+        }
+    }
+}
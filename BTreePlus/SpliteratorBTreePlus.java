@@ -0,0 +1,144 @@
+package BTreePlus;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/*
+Spliterator del árbol B+ que se divide por subárboles.
+Guarda en orden los subárboles (o la hoja parcialmente recorrida) que le faltan entregar:
+- tryAdvance recorre la hoja actual y, al agotarla, baja por el siguiente subárbol pendiente.
+- trySplit entrega la primera mitad de los pendientes; si queda un solo nodo interno,
+  lo reemplaza por sus hijos antes de dividir. Cada mitad cubre un rango de claves contiguo.
+ */
+class SpliteratorBTreePlus<E extends Comparable<E>> implements Spliterator<E> {
+    private final BTreePlus<E> arbol;
+    private final ArrayDeque<BNodePlus<E>> pendientes; //Subárboles por recorrer, en orden
+    private BNodePlus<E> hojaActual;
+    private int indice; //Próxima clave de hojaActual
+    private long tamanioEstimado;
+    private final boolean exacto; //true solo mientras no se haya dividido
+    private final int modificacionesEsperadas;
+
+    SpliteratorBTreePlus(BTreePlus<E> arbol) {
+        this.arbol = arbol;
+        this.pendientes = new ArrayDeque<>();
+        if (arbol.getRaiz() != null) {
+            this.pendientes.add(arbol.getRaiz());
+        }
+        this.tamanioEstimado = arbol.size();
+        this.exacto = true;
+        this.modificacionesEsperadas = arbol.getModificaciones();
+    }
+
+    private SpliteratorBTreePlus(BTreePlus<E> arbol, ArrayDeque<BNodePlus<E>> pendientes,
+                                 BNodePlus<E> hojaActual, int indice, long tamanioEstimado, int modificaciones) {
+        this.arbol = arbol;
+        this.pendientes = pendientes;
+        this.hojaActual = hojaActual;
+        this.indice = indice;
+        this.tamanioEstimado = tamanioEstimado;
+        this.exacto = false;
+        this.modificacionesEsperadas = modificaciones;
+    }
+
+    //Deja en hojaActual una hoja con claves por entregar; false si no queda nada
+    private boolean ubicarHoja() {
+        while (hojaActual == null || indice >= hojaActual.getContadorClaves()) {
+            BNodePlus<E> nodo = pendientes.pollFirst();
+            if (nodo == null) {
+                hojaActual = null;
+                return false;
+            }
+            //Baja por el hijo izquierdo dejando los demás hijos pendientes, en orden
+            while (!nodo.esHoja()) {
+                for (int i = nodo.getContadorClaves(); i >= 1; i--) {
+                    pendientes.addFirst(nodo.getChild(i));
+                }
+                nodo = nodo.getChild(0);
+            }
+            hojaActual = nodo;
+            indice = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super E> accion) {
+        if (accion == null) {
+            throw new NullPointerException();
+        }
+        comprobarModificaciones();
+        if (!ubicarHoja()) {
+            return false;
+        }
+        accion.accept(hojaActual.getKey(indice++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super E> accion) {
+        if (accion == null) {
+            throw new NullPointerException();
+        }
+        while (ubicarHoja()) {
+            for (int fin = hojaActual.getContadorClaves(); indice < fin; indice++) {
+                accion.accept(hojaActual.getKey(indice));
+            }
+        }
+        comprobarModificaciones();
+    }
+
+    @Override
+    public Spliterator<E> trySplit() {
+        //Un único subárbol interno pendiente: se reemplaza por sus hijos para poder dividir
+        if (pendientes.size() == 1 && (hojaActual == null || indice >= hojaActual.getContadorClaves())
+                && !pendientes.peekFirst().esHoja()) {
+            BNodePlus<E> nodo = pendientes.pollFirst();
+            for (int i = 0; i <= nodo.getContadorClaves(); i++) {
+                pendientes.addLast(nodo.getChild(i));
+            }
+        }
+        if (pendientes.size() < 2) {
+            return null;
+        }
+
+        //La primera mitad (más la hoja en curso, que va antes) pasa al nuevo spliterator
+        int mitad = pendientes.size() / 2;
+        ArrayDeque<BNodePlus<E>> prefijo = new ArrayDeque<>(mitad);
+        for (int i = 0; i < mitad; i++) {
+            prefijo.addLast(pendientes.pollFirst());
+        }
+        SpliteratorBTreePlus<E> primeraParte = new SpliteratorBTreePlus<>(arbol, prefijo, hojaActual, indice,
+                tamanioEstimado / 2, modificacionesEsperadas);
+        hojaActual = null;
+        indice = 0;
+        tamanioEstimado -= tamanioEstimado / 2;
+        return primeraParte;
+    }
+
+    @Override
+    public long estimateSize() {
+        return tamanioEstimado;
+    }
+
+    @Override
+    public int characteristics() {
+        int caracteristicas = ORDERED | SORTED | DISTINCT | NONNULL;
+        return exacto ? caracteristicas | SIZED : caracteristicas;
+    }
+
+    //Orden del árbol (null = orden natural de las claves)
+    @Override
+    public Comparator<? super E> getComparator() {
+        return arbol.getComparator();
+    }
+
+    private void comprobarModificaciones() {
+        if (arbol.getModificaciones() != modificacionesEsperadas) {
+            throw new ConcurrentModificationException("El árbol B+ se modificó durante el recorrido");
+        }
+    }
+}
@@ -7,6 +7,7 @@ import Excepciones.ItemNotFound;
 public interface BinarySearchTree<E> {
     void insert(E valor) throws ItemDuplicated;
     E search(E valor) throws ItemNotFound;
+    E find(E valor); //Búsqueda sin excepciones: retorna null si no está
     void delete (E valor) throws ExceptionIsEmpty;
     boolean isEmpty();
 }
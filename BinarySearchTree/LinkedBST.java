@@ -2,6 +2,8 @@ package BinarySearchTree;
 
 import Excepciones.*;
 
+import java.util.Optional;
+
 public class LinkedBST<E extends Comparable<E>> implements BinarySearchTree<E> {
     private NodoTree<E> raiz;
     private int size;
@@ -27,15 +29,31 @@ public class LinkedBST<E extends Comparable<E>> implements BinarySearchTree<E> {
         return size;
     }
 
-    //Busca un elemento en el BST
+    //Busca un elemento en el BST (lanza ItemNotFound si no está; se mantiene por compatibilidad)
     public E search(E valor) throws ItemNotFound{
-        E resultadoBusqueda = searchRecursivo(raiz,valor);
+        E resultadoBusqueda = find(valor);
         if (resultadoBusqueda == null){
             throw new ItemNotFound();
         }
         return resultadoBusqueda;
     }
 
+    //Busca un elemento sin lanzar excepciones: retorna null si no está
+    public E find(E valor){
+        if (valor == null){ return null; }
+        return searchRecursivo(raiz,valor);
+    }
+
+    //Igual que find pero envuelto en Optional
+    public Optional<E> searchOptional(E valor){
+        return Optional.ofNullable(find(valor));
+    }
+
+    //Verifica si el elemento está en el BST
+    public boolean contains(E valor){
+        return find(valor) != null;
+    }
+
     //Busca recursivamente el valor de un nodo en el árbol
     private E searchRecursivo(NodoTree<E> nodoTemporal, E valor){
         if(nodoTemporal == null){ return null; }
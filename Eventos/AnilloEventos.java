@@ -0,0 +1,67 @@
+package Eventos;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+Buffer circular sin bloqueos para muchos productores y un solo consumidor.
+- Un productor reserva la siguiente posición con compare-and-set sobre 'escritura' y después
+  publica el evento en su casilla. Si el anillo está lleno, el evento se descarta y se cuenta:
+  quien publica nunca espera al consumidor.
+- El consumidor lee la casilla de 'lectura'; si todavía es null, el productor que la reservó no
+  terminó de publicar y el consumidor vuelve a intentarlo más tarde. Al tomar el evento vacía la
+  casilla antes de avanzar 'lectura', así un productor nunca la encuentra ocupada.
+ */
+final class AnilloEventos {
+    private final AtomicReferenceArray<Evento> casillas;
+    private final int mascara;
+    private final AtomicLong escritura = new AtomicLong(); //Próxima posición a reservar
+    private volatile long lectura; //Próxima posición a consumir (solo la modifica el consumidor)
+    private final AtomicLong descartados = new AtomicLong();
+
+    AnilloEventos(int capacidad) {
+        if (capacidad <= 0 || Integer.bitCount(capacidad) != 1) {
+            throw new IllegalArgumentException("La capacidad del anillo debe ser potencia de dos: " + capacidad);
+        }
+        this.casillas = new AtomicReferenceArray<>(capacidad);
+        this.mascara = capacidad - 1;
+    }
+
+    //Retorna false si el anillo estaba lleno y el evento se descartó
+    boolean publicar(Evento evento) {
+        long posicion;
+        do {
+            posicion = escritura.get();
+            if (posicion - lectura > mascara) {
+                descartados.incrementAndGet();
+                return false;
+            }
+        } while (!escritura.compareAndSet(posicion, posicion + 1));
+        casillas.lazySet((int) posicion & mascara, evento);
+        return true;
+    }
+
+    //Siguiente evento o null si no hay ninguno publicado todavía (solo desde el consumidor)
+    Evento tomar() {
+        long posicion = lectura;
+        int casilla = (int) posicion & mascara;
+        Evento evento = casillas.get(casilla);
+        if (evento != null) {
+            casillas.lazySet(casilla, null);
+            lectura = posicion + 1;
+        }
+        return evento;
+    }
+
+    long posicionEscritura() {
+        return escritura.get();
+    }
+
+    long posicionLectura() {
+        return lectura;
+    }
+
+    long getDescartados() {
+        return descartados.get();
+    }
+}
@@ -0,0 +1,118 @@
+package Eventos;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+Bus de eventos global, en reemplazo de los mensajes por consola de las operaciones.
+- Sin oyentes (el estado por defecto) publicar() retorna de inmediato: no se crea el evento ni se
+  arma ningún texto.
+- Con oyentes, el evento se deja en un AnilloEventos y un hilo consumidor (daemon) lo entrega a
+  cada oyente. Quien publica no hace E/S ni espera: si el anillo se llena, el evento se descarta
+  y se cuenta en getDescartados().
+- esperarEntrega() sirve a las aplicaciones interactivas para mostrar los mensajes de una
+  operación antes de seguir.
+ */
+public final class BusEventos {
+    private static final int CAPACIDAD_ANILLO = 1 << 16;
+    private static final long ESPERA_CONSUMIDOR_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final AnilloEventos anillo = new AnilloEventos(CAPACIDAD_ANILLO);
+    private static final CopyOnWriteArrayList<OyenteEventos> oyentes = new CopyOnWriteArrayList<>();
+    private static volatile boolean activo; //true mientras haya al menos un oyente
+    private static volatile Thread consumidor;
+    private static volatile boolean consumidorDormido;
+    private static volatile long entregados; //Eventos ya entregados a los oyentes (solo lo modifica el consumidor)
+
+    private BusEventos() {
+    }
+
+    public static synchronized void suscribir(OyenteEventos oyente) {
+        if (oyente == null) {
+            throw new IllegalArgumentException("El oyente no puede ser null");
+        }
+        oyentes.add(oyente);
+        if (consumidor == null) {
+            Thread hilo = new Thread(BusEventos::consumir, "bus-eventos");
+            hilo.setDaemon(true);
+            consumidor = hilo;
+            hilo.start();
+        }
+        activo = true;
+    }
+
+    public static synchronized void desuscribir(OyenteEventos oyente) {
+        oyentes.remove(oyente);
+        activo = !oyentes.isEmpty();
+    }
+
+    public static boolean hayOyentes() {
+        return activo;
+    }
+
+    public static void publicar(TipoEvento tipo, Object sujeto) {
+        if (activo) {
+            encolar(new Evento(tipo, sujeto, null, 0, 0));
+        }
+    }
+
+    public static void publicar(TipoEvento tipo, Object sujeto, long numero) {
+        if (activo) {
+            encolar(new Evento(tipo, sujeto, null, numero, 0));
+        }
+    }
+
+    public static void publicar(TipoEvento tipo, Object sujeto, Object detalle, long numero, long numeroExtra) {
+        if (activo) {
+            encolar(new Evento(tipo, sujeto, detalle, numero, numeroExtra));
+        }
+    }
+
+    private static void encolar(Evento evento) {
+        if (anillo.publicar(evento) && consumidorDormido) {
+            LockSupport.unpark(consumidor);
+        }
+    }
+
+    //Eventos perdidos porque el anillo estaba lleno
+    public static long getDescartados() {
+        return anillo.getDescartados();
+    }
+
+    //Espera a que los oyentes reciban todo lo publicado hasta ahora (o a que no quede ninguno)
+    public static void esperarEntrega() {
+        long objetivo = anillo.posicionEscritura();
+        while (activo && entregados < objetivo) {
+            LockSupport.unpark(consumidor);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+    }
+
+    private static void consumir() {
+        while (true) {
+            Evento evento = anillo.tomar();
+            if (evento == null) {
+                //Se anuncia antes de volver a mirar el anillo: un productor que publique después
+                //ve la marca y despierta al consumidor
+                consumidorDormido = true;
+                if (anillo.posicionLectura() == anillo.posicionEscritura()) {
+                    LockSupport.parkNanos(ESPERA_CONSUMIDOR_NANOS);
+                } else {
+                    Thread.onSpinWait(); //Hay una posición reservada que todavía no se publicó
+                }
+                consumidorDormido = false;
+                continue;
+            }
+            for (OyenteEventos oyente : oyentes) {
+                try {
+                    oyente.alRecibir(evento);
+                } catch (RuntimeException e) {
+                    //Un oyente con errores no debe cortar la entrega a los demás
+                    System.err.println("Error en un oyente de eventos: " + e);
+                }
+            }
+            entregados++;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package Eventos;
+
+/*
+Evento inmutable. Quien publica solo guarda referencias y números: el texto se arma en
+getMensaje(), en el hilo consumidor, y solo si algún oyente lo pide.
+El significado de sujeto, detalle y los números depende del tipo (ver TipoEvento).
+ */
+public final class Evento {
+    private final TipoEvento tipo;
+    private final Object sujeto;
+    private final Object detalle;
+    private final long numero;
+    private final long numeroExtra;
+    private final long instanteNanos; //System.nanoTime() al publicar
+    private final String hilo;
+
+    Evento(TipoEvento tipo, Object sujeto, Object detalle, long numero, long numeroExtra) {
+        this.tipo = tipo;
+        this.sujeto = sujeto;
+        this.detalle = detalle;
+        this.numero = numero;
+        this.numeroExtra = numeroExtra;
+        this.instanteNanos = System.nanoTime();
+        this.hilo = Thread.currentThread().getName();
+    }
+
+    public TipoEvento getTipo() { return tipo; }
+
+    public Object getSujeto() { return sujeto; }
+
+    public Object getDetalle() { return detalle; }
+
+    public long getNumero() { return numero; }
+
+    public long getNumeroExtra() { return numeroExtra; }
+
+    public long getInstanteNanos() { return instanteNanos; }
+
+    public String getHilo() { return hilo; }
+
+    //Mensaje legible, con los mismos textos que antes se imprimían por consola
+    public String getMensaje() {
+        switch (tipo) {
+            case ITEM_DUPLICADO: return "Item duplicado: " + sujeto;
+            case CLAVE_ELIMINADA: return "Se eliminó la clave " + sujeto + " del árbol.";
+            case CLAVE_NO_ENCONTRADA:
+                return sujeto == null ? "El árbol está vacío o la clave es nula. No se puede eliminar."
+                        : "La clave " + sujeto + " no se encontró en el árbol.";
+            case REHASH_INICIADO:
+                return String.format("Rehashing... Factor de carga: %.2f", numero == 0 ? 0.0 : (double) numeroExtra / numero);
+            case REHASH_COMPLETADO: return "Rehashing completado. Nueva capacidad: " + numero;
+            case CATEGORIA_INSERTADA: return "Categoría '" + sujeto + "' insertada con id: " + numero;
+            case CATEGORIA_DUPLICADA: return "La categoría '" + sujeto + "' ya existe.";
+            case CATEGORIA_ELIMINADA: return "Categoría '" + sujeto + "' eliminada del directorio.";
+            case CATEGORIA_NO_ENCONTRADA: return "La categoría '" + sujeto + "' no existe.";
+            case PRODUCTO_INSERTADO: return "Producto '" + detalle + "' insertado correctamente en la fila " + numero + ".";
+            case PRODUCTO_DUPLICADO: return "Error: El producto con código '" + sujeto + "' ya existe.";
+            case PRODUCTO_ELIMINADO: return "Producto '" + sujeto + "' eliminado correctamente.";
+            case PRODUCTO_NO_ENCONTRADO: return "Producto con código '" + sujeto + "' no encontrado.";
+            case STOCK_ACTUALIZADO: return "Stock de '" + detalle + "' actualizado a " + numero;
+            case PRECIO_ACTUALIZADO: return "Precio de '" + sujeto + "' actualizado a " + detalle;
+            case UMBRAL_ESTABLECIDO:
+                return numero < 0 ? "Umbral de reposición de '" + sujeto + "' eliminado."
+                        : "Umbral de reposición de '" + sujeto + "' establecido en " + numero;
+            case STOCK_BAJO_UMBRAL:
+                return "Reponer '" + sujeto + "': stock " + numero + " por debajo del umbral " + numeroExtra;
+            case DATOS_INVALIDOS: return String.valueOf(detalle);
+            case CARGA_MASIVA_COMPLETADA:
+                return "Carga masiva completada: " + numero + " productos cargados, " + numeroExtra + " omitidos.";
+            case CAPACIDAD_AMPLIADA: return "Capacidad de productos ampliada a " + numero + ".";
+            case CAPACIDAD_AGOTADA: return "Error: Se alcanzó la capacidad máxima de productos (" + numero + ").";
+            case BITACORA_RECUPERADA: return "Bitácora '" + sujeto + "': " + numero + " operaciones recuperadas.";
+            case BITACORA_TRUNCADA:
+                return "Bitácora '" + sujeto + "': se descartaron " + numero + " bytes de un registro incompleto al final.";
+            case INSTANTANEA_GUARDADA:
+                return "Instantánea guardada en '" + sujeto + "': " + numero + " categorías, " + numeroExtra + " productos.";
+            case INSTANTANEA_CARGADA:
+                return "Instantánea '" + sujeto + "' cargada: " + numero + " categorías, " + numeroExtra + " productos.";
+            default: return tipo + " " + sujeto;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return tipo + ": " + getMensaje();
+    }
+}
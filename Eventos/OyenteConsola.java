@@ -0,0 +1,21 @@
+package Eventos;
+
+import java.io.PrintStream;
+
+//Imprime el mensaje de cada evento: reproduce la salida por consola que tenían las operaciones
+public class OyenteConsola implements OyenteEventos {
+    private final PrintStream salida;
+
+    public OyenteConsola() {
+        this(System.out);
+    }
+
+    public OyenteConsola(PrintStream salida) {
+        this.salida = salida;
+    }
+
+    @Override
+    public void alRecibir(Evento evento) {
+        salida.println(evento.getMensaje());
+    }
+}
@@ -0,0 +1,7 @@
+package Eventos;
+
+//Recibe los eventos en el hilo consumidor del bus, en el orden en que se publicaron
+@FunctionalInterface
+public interface OyenteEventos {
+    void alRecibir(Evento evento);
+}
@@ -0,0 +1,35 @@
+package Eventos;
+
+//Tipos de evento que publican las estructuras y el sistema de inventario
+public enum TipoEvento {
+    //Estructuras de datos
+    ITEM_DUPLICADO,          //sujeto = clave rechazada por un árbol
+    CLAVE_ELIMINADA,         //sujeto = clave
+    CLAVE_NO_ENCONTRADA,     //sujeto = clave (null si el árbol estaba vacío)
+    REHASH_INICIADO,         //numero = capacidad anterior, numeroExtra = elementos
+    REHASH_COMPLETADO,       //numero = capacidad nueva, numeroExtra = elementos
+
+    //Catálogo
+    CATEGORIA_INSERTADA,     //sujeto = nombre, numero = id
+    CATEGORIA_DUPLICADA,     //sujeto = nombre
+    CATEGORIA_ELIMINADA,     //sujeto = nombre
+    CATEGORIA_NO_ENCONTRADA, //sujeto = nombre
+    PRODUCTO_INSERTADO,      //sujeto = código, detalle = nombre, numero = handle
+    PRODUCTO_DUPLICADO,      //sujeto = código
+    PRODUCTO_ELIMINADO,      //sujeto = código
+    PRODUCTO_NO_ENCONTRADO,  //sujeto = código
+    STOCK_ACTUALIZADO,       //sujeto = código, detalle = nombre, numero = stock nuevo
+    PRECIO_ACTUALIZADO,      //sujeto = código, detalle = precio nuevo (Double)
+    UMBRAL_ESTABLECIDO,      //sujeto = código, numero = umbral (-1 = sin umbral)
+    STOCK_BAJO_UMBRAL,       //sujeto = código, numero = stock, numeroExtra = umbral
+    DATOS_INVALIDOS,         //detalle = descripción del dato rechazado
+    CARGA_MASIVA_COMPLETADA, //numero = cargados, numeroExtra = omitidos
+
+    //Capacidad y persistencia
+    CAPACIDAD_AMPLIADA,      //numero = capacidad nueva
+    CAPACIDAD_AGOTADA,       //numero = capacidad máxima
+    BITACORA_RECUPERADA,     //sujeto = archivo, numero = operaciones reproducidas
+    BITACORA_TRUNCADA,       //sujeto = archivo, numero = bytes descartados
+    INSTANTANEA_GUARDADA,    //sujeto = archivo, numero = categorías, numeroExtra = productos
+    INSTANTANEA_CARGADA      //sujeto = archivo, numero = categorías, numeroExtra = productos
+}
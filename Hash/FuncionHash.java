@@ -0,0 +1,8 @@
+package Hash;
+
+//Estrategia para calcular el hash de una clave en las tablas hash
+//La tabla aplica una máscara sobre el resultado, por lo que todos los bits deben estar bien mezclados
+@FunctionalInterface
+public interface FuncionHash<E> {
+    int hash(E clave);
+}
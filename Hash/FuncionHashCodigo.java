@@ -0,0 +1,9 @@
+package Hash;
+
+//Función hash rápida que reutiliza hashCode() de la clave y solo le aplica el finalizador
+//de MurmurHash3. Conviene para claves cuyo hashCode() ya está en caché (String, Producto)
+public class FuncionHashCodigo<E> implements FuncionHash<E> {
+    public int hash(E clave) {
+        return FuncionHashMurmur.mezclar32(clave.hashCode());
+    }
+}
@@ -0,0 +1,71 @@
+package Hash;
+
+//Función hash estilo MurmurHash3 sin asignar memoria:
+//- String: mezcla los caracteres de dos en dos (sin crear subcadenas)
+//- Números enteros: mezcla el valor como long
+//- Números decimales: mezcla los bits del double
+//- Otros tipos: aplica el finalizador sobre hashCode()
+public class FuncionHashMurmur<E> implements FuncionHash<E> {
+    private static final int SEMILLA = 0x9747b28c;
+    private static final int C1 = 0xcc9e2d51;
+    private static final int C2 = 0x1b873593;
+
+    public int hash(E clave) {
+        if (clave instanceof String) {
+            return hashCadena((String) clave);
+        }
+        if (clave instanceof Double || clave instanceof Float) {
+            return mezclar64(Double.doubleToLongBits(((Number) clave).doubleValue()));
+        }
+        if (clave instanceof Number) {
+            return mezclar64(((Number) clave).longValue());
+        }
+        return mezclar32(clave.hashCode());
+    }
+
+    //MurmurHash3 (32 bits) sobre los caracteres de la cadena, dos caracteres por bloque
+    public static int hashCadena(CharSequence cadena) {
+        int h1 = SEMILLA;
+        int longitud = cadena.length();
+
+        for (int i = 1; i < longitud; i += 2) {
+            int k1 = cadena.charAt(i - 1) | (cadena.charAt(i) << 16);
+            h1 ^= mezclarBloque(k1);
+            h1 = Integer.rotateLeft(h1, 13);
+            h1 = h1 * 5 + 0xe6546b64;
+        }
+
+        //Carácter final si la longitud es impar
+        if ((longitud & 1) == 1) {
+            h1 ^= mezclarBloque(cadena.charAt(longitud - 1));
+        }
+
+        return mezclar32(h1 ^ (2 * longitud));
+    }
+
+    private static int mezclarBloque(int k1) {
+        k1 *= C1;
+        k1 = Integer.rotateLeft(k1, 15);
+        return k1 * C2;
+    }
+
+    //Finalizador de MurmurHash3 (32 bits): cada bit de entrada afecta a todos los de salida
+    public static int mezclar32(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    //Finalizador de MurmurHash3 (64 bits) plegado a 32 bits
+    public static int mezclar64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -2,50 +2,73 @@ package Hash;
 
 import LinkedList.ListaEnlazada;
 import LinkedList.MensajeException;
+import Eventos.BusEventos;
+import Eventos.TipoEvento;
 
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class HashEncadenamiento<E> {
     private ArrayList<ListaEnlazada<E>> listaHash; //Tabla con listas enlazadas
-    private int capacidad; //Capacidad de la tabla hash
-    private int modulo; //Tamaño de la tabla para función hash
-    private int contadorElementos; //Contador de elementos totales
+    private int capacidad; //Capacidad de la tabla hash (siempre potencia de dos)
+    private int mascara; //capacidad - 1, reemplaza al módulo primo en la función hash
+    private int contadorElementos; //Contador de elementos totales (en ambas tablas durante un rehashing)
     private final double factorCargaMaximo = 0.75; //Factor de carga máximo
+    private final FuncionHash<E> funcionHash; //Estrategia para calcular el hash de cada clave
 
-    public HashEncadenamiento(int capacidad) {
-        this.capacidad = capacidad;
-        this.modulo = siguientePrimo(capacidad);
-        this.listaHash = new ArrayList<>(this.capacidad);
-        this.contadorElementos = 0;
+    //Rehashing incremental: la tabla anterior se migra de a pocas listas en cada operación
+    private static final int LISTAS_MIGRADAS_POR_OPERACION = 4;
+    private final boolean rehashingIncremental;
+    private ArrayList<ListaEnlazada<E>> tablaAnterior; //null si no hay un rehashing en curso
+    private int mascaraAnterior;
+    private int indiceMigracion; //Siguiente lista de la tabla anterior por migrar
 
-        //Inicializar cada posición con una lista enlazada vacía
-        for (int i = 0; i < this.capacidad; i++) {
-            this.listaHash.add(new ListaEnlazada<E>());
-        }
+    //Constructor con la función hash por defecto (MurmurHash3)
+    public HashEncadenamiento(int capacidad) {
+        this(capacidad, new FuncionHashMurmur<E>());
     }
 
-    //Método para encontrar el siguiente número primo mayor o igual a n
-    private int siguientePrimo(int numero) {
-        if (numero <= 1) return 2;
+    //Constructor que permite elegir la función hash
+    public HashEncadenamiento(int capacidad, FuncionHash<E> funcionHash) {
+        this(capacidad, funcionHash, false);
+    }
 
-        while (!esPrimo(numero)) {
-            numero++;
+    /*
+    Constructor que permite elegir la función hash y el modo de rehashing.
+    Con rehashingIncremental = true, al superar el factor de carga se crea la tabla nueva
+    y las listas de la anterior se trasladan de a LISTAS_MIGRADAS_POR_OPERACION en cada
+    inserción, búsqueda o eliminación; mientras tanto las búsquedas consultan ambas tablas.
+    Así ninguna inserción individual paga la reconstrucción completa.
+     */
+    public HashEncadenamiento(int capacidad, FuncionHash<E> funcionHash, boolean rehashingIncremental) {
+        if (funcionHash == null) {
+            throw new IllegalArgumentException("La función hash no puede ser null");
         }
-        return numero;
+        this.funcionHash = funcionHash;
+        this.rehashingIncremental = rehashingIncremental;
+        this.capacidad = siguientePotenciaDeDos(capacidad);
+        this.mascara = this.capacidad - 1;
+        this.listaHash = crearTabla(this.capacidad);
+        this.contadorElementos = 0;
+        this.tablaAnterior = null;
     }
 
-    //Método para verificar si un número es primo
-    private boolean esPrimo(int numero) {
-        if (numero <= 1) return false;
-        if (numero <= 3) return true;
-        if (numero % 2 == 0 || numero % 3 == 0) return false;
-
-        for (int i = 5; i * i <= numero; i += 6) {
-            if (numero % i == 0 || numero % (i + 2) == 0) {
-                return false;
-            }
+    //Crea una tabla con cada posición inicializada con una lista enlazada vacía
+    private ArrayList<ListaEnlazada<E>> crearTabla(int capacidadTabla) {
+        ArrayList<ListaEnlazada<E>> tabla = new ArrayList<>(capacidadTabla);
+        for (int i = 0; i < capacidadTabla; i++) {
+            tabla.add(new ListaEnlazada<E>());
         }
-        return true;
+        return tabla;
+    }
+
+    //Método para encontrar la siguiente potencia de dos mayor o igual a n
+    private static int siguientePotenciaDeDos(int numero) {
+        if (numero <= 2) return 2;
+        return Integer.highestOneBit(numero - 1) << 1;
     }
 
     //Método para calcular el factor de carga actual
@@ -54,68 +77,17 @@ public class HashEncadenamiento<E> {
     }
 
     /***********************************************************************************
-     * MÉTODOS PARA HASHEAR SEGUN TIPO INTEGER O STRING
+     * FUNCIÓN HASH
      ***********************************************************************************/
 
-    //Método principal que calcula el índice según el tipo de clave
+    //Método principal que calcula el índice de la clave
+    //La función hash mezcla todos los bits, así que basta con enmascarar los bits bajos
     public int principal(E clave) {
-        int indice = 0;
-
-        if (clave instanceof Number) {
-            long numeroLong = ((Number) clave).longValue();
-            indice = metodoPliegue(numeroLong);
-        }
-        else if (clave instanceof String) {
-            indice = metodoSuma((String) clave);
-        }
-        else {
-            // Usar hashCode() para otros tipos
-            indice = clave.hashCode();
-        }
-
-        indice = Math.abs(indice) % modulo;
-        return ajustarIndice(indice);
-    }
-
-    //Método por Pliegue para números
-    public int metodoPliegue(long clave) {
-        String numeroCadena = String.valueOf(clave);
-        int suma = 0;
-
-        //Recorrer de dos en dos
-        for (int i = 0; i < numeroCadena.length(); i += 2) {
-            String par = "";
-
-            //Tomar el primer dígito
-            par += numeroCadena.charAt(i);
-
-            //Tomar el segundo dígito si existe
-            if (i + 1 < numeroCadena.length()) {
-                par += numeroCadena.charAt(i + 1);
-            }
-
-            //Sumar el par a la suma total
-            suma += Integer.parseInt(par);
-        }
-
-        return suma;
-    }
-
-    //Método de suma para strings
-    public int metodoSuma(String clave) {
-        int suma = 0;
-        for (int i = 0; i < clave.length(); i++) {
-            suma += clave.charAt(i) * (i + 1);
-        }
-        return suma;
+        return funcionHash.hash(clave) & mascara;
     }
 
-    //Método auxiliar para ajustar el índice al tamaño real de la tabla
-    private int ajustarIndice(int indice) {
-        if (indice >= capacidad){
-            return indice % capacidad;
-        }
-        return indice;
+    public FuncionHash<E> getFuncionHash() {
+        return funcionHash;
     }
 
     /***********************************************************************************
@@ -126,9 +98,15 @@ public class HashEncadenamiento<E> {
     public boolean insertarClave(E clave) throws MensajeException {
         if (clave == null) return false;
 
+        avanzarMigracion();
+
         //Verificar si necesitamos rehashing antes de insertar
-        if (factorCarga() >= factorCargaMaximo) {
-            rehashing();
+        if (factorCarga() >= factorCargaMaximo && tablaAnterior == null) {
+            if (rehashingIncremental) {
+                iniciarRehashingIncremental();
+            } else {
+                rehashing();
+            }
         }
 
         int indice = principal(clave); // Calcular posición
@@ -141,67 +119,160 @@ public class HashEncadenamiento<E> {
 
     //Método para buscar una clave
     public boolean buscarClave(E clave) {
-        if (clave == null) return false;
-
-        int indice = principal(clave); //Calcular posición
-        return listaHash.get(indice).contains(clave); //Buscar en lista correspondiente
+        return obtenerElemento(clave) != null;
     }
 
     //Método para eliminar una clave
     public boolean eliminarClave(E clave) {
         if (clave == null) return false;
 
-        int indice = principal(clave); //Calcular posición
-        ListaEnlazada<E> listaTemporal = listaHash.get(indice); //Obtener lista
-        try {
-            if (listaTemporal.contains(clave)) { //Verificar existencia
-                listaTemporal.removeNode(clave); //Eliminar de la lista
+        avanzarMigracion();
+
+        int hash = funcionHash.hash(clave);
+        if (eliminarDeLista(listaHash.get(hash & mascara), clave)) {
+            return true;
+        }
+        ListaEnlazada<E> listaAnterior = listaAnteriorPendiente(hash);
+        return listaAnterior != null && eliminarDeLista(listaAnterior, clave);
+    }
+
+    //Un solo recorrido: se desenlaza la primera coincidencia desde el cursor
+    private boolean eliminarDeLista(ListaEnlazada<E> listaTemporal, E clave) {
+        Iterator<E> cursor = listaTemporal.iterator();
+        while (cursor.hasNext()) {
+            if (cursor.next().equals(clave)) {
+                cursor.remove();
                 contadorElementos--;
                 return true;
             }
-            return false;
-        } catch (MensajeException e) {
-            return false; //Error en eliminación
         }
+        return false;
+    }
+
+    //Busca el elemento 'equals' a la clave en la tabla actual y, si hay rehashing en curso, en la anterior
+    private E obtenerElemento(E clave) {
+        if (clave == null) return null;
+
+        avanzarMigracion();
+
+        int hash = funcionHash.hash(clave);
+        E elemento = buscarEnLista(listaHash.get(hash & mascara), clave);
+        if (elemento == null) {
+            ListaEnlazada<E> listaAnterior = listaAnteriorPendiente(hash);
+            if (listaAnterior != null) {
+                elemento = buscarEnLista(listaAnterior, clave);
+            }
+        }
+        return elemento;
+    }
+
+    private E buscarEnLista(ListaEnlazada<E> listaTemporal, E clave) {
+        //Recorrer la lista para encontrar el elemento que es 'equals' a la clave
+        for (E elemento : listaTemporal) {
+            if (elemento != null && elemento.equals(clave)) { //Usar equals para comparar el contenido
+                return elemento;
+            }
+        }
+        return null;
+    }
+
+    //Lista de la tabla anterior donde aún puede estar la clave, o null si ya se migró
+    private ListaEnlazada<E> listaAnteriorPendiente(int hash) {
+        if (tablaAnterior == null) {
+            return null;
+        }
+        int indiceAnterior = hash & mascaraAnterior;
+        return indiceAnterior >= indiceMigracion ? tablaAnterior.get(indiceAnterior) : null;
     }
 
     //Método para redimensionar la tabla (rehashing)
     private void rehashing() {
-        System.out.println("Rehashing... Factor de carga: " + factorCarga());
+        BusEventos.publicar(TipoEvento.REHASH_INICIADO, this, null, capacidad, contadorElementos);
 
         //Guardar la tabla actual
         ArrayList<ListaEnlazada<E>> tablaAnterior = new ArrayList<>(listaHash);
 
-        //Duplicar la capacidad y encontrar el siguiente primo
-        int nuevaCapacidad = capacidad * 2;
-        this.capacidad = siguientePrimo(nuevaCapacidad);
-        this.modulo = this.capacidad;
+        //Duplicar la capacidad (sigue siendo potencia de dos)
+        this.capacidad = capacidad * 2;
+        this.mascara = this.capacidad - 1;
         this.contadorElementos = 0;
 
         //Crear nueva tabla
-        this.listaHash = new ArrayList<ListaEnlazada<E>>(this.capacidad);
-
-        //Inicializar nueva tabla con listas vacías
-        for (int i = 0; i < this.capacidad; i++) {
-            this.listaHash.add(new ListaEnlazada<E>());
-        }
+        this.listaHash = crearTabla(this.capacidad);
 
         //Reinsertar todos los elementos de la tabla anterior
         for (ListaEnlazada<E> lista : tablaAnterior) {
             if (!lista.isEmpty()) {
                 try {
                     //Recorrer cada elemento de la lista
-                    for (int i = 0; i < lista.length(); i++) {
-                        E elemento = lista.searchK(i);
+                    for (E elemento : lista) {
                         insertarSinVerificarCarga(elemento);
                     }
                 } catch (MensajeException e) {
-                    System.err.println("Error durante rehashing: " + e.getMessage());
+                    throw new IllegalStateException("Error durante rehashing: " + e.getMessage(), e);
                 }
             }
         }
 
-        System.out.println("Rehashing completado. Nueva capacidad: " + capacidad);
+        BusEventos.publicar(TipoEvento.REHASH_COMPLETADO, this, null, capacidad, contadorElementos);
+    }
+
+    //Comienza un rehashing incremental: solo se crea la tabla nueva, sin mover elementos
+    private void iniciarRehashingIncremental() {
+        BusEventos.publicar(TipoEvento.REHASH_INICIADO, this, null, capacidad, contadorElementos);
+        this.tablaAnterior = listaHash;
+        this.mascaraAnterior = mascara;
+        this.indiceMigracion = 0;
+
+        this.capacidad = capacidad * 2;
+        this.mascara = this.capacidad - 1;
+        this.listaHash = crearTabla(this.capacidad);
+    }
+
+    /*
+    Traslada a la tabla nueva hasta LISTAS_MIGRADAS_POR_OPERACION listas de la tabla anterior.
+    Con la tabla duplicada quedan al menos capacidadAnterior * 0.75 inserciones antes del
+    siguiente rehashing, así que la migración siempre termina antes de necesitar otro.
+     */
+    private void avanzarMigracion() {
+        if (tablaAnterior == null) {
+            return;
+        }
+        int limite = Math.min(indiceMigracion + LISTAS_MIGRADAS_POR_OPERACION, tablaAnterior.size());
+        for (; indiceMigracion < limite; indiceMigracion++) {
+            migrarLista(tablaAnterior.get(indiceMigracion));
+        }
+        if (indiceMigracion >= tablaAnterior.size()) {
+            tablaAnterior = null; //Migración completa, se libera la tabla anterior
+            BusEventos.publicar(TipoEvento.REHASH_COMPLETADO, this, null, capacidad, contadorElementos);
+        }
+    }
+
+    private void migrarLista(ListaEnlazada<E> lista) {
+        try {
+            for (E elemento : lista) {
+                listaHash.get(principal(elemento)).insertLast(elemento);
+            }
+        } catch (MensajeException e) {
+            throw new IllegalStateException("Error durante rehashing: " + e.getMessage(), e);
+        }
+        lista.destroyList();
+    }
+
+    //Termina de inmediato un rehashing incremental en curso
+    public void finalizarRehashing() {
+        while (tablaAnterior != null) {
+            avanzarMigracion();
+        }
+    }
+
+    //Indica si hay un rehashing incremental en curso
+    public boolean estaRehashing() {
+        return tablaAnterior != null;
+    }
+
+    public boolean isRehashingIncremental() {
+        return rehashingIncremental;
     }
 
     //Método auxiliar para insertar sin verificar carga (usado en rehashing)
@@ -216,8 +287,27 @@ public class HashEncadenamiento<E> {
         return true;
     }
 
+    /*
+    Recorrido con streams: se divide por rangos de listas de la tabla.
+    Si hay un rehashing incremental en curso se completa antes, para recorrer una sola tabla.
+     */
+    public Spliterator<E> spliterator() {
+        finalizarRehashing();
+        return new SpliteratorHashEncadenamiento<E>(listaHash, contadorElementos);
+    }
+
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
     //Método para mostrar la tabla
     public void mostrarTabla() {
+        finalizarRehashing(); //Se muestra una sola tabla con todos los elementos
+
         System.out.println("Tabla Hash con Encadenamiento:");
         System.out.println("Capacidad: " + capacidad);
         System.out.println("Elementos: " + contadorElementos);
@@ -243,36 +333,57 @@ public class HashEncadenamiento<E> {
         return contadorElementos;
     }
 
-    //Método getter para el módulo
+    //Método getter para el módulo (con máscara de potencia de dos coincide con la capacidad)
     public int getModulo() {
-        return modulo;
+        return capacidad;
     }
 
-    //Método para buscar una clave y retornar el elemento si se encuentra
-    public E obtenerPorClave(E clave) throws MensajeException {
-        if (clave == null) return null;
-        int indice = principal(clave);
-        ListaEnlazada<E> listaTemporal = listaHash.get(indice);
-        //Recorrer la lista para encontrar el elemento que es 'equals' a la clave
-        for (int i = 0; i < listaTemporal.length(); i++) {
-            E elemento = listaTemporal.searchK(i);
-            if (elemento != null && elemento.equals(clave)) { //Usar equals para comparar el contenido
-                return elemento;
+    //Longitud promedio de las listas no vacías (cercana a 1 con una función hash uniforme)
+    public double longitudPromedioCadena() {
+        finalizarRehashing();
+        int listasOcupadas = 0;
+        for (ListaEnlazada<E> lista : listaHash) {
+            if (!lista.isEmpty()) {
+                listasOcupadas++;
             }
         }
-        return null; //No encontrado
+        return listasOcupadas == 0 ? 0 : (double) contadorElementos / listasOcupadas;
+    }
+
+    //Longitud de la lista más larga de la tabla
+    public int longitudMaximaCadena() {
+        finalizarRehashing();
+        int maxima = 0;
+        for (ListaEnlazada<E> lista : listaHash) {
+            maxima = Math.max(maxima, lista.length());
+        }
+        return maxima;
+    }
+
+    //Método para buscar una clave y retornar el elemento si se encuentra
+    public E obtenerPorClave(E clave) throws MensajeException {
+        return obtenerElemento(clave); //null si no se encuentra
     }
 
     //Método para obtener todos los elementos no nulos (necesario para mostrarProductosYStocks)
     public ArrayList<E> obtenerTodosLosElementos() throws MensajeException {
-        ArrayList<E> todos = new ArrayList<>();
-        for (ListaEnlazada<E> lista : listaHash) {
-            if (!lista.isEmpty()) {
-                for (int i = 0; i < lista.length(); i++) {
-                    todos.add(lista.searchK(i));
+        ArrayList<E> todos = new ArrayList<>(contadorElementos);
+        agregarElementos(listaHash, todos);
+        if (tablaAnterior != null) { //Listas de la tabla anterior aún sin migrar
+            for (int i = indiceMigracion; i < tablaAnterior.size(); i++) {
+                for (E elemento : tablaAnterior.get(i)) {
+                    todos.add(elemento);
                 }
             }
         }
         return todos;
     }
+
+    private void agregarElementos(ArrayList<ListaEnlazada<E>> tabla, ArrayList<E> destino) {
+        for (ListaEnlazada<E> lista : tabla) {
+            for (E elemento : lista) {
+                destino.add(elemento);
+            }
+        }
+    }
 }
@@ -1,47 +1,50 @@
 package Hash;
 
+import Eventos.BusEventos;
+import Eventos.TipoEvento;
+
 import java.util.ArrayList;
 
+/*
+Tabla hash con sondeo lineal y política Robin Hood.
+- Al insertar, si el elemento que se está ubicando ya recorrió más posiciones que el que ocupa
+  la casilla, le quita la casilla y se sigue ubicando al desplazado. Así las distancias a la
+  posición inicial se mantienen parejas y la búsqueda puede cortar antes.
+- Al eliminar se desplazan hacia atrás los elementos siguientes del grupo (sin lápidas), de modo
+  que las cadenas de sondeo nunca quedan cortadas y las búsquedas posteriores siguen siendo correctas.
+Los elementos y sus hashes se guardan en arreglos planos (Object[] e int[]).
+ */
 public class HashSondeoLineal<E> {
-    private ArrayList<E> listaHash; //Tabla hash con sondeo lineal
-    private int modulo; //Tamaño de la lista y modulo
+    private Object[] tabla; //Tabla hash con sondeo lineal
+    private int[] hashes; //Hash completo de cada casilla ocupada, evita recalcularlo al sondear
+    private int mascara; //capacidad - 1, reemplaza al módulo primo en la función hash y el sondeo
     private int contadorElementos;
-    private int capacidad;
+    private int capacidad; //Siempre potencia de dos
     private final double factorCargaMaximo = 0.75;
+    private final FuncionHash<E> funcionHash; //Estrategia para calcular el hash de cada clave
 
+    //Constructor con la función hash por defecto (MurmurHash3)
     public HashSondeoLineal(int capacidad){
-        this.capacidad = capacidad;
-        this.modulo = siguientePrimo(capacidad);
-        this.listaHash = new ArrayList<E>(capacidad);
-        this.contadorElementos = 0;
-
-        //Inicializar tabla con valores null
-        for (int i = 0; i < capacidad; i++)
-            this.listaHash.add(null);
+        this(capacidad, new FuncionHashMurmur<E>());
     }
 
-    //Método para encontrar el siguiente número primo mayor o igual a n
-    private int siguientePrimo(int numero) {
-        if (numero <= 1) return 2;
-
-        while (!esPrimo(numero)) {
-            numero++;
+    //Constructor que permite elegir la función hash
+    public HashSondeoLineal(int capacidad, FuncionHash<E> funcionHash){
+        if (funcionHash == null) {
+            throw new IllegalArgumentException("La función hash no puede ser null");
         }
-        return numero;
+        this.funcionHash = funcionHash;
+        this.capacidad = siguientePotenciaDeDos(capacidad);
+        this.mascara = this.capacidad - 1;
+        this.tabla = new Object[this.capacidad];
+        this.hashes = new int[this.capacidad];
+        this.contadorElementos = 0;
     }
 
-    //Método para verificar si un número es primo
-    private boolean esPrimo(int numero) {
-        if (numero <= 1) return false;
-        if (numero <= 3) return true;
-        if (numero % 2 == 0 || numero % 3 == 0) return false;
-
-        for (int i = 5; i * i <= numero; i += 6) {
-            if (numero % i == 0 || numero % (i + 2) == 0) {
-                return false;
-            }
-        }
-        return true;
+    //Método para encontrar la siguiente potencia de dos mayor o igual a n
+    private static int siguientePotenciaDeDos(int numero) {
+        if (numero <= 2) return 2;
+        return Integer.highestOneBit(numero - 1) << 1;
     }
 
     //Método para calcular el factor de carga actual
@@ -50,67 +53,27 @@ public class HashSondeoLineal<E> {
     }
 
     /***********************************************************************************
-     * MÉTODOS PARA HASHEAR SEGUN TIPO INTEGER O STRING
+     * FUNCIÓN HASH
      ***********************************************************************************/
 
-    //Método principal que calcula el índice según el tipo de clave
+    //Método principal que calcula el índice de la clave
+    //La función hash mezcla todos los bits, así que basta con enmascarar los bits bajos
     public int principal(E clave) {
-        int indice = 0;
-
-        if (clave instanceof Number) {
-            long numeroLong = ((Number) clave).longValue();
-            indice = metodoPliegue(numeroLong);
-        }
-        else if (clave instanceof String) {
-            indice = metodoSuma((String) clave);
-        }
-        else {
-            System.out.println("Tipo de clave no soportado");
-            return -1; //Valor de error
-        }
-
-        indice = Math.abs(indice) % modulo;
-        return ajustarIndice(indice);
+        return funcionHash.hash(clave) & mascara;
     }
 
-    //Método por Pliegue
-    public int metodoPliegue(long clave) {
-        String numeroCadena = String.valueOf(clave);
-        int suma = 0;
-
-        //Recorrer de dos en dos
-        for (int i = 0; i < numeroCadena.length(); i += 2) {
-            String par = "";
-
-            //Tomar el primer dígito
-            par += numeroCadena.charAt(i);
-
-            //Tomar el segundo dígito si existe
-            if (i + 1 < numeroCadena.length()) {
-                par += numeroCadena.charAt(i + 1);
-            }
-
-            //Sumar el par a la suma total
-            suma += Integer.parseInt(par);
-        }
-
-        return suma;
+    public FuncionHash<E> getFuncionHash() {
+        return funcionHash;
     }
 
-    public int metodoSuma(String clave) {
-        int suma = 0;
-        for (int i = 0; i < clave.length(); i++) {
-            suma += clave.charAt(i) * (i + 1);
-        }
-        return suma;
+    //Distancia entre la casilla y la posición inicial del elemento que la ocupa
+    private int distancia(int indice) {
+        return (indice - (hashes[indice] & mascara)) & mascara;
     }
 
-    //Método auxiliar para ajustar el índice al tamaño real de la tabla
-    private int ajustarIndice(int indice) {
-        if (indice >= capacidad){
-            return indice % capacidad;
-        }
-        return indice;
+    @SuppressWarnings("unchecked")
+    private E elementoEn(int indice) {
+        return (E) tabla[indice];
     }
 
     /***********************************************************************************
@@ -126,92 +89,109 @@ public class HashSondeoLineal<E> {
             rehashing();
         }
 
-        int indice = principal(clave);
-        if (indice == -1) return false; //Tipo no soportado
+        int hash = funcionHash.hash(clave);
+        int indice = hash & mascara;
+        int distanciaActual = 0;
 
-        //Sondeo lineal para encontrar posición libre
-        int indiceOriginal = indice;
-        while (listaHash.get(indice) != null) {
+        //Sondeo hasta encontrar la clave, una casilla vacía o un elemento más cercano a su inicio
+        while (tabla[indice] != null) {
             //Si el elemento ya existe, no lo insertamos
-            if (listaHash.get(indice).equals(clave)) {
+            if (hashes[indice] == hash && tabla[indice].equals(clave)) {
                 return false;
             }
-            indice = (indice + 1) % modulo;
-
-            //Si hemos dado una vuelta completa, la tabla está llena
-            if (indice == indiceOriginal) {
-                return false;
+            //Por la invariante Robin Hood, la clave tendría que haber aparecido antes de este punto
+            if (distancia(indice) < distanciaActual) {
+                break;
             }
+            indice = (indice + 1) & mascara;
+            distanciaActual++;
         }
 
-        // Insertar el elemento
-        listaHash.set(indice, clave);
+        ubicar(clave, hash, indice, distanciaActual);
         contadorElementos++;
         return true;
     }
 
-    //Método para buscar un elemento
-    public boolean buscar(E clave) {
-        if (clave == null) return false;
-
-        int indice = principal(clave);
-        if (indice == -1) return false;
-
-        int indiceOriginal = indice;
-        while (listaHash.get(indice) != null) {
-            if (listaHash.get(indice).equals(clave)) {
-                return true;
+    //Coloca el elemento desde la posición dada desplazando a los que están más cerca de su inicio
+    private void ubicar(Object elemento, int hash, int indice, int distanciaActual) {
+        while (tabla[indice] != null) {
+            int distanciaResidente = distancia(indice);
+            if (distanciaResidente < distanciaActual) {
+                //El residente está más cerca de su inicio: se intercambia y se sigue ubicando al desplazado
+                Object elementoDesplazado = tabla[indice];
+                int hashDesplazado = hashes[indice];
+                tabla[indice] = elemento;
+                hashes[indice] = hash;
+                elemento = elementoDesplazado;
+                hash = hashDesplazado;
+                distanciaActual = distanciaResidente;
             }
-            indice = (indice + 1) % modulo;
+            indice = (indice + 1) & mascara;
+            distanciaActual++;
+        }
+        tabla[indice] = elemento;
+        hashes[indice] = hash;
+    }
 
-            if (indice == indiceOriginal) {
-                break;
+    //Retorna la casilla que ocupa la clave o -1 si no está
+    private int buscarIndice(E clave) {
+        int hash = funcionHash.hash(clave);
+        int indice = hash & mascara;
+        int distanciaActual = 0;
+
+        while (tabla[indice] != null && distancia(indice) >= distanciaActual) {
+            if (hashes[indice] == hash && tabla[indice].equals(clave)) {
+                return indice;
             }
+            indice = (indice + 1) & mascara;
+            distanciaActual++;
         }
-        return false;
+        return -1;
     }
 
-    //Método para eliminar un elemento (versión simple)
-    public boolean eliminar(E clave) {
+    //Método para buscar un elemento
+    public boolean buscar(E clave) {
         if (clave == null) return false;
+        return buscarIndice(clave) != -1;
+    }
 
-        int indice = principal(clave);
-        if (indice == -1) return false;
-
-        //Buscar el elemento recorriendo toda la tabla si es necesario
-        for (int i = 0; i < modulo; i++) {
-            int indiceActual = (indice + i) % modulo;
-
-            if (listaHash.get(indiceActual) == null) {
-                //Llegamos a un espacio vacío, el elemento no existe
-                return false;
-            }
+    //Método para eliminar un elemento con desplazamiento hacia atrás (sin lápidas)
+    public boolean eliminar(E clave) {
+        if (clave == null) return false;
 
-            if (listaHash.get(indiceActual).equals(clave)) {
-                //Encontramos el elemento, lo eliminamos
-                listaHash.set(indiceActual, null);
-                contadorElementos--;
-                return true;
-            }
+        int indice = buscarIndice(clave);
+        if (indice == -1) {
+            return false; //No encontrado
         }
 
-        return false; //No encontrado después de recorrer toda la tabla
+        //Los elementos siguientes que no están en su posición inicial retroceden una casilla
+        int siguiente = (indice + 1) & mascara;
+        while (tabla[siguiente] != null && distancia(siguiente) > 0) {
+            tabla[indice] = tabla[siguiente];
+            hashes[indice] = hashes[siguiente];
+            indice = siguiente;
+            siguiente = (siguiente + 1) & mascara;
+        }
+        tabla[indice] = null;
+        hashes[indice] = 0;
+        contadorElementos--;
+        return true;
     }
 
     //Método para obtener elemento por índice
     public E obtenerPorIndice(int indice) {
-        if (indice < 0 || indice >= listaHash.size()) {
+        if (indice < 0 || indice >= capacidad) {
             return null;
         }
-        return listaHash.get(indice);
+        return elementoEn(indice);
     }
 
     //Método para obtener todos los elementos no nulos
     public ArrayList<E> obtenerTodosLosElementos() {
-        ArrayList<E> elementos = new ArrayList<>();
-        for (E elemento : listaHash) {
-            if (elemento != null) {
-                elementos.add(elemento);
+        ArrayList<E> elementos = new ArrayList<>(contadorElementos);
+        for (int i = 0; i < capacidad; i++) {
+            if (tabla[i] != null) {
+                elementos.add(elementoEn(i));
             }
         }
         return elementos;
@@ -219,62 +199,26 @@ public class HashSondeoLineal<E> {
 
     //Método para redimensionar la tabla (rehashing)
     private void rehashing() {
-        System.out.println("Rehashing... Factor de carga: " + factorCarga());
+        BusEventos.publicar(TipoEvento.REHASH_INICIADO, this, null, capacidad, contadorElementos);
 
         //Guardar la tabla actual
-        ArrayList<E> tablaAnterior = new ArrayList<>(listaHash);
-
-        //Duplicar la capacidad y encontrar el siguiente primo
-        int nuevaCapacidad = capacidad * 2;
-        int nuevoModulo = siguientePrimo(nuevaCapacidad);
-
-        //Crear nueva tabla
-        this.capacidad = nuevaCapacidad;
-        this.modulo = nuevoModulo;
-        this.listaHash = new ArrayList<E>(capacidad);
-        this.contadorElementos = 0;
-
-        //Inicializar nueva tabla con null
-        for (int i = 0; i < capacidad; i++) {
-            this.listaHash.add(null);
-        }
-
-        //Reinsertar todos los elementos de la tabla anterior
-        for (E elemento : tablaAnterior) {
-            if (elemento != null) {
-                insertarSinVerificarCarga(elemento);
-            }
-        }
-
-        System.out.println("Rehashing completado. Nueva capacidad: " + capacidad);
-    }
-
-    //Método auxiliar para insertar sin verificar carga (usado en rehashing)
-    private boolean insertarSinVerificarCarga(E clave) {
-        if (clave == null) return false;
-
-        int indice = principal(clave);
-        if (indice == -1) return false;
-
-        //Sondeo lineal para encontrar posición libre
-        int indiceOriginal = indice;
-        while (listaHash.get(indice) != null) {
-            //Si el elemento ya existe, no lo insertamos
-            if (listaHash.get(indice).equals(clave)) {
-                return false;
-            }
-            indice = (indice + 1) % modulo;
-
-            //Si hemos dado una vuelta completa, la tabla está llena
-            if (indice == indiceOriginal) {
-                return false;
+        Object[] tablaAnterior = tabla;
+        int[] hashesAnteriores = hashes;
+
+        //Duplicar la capacidad (sigue siendo potencia de dos)
+        this.capacidad = capacidad * 2;
+        this.mascara = capacidad - 1;
+        this.tabla = new Object[capacidad];
+        this.hashes = new int[capacidad];
+
+        //Reinsertar todos los elementos reutilizando el hash guardado
+        for (int i = 0; i < tablaAnterior.length; i++) {
+            if (tablaAnterior[i] != null) {
+                ubicar(tablaAnterior[i], hashesAnteriores[i], hashesAnteriores[i] & mascara, 0);
             }
         }
 
-        // Insertar el elemento
-        listaHash.set(indice, clave);
-        contadorElementos++;
-        return true;
+        BusEventos.publicar(TipoEvento.REHASH_COMPLETADO, this, null, capacidad, contadorElementos);
     }
 
     //Método para mostrar la tabla
@@ -284,8 +228,8 @@ public class HashSondeoLineal<E> {
         System.out.println("Elementos: " + contadorElementos);
         System.out.println("Factor de carga: " + String.format("%.2f", factorCarga()));
         System.out.println("------------------------");
-        for (int i = 0; i < listaHash.size(); i++) {
-            System.out.println("Índice " + i + ": " + listaHash.get(i));
+        for (int i = 0; i < capacidad; i++) {
+            System.out.println("Índice " + i + ": " + tabla[i]);
         }
     }
 
@@ -298,8 +242,32 @@ public class HashSondeoLineal<E> {
         return contadorElementos;
     }
 
-    //Método getter para el módulo
+    //Método getter para el módulo (con máscara de potencia de dos coincide con la capacidad)
     public int getModulo() {
-        return modulo;
+        return capacidad;
+    }
+
+    //Promedio de posiciones recorridas para encontrar cada elemento almacenado
+    //(1 significa que todos están en su posición inicial)
+    public double sondeoPromedio() {
+        if (contadorElementos == 0) return 0;
+        long total = 0;
+        for (int i = 0; i < capacidad; i++) {
+            if (tabla[i] != null) {
+                total += distancia(i) + 1;
+            }
+        }
+        return (double) total / contadorElementos;
+    }
+
+    //Mayor cantidad de posiciones que hay que recorrer para encontrar un elemento
+    public int sondeoMaximo() {
+        int maximo = 0;
+        for (int i = 0; i < capacidad; i++) {
+            if (tabla[i] != null) {
+                maximo = Math.max(maximo, distancia(i) + 1);
+            }
+        }
+        return maximo;
     }
 }
@@ -0,0 +1,87 @@
+package Hash;
+
+import LinkedList.ListaEnlazada;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/*
+Spliterator de la tabla con encadenamiento que se divide por rangos de listas [desde, hasta).
+Cada lista se recorre con su propio iterador; dividir solo parte el rango a la mitad.
+ */
+class SpliteratorHashEncadenamiento<E> implements Spliterator<E> {
+    private final ArrayList<ListaEnlazada<E>> tabla;
+    private int desde; //Próxima lista por recorrer
+    private final int hasta;
+    private Iterator<E> listaActual;
+    private long tamanioEstimado;
+    private final boolean exacto; //true solo mientras no se haya dividido
+
+    SpliteratorHashEncadenamiento(ArrayList<ListaEnlazada<E>> tabla, int cantidadElementos) {
+        this(tabla, 0, tabla.size(), cantidadElementos, true);
+    }
+
+    private SpliteratorHashEncadenamiento(ArrayList<ListaEnlazada<E>> tabla, int desde, int hasta,
+                                          long tamanioEstimado, boolean exacto) {
+        this.tabla = tabla;
+        this.desde = desde;
+        this.hasta = hasta;
+        this.tamanioEstimado = tamanioEstimado;
+        this.exacto = exacto;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super E> accion) {
+        if (accion == null) {
+            throw new NullPointerException();
+        }
+        while (listaActual == null || !listaActual.hasNext()) {
+            if (desde >= hasta) {
+                return false;
+            }
+            listaActual = tabla.get(desde++).iterator();
+        }
+        accion.accept(listaActual.next());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super E> accion) {
+        if (accion == null) {
+            throw new NullPointerException();
+        }
+        if (listaActual != null) {
+            listaActual.forEachRemaining(accion);
+            listaActual = null;
+        }
+        for (; desde < hasta; desde++) {
+            for (E elemento : tabla.get(desde)) {
+                accion.accept(elemento);
+            }
+        }
+    }
+
+    @Override
+    public Spliterator<E> trySplit() {
+        int medio = (desde + hasta) >>> 1;
+        if (listaActual != null || medio <= desde) {
+            return null; //No se divide con una lista a medio recorrer, ni un rango de una sola lista
+        }
+        SpliteratorHashEncadenamiento<E> primeraParte =
+                new SpliteratorHashEncadenamiento<>(tabla, desde, medio, tamanioEstimado / 2, false);
+        desde = medio;
+        tamanioEstimado -= tamanioEstimado / 2;
+        return primeraParte;
+    }
+
+    @Override
+    public long estimateSize() {
+        return tamanioEstimado;
+    }
+
+    @Override
+    public int characteristics() {
+        return exacto ? NONNULL | SIZED : NONNULL;
+    }
+}
@@ -0,0 +1,349 @@
+package Inventario;
+
+import Hash.FuncionHashMurmur;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/*
+Almacén de productos en arreglos paralelos (slab).
+- Cada producto recibe un handle entero estable que indexa los arreglos de código, nombre,
+  id de categoría y precio. El stock no se guarda aquí: vive en la matriz de stocks, en la
+  fila igual al handle, y así las operaciones atómicas siguen trabajando sobre un int[].
+- Un único índice de direccionamiento abierto resuelve código -> handle. Guarda solo el handle
+  y el hash de cada casilla (int[]), sin nodos ni objetos de mapeo por producto.
+- Los árboles de las categorías guardan handles ordenados por código con ordenPorCodigo().
+Los handles los entrega un AsignadorFilas: un handle eliminado se reutiliza en la próxima alta.
+Con crecer() el almacén amplía su capacidad sin reconstruir el índice.
+Al cargar una instantánea los nombres pueden quedar diferidos: solo se guarda su posición en el
+archivo mapeado y el String se arma la primera vez que se pide.
+ */
+class AlmacenProductos {
+    static final int SIN_HANDLE = -1;
+    static final int SIN_UMBRAL = -1;
+    private static final double FACTOR_CARGA_MAXIMO = 0.6;
+    private static final int CAPACIDAD_MINIMA = 16;
+
+    //Datos por handle
+    private String[] codigos; //null = handle libre
+    private String[] nombres;
+    private int[] categorias; //Id denso de la categoría (DirectorioCategorias)
+    private double[] precios;
+    private int[] umbrales; //Umbral de reposición (SIN_UMBRAL = no se vigila)
+    private final AsignadorFilas asignador;
+
+    //Nombres diferidos: posición del nombre en la instantánea (-1 = nombre en 'nombres').
+    //Ambos son null mientras no se cargue ninguna instantánea.
+    private InstantaneaInventario.ArchivoMapeado nombresDiferidos;
+    private long[] posicionesNombre;
+
+    //Captura activa para una instantánea en segundo plano (null = ninguna)
+    private volatile CapturaAlmacen captura;
+
+    //Índice código -> handle: handle de cada casilla (SIN_HANDLE si está vacía) y su hash
+    private int[] handlesPorCasilla;
+    private int[] hashesPorCasilla;
+    private int mascara;
+    private int limiteRedimension;
+
+    //Orden de los handles por código: sin distinguir mayúsculas y, a igualdad, exacto
+    private final Comparator<Integer> ordenPorCodigo = (a, b) -> compararCodigos(getCodigo(a), getCodigo(b));
+
+    AlmacenProductos(int capacidad) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad del almacén debe ser positiva");
+        }
+        this.codigos = new String[capacidad];
+        this.nombres = new String[capacidad];
+        this.categorias = new int[capacidad];
+        this.precios = new double[capacidad];
+        this.umbrales = new int[capacidad];
+        Arrays.fill(this.umbrales, SIN_UMBRAL);
+        this.asignador = new AsignadorFilas(capacidad);
+
+        int casillas = CAPACIDAD_MINIMA;
+        while (casillas * FACTOR_CARGA_MAXIMO < capacidad) {
+            casillas <<= 1;
+        }
+        inicializarIndice(casillas);
+    }
+
+    private void inicializarIndice(int casillas) {
+        this.handlesPorCasilla = new int[casillas];
+        Arrays.fill(this.handlesPorCasilla, SIN_HANDLE);
+        this.hashesPorCasilla = new int[casillas];
+        this.mascara = casillas - 1;
+        this.limiteRedimension = (int) (casillas * FACTOR_CARGA_MAXIMO);
+    }
+
+    static int compararCodigos(String a, String b) {
+        int comparacion = a.compareToIgnoreCase(b);
+        return comparacion != 0 ? comparacion : a.compareTo(b);
+    }
+
+    //El hash del String queda en caché: basta con mezclar sus bits
+    private static int hashCodigo(String codigo) {
+        return FuncionHashMurmur.mezclar32(codigo.hashCode());
+    }
+
+    /* ******************************************************************
+     * CONSULTAS
+     ****************************************************************** */
+
+    //Handle del producto con ese código o SIN_HANDLE
+    int buscar(String codigo) {
+        if (codigo == null) {
+            return SIN_HANDLE;
+        }
+        int casilla = buscarCasilla(codigo, hashCodigo(codigo));
+        return casilla == SIN_HANDLE ? SIN_HANDLE : handlesPorCasilla[casilla];
+    }
+
+    private int buscarCasilla(String codigo, int hash) {
+        int casilla = hash & mascara;
+        while (handlesPorCasilla[casilla] != SIN_HANDLE) {
+            if (hashesPorCasilla[casilla] == hash && codigos[handlesPorCasilla[casilla]].equals(codigo)) {
+                return casilla;
+            }
+            casilla = (casilla + 1) & mascara;
+        }
+        return SIN_HANDLE;
+    }
+
+    boolean estaOcupado(int handle) {
+        return asignador.estaOcupada(handle);
+    }
+
+    String getCodigo(int handle) {
+        return codigos[handle];
+    }
+
+    String getNombre(int handle) {
+        String nombre = nombres[handle];
+        if (nombre == null && posicionesNombre != null && posicionesNombre[handle] >= 0) {
+            //Se guarda para las próximas lecturas; si dos hilos lo arman a la vez, ambos obtienen el mismo texto
+            nombre = nombresDiferidos.leerTextoDiferido(posicionesNombre[handle]);
+            nombres[handle] = nombre;
+        }
+        return nombre;
+    }
+
+    //Como getNombre pero sin guardar el nombre diferido: para lecturas optimistas sin bloqueo, donde
+    //el handle puede liberarse y reutilizarse mientras se lee y guardarlo pisaría el nombre del nuevo producto
+    String leerNombre(int handle) {
+        String nombre = nombres[handle];
+        long posicion = posicionesNombre == null ? -1 : posicionesNombre[handle];
+        if (nombre == null && posicion >= 0) {
+            nombre = nombresDiferidos.leerTextoDiferido(posicion);
+        }
+        return nombre;
+    }
+
+    int getIdCategoria(int handle) {
+        return categorias[handle];
+    }
+
+    double getPrecio(int handle) {
+        return precios[handle];
+    }
+
+    int getUmbral(int handle) {
+        return umbrales[handle];
+    }
+
+    void setUmbral(int handle, int umbral) {
+        antesDeModificar(handle);
+        umbrales[handle] = umbral;
+    }
+
+    //Cambia el precio; si el producto está en el índice de precios hay que quitarlo antes
+    void setPrecio(int handle, double precio) {
+        antesDeModificar(handle);
+        precios[handle] = precio;
+    }
+
+    Comparator<Integer> ordenPorCodigo() {
+        return ordenPorCodigo;
+    }
+
+    int cantidad() {
+        return asignador.getEnUso();
+    }
+
+    int capacidad() {
+        return asignador.getCapacidad();
+    }
+
+    //Límite superior (exclusivo) de los handles asignados, para recorrer el almacén
+    int limiteHandles() {
+        return asignador.getLimite();
+    }
+
+    boolean estaLleno() {
+        return asignador.estaLleno();
+    }
+
+    //Amplía la capacidad copiando los arreglos de datos. Los handles se conservan, así que el índice
+    //solo se redimensiona si la nueva capacidad superaría su carga máxima (reutilizando los hashes)
+    void crecer(int nuevaCapacidad) {
+        if (nuevaCapacidad <= capacidad()) {
+            return;
+        }
+        codigos = Arrays.copyOf(codigos, nuevaCapacidad);
+        nombres = Arrays.copyOf(nombres, nuevaCapacidad);
+        categorias = Arrays.copyOf(categorias, nuevaCapacidad);
+        precios = Arrays.copyOf(precios, nuevaCapacidad);
+        int capacidadUmbrales = umbrales.length;
+        umbrales = Arrays.copyOf(umbrales, nuevaCapacidad);
+        Arrays.fill(umbrales, capacidadUmbrales, nuevaCapacidad, SIN_UMBRAL);
+        if (posicionesNombre != null) {
+            int capacidadAnterior = posicionesNombre.length;
+            posicionesNombre = Arrays.copyOf(posicionesNombre, nuevaCapacidad);
+            Arrays.fill(posicionesNombre, capacidadAnterior, nuevaCapacidad, -1L);
+        }
+        asignador.crecer(nuevaCapacidad);
+
+        int casillas = handlesPorCasilla.length;
+        while (casillas * FACTOR_CARGA_MAXIMO < nuevaCapacidad) {
+            casillas <<= 1;
+        }
+        if (casillas > handlesPorCasilla.length) {
+            redimensionarIndice(casillas);
+        }
+    }
+
+    /* ******************************************************************
+     * CAPTURA (instantáneas en segundo plano)
+     ****************************************************************** */
+
+    //Imagen consistente de los datos actuales; las altas y bajas posteriores la conservan por tramos
+    CapturaAlmacen capturar() {
+        if (captura != null) {
+            throw new IllegalStateException("El almacén ya tiene una captura activa");
+        }
+        CapturaAlmacen nueva = new CapturaAlmacen(this, codigos, nombres, categorias, precios, umbrales, posicionesNombre,
+                nombresDiferidos, asignador.copiarOcupadas(), limiteHandles());
+        captura = nueva;
+        return nueva;
+    }
+
+    void terminarCaptura(CapturaAlmacen terminada) {
+        if (captura == terminada) {
+            captura = null;
+        }
+    }
+
+    private void antesDeModificar(int handle) {
+        CapturaAlmacen activa = captura;
+        if (activa != null) {
+            activa.antesDeModificar(handle);
+        }
+    }
+
+    /* ******************************************************************
+     * ALTAS Y BAJAS
+     ****************************************************************** */
+
+    //Registra el producto y retorna su handle, o SIN_HANDLE si el código ya existe o no hay espacio
+    int agregar(String codigo, String nombre, int idCategoria, double precio) {
+        if (codigo == null || estaLleno()) {
+            return SIN_HANDLE;
+        }
+        int hash = hashCodigo(codigo);
+        if (buscarCasilla(codigo, hash) != SIN_HANDLE) {
+            return SIN_HANDLE;
+        }
+
+        int handle = asignador.asignar();
+        antesDeModificar(handle);
+        codigos[handle] = codigo;
+        nombres[handle] = nombre;
+        categorias[handle] = idCategoria;
+        precios[handle] = precio;
+        umbrales[handle] = SIN_UMBRAL;
+
+        if (posicionesNombre != null) {
+            posicionesNombre[handle] = -1; //El handle pudo ser de un producto con nombre diferido
+        }
+
+        ubicar(handle, hash);
+        if (cantidad() > limiteRedimension) {
+            redimensionarIndice(handlesPorCasilla.length << 1);
+        }
+        return handle;
+    }
+
+    //Como agregar, pero el nombre se leerá de la instantánea mapeada cuando se pida
+    int agregarConNombreDiferido(String codigo, InstantaneaInventario.ArchivoMapeado archivo, long posicionNombre,
+                                 int idCategoria, double precio) {
+        if (nombresDiferidos != archivo) {
+            if (nombresDiferidos != null) {
+                throw new IllegalStateException("El almacén ya tiene nombres diferidos de otra instantánea");
+            }
+            nombresDiferidos = archivo;
+            posicionesNombre = new long[capacidad()];
+            Arrays.fill(posicionesNombre, -1L);
+        }
+        int handle = agregar(codigo, null, idCategoria, precio);
+        if (handle != SIN_HANDLE) {
+            posicionesNombre[handle] = posicionNombre;
+        }
+        return handle;
+    }
+
+    //Quita el producto del índice y libera su handle
+    boolean eliminar(int handle) {
+        if (!estaOcupado(handle)) {
+            return false;
+        }
+        antesDeModificar(handle);
+        int casilla = buscarCasilla(codigos[handle], hashCodigo(codigos[handle]));
+        vaciarCasilla(casilla);
+        codigos[handle] = null;
+        nombres[handle] = null;
+        if (posicionesNombre != null) {
+            posicionesNombre[handle] = -1;
+        }
+        categorias[handle] = 0;
+        precios[handle] = 0;
+        umbrales[handle] = SIN_UMBRAL;
+        asignador.liberar(handle);
+        return true;
+    }
+
+    private void ubicar(int handle, int hash) {
+        int casilla = hash & mascara;
+        while (handlesPorCasilla[casilla] != SIN_HANDLE) {
+            casilla = (casilla + 1) & mascara;
+        }
+        handlesPorCasilla[casilla] = handle;
+        hashesPorCasilla[casilla] = hash;
+    }
+
+    //Borra la casilla desplazando hacia atrás el resto del grupo (sin lápidas)
+    private void vaciarCasilla(int hueco) {
+        int siguiente = (hueco + 1) & mascara;
+        while (handlesPorCasilla[siguiente] != SIN_HANDLE) {
+            int ideal = hashesPorCasilla[siguiente] & mascara;
+            if (((siguiente - ideal) & mascara) >= ((siguiente - hueco) & mascara)) {
+                handlesPorCasilla[hueco] = handlesPorCasilla[siguiente];
+                hashesPorCasilla[hueco] = hashesPorCasilla[siguiente];
+                hueco = siguiente;
+            }
+            siguiente = (siguiente + 1) & mascara;
+        }
+        handlesPorCasilla[hueco] = SIN_HANDLE;
+        hashesPorCasilla[hueco] = 0;
+    }
+
+    //Reconstruye el índice reutilizando los hashes guardados, sin volver a leer los códigos
+    private void redimensionarIndice(int nuevasCasillas) {
+        int[] handlesAnteriores = handlesPorCasilla;
+        int[] hashesAnteriores = hashesPorCasilla;
+        inicializarIndice(nuevasCasillas);
+        for (int i = 0; i < handlesAnteriores.length; i++) {
+            if (handlesAnteriores[i] != SIN_HANDLE) {
+                ubicar(handlesAnteriores[i], hashesAnteriores[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package Inventario;
+
+import java.util.Arrays;
+
+/*
+Asignador de filas (handles) sobre un mapa de bits: el bit i indica si la fila i está en uso.
+- asignar() entrega siempre la fila libre más baja, así las filas liberadas se reutilizan
+  antes de usar filas nuevas y el rango ocupado se mantiene compacto.
+- La búsqueda empieza en la primera palabra que puede tener una fila libre y salta de a
+  64 filas con Long.numberOfTrailingZeros sobre la palabra invertida.
+- crecer() amplía la capacidad; solo se copia el mapa de bits (1 bit por fila).
+ */
+class AsignadorFilas {
+    static final int SIN_FILA = -1;
+
+    private long[] ocupadas;
+    private int capacidad;
+    private int enUso;
+    private int primeraPalabraLibre; //Ninguna palabra anterior tiene filas libres
+    private int limite; //Fila más alta asignada alguna vez + 1
+
+    AsignadorFilas(int capacidad) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva");
+        }
+        this.capacidad = capacidad;
+        this.ocupadas = new long[(capacidad + 63) >>> 6];
+    }
+
+    //Fila libre más baja, o SIN_FILA si todas están en uso
+    int asignar() {
+        for (int palabra = primeraPalabraLibre; palabra < ocupadas.length; palabra++) {
+            long libres = ~ocupadas[palabra];
+            if (libres != 0) {
+                int fila = (palabra << 6) + Long.numberOfTrailingZeros(libres);
+                if (fila >= capacidad) {
+                    break; //Bits de relleno de la última palabra
+                }
+                ocupadas[palabra] |= 1L << fila;
+                enUso++;
+                primeraPalabraLibre = palabra;
+                limite = Math.max(limite, fila + 1);
+                return fila;
+            }
+        }
+        primeraPalabraLibre = ocupadas.length;
+        return SIN_FILA;
+    }
+
+    //Marca la fila como libre para que asignar() la reutilice
+    boolean liberar(int fila) {
+        if (!estaOcupada(fila)) {
+            return false;
+        }
+        ocupadas[fila >>> 6] &= ~(1L << fila);
+        enUso--;
+        primeraPalabraLibre = Math.min(primeraPalabraLibre, fila >>> 6);
+        return true;
+    }
+
+    boolean estaOcupada(int fila) {
+        return fila >= 0 && fila < capacidad && (ocupadas[fila >>> 6] & (1L << fila)) != 0;
+    }
+
+    void crecer(int nuevaCapacidad) {
+        if (nuevaCapacidad <= capacidad) {
+            return;
+        }
+        int palabrasAnteriores = ocupadas.length;
+        ocupadas = Arrays.copyOf(ocupadas, (nuevaCapacidad + 63) >>> 6);
+        capacidad = nuevaCapacidad;
+        //La última palabra anterior pudo quedar llena solo por el límite de capacidad
+        primeraPalabraLibre = Math.min(primeraPalabraLibre, palabrasAnteriores - 1);
+    }
+
+    int getCapacidad() {
+        return capacidad;
+    }
+
+    int getEnUso() {
+        return enUso;
+    }
+
+    boolean estaLleno() {
+        return enUso == capacidad;
+    }
+
+    int getLimite() {
+        return limite;
+    }
+
+    //Copia del mapa de bits (bit i = fila i en uso)
+    long[] copiarOcupadas() {
+        return ocupadas.clone();
+    }
+}
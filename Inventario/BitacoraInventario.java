@@ -0,0 +1,496 @@
+package Inventario;
+
+import Eventos.BusEventos;
+import Eventos.TipoEvento;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/*
+Bitácora de escritura anticipada (write-ahead log) del inventario.
+- Cada operación que modifica el inventario se agrega al final del archivo como un registro:
+  [longitud int][CRC32C int][tipo byte][datos]. Los textos van como longitud int (-1 = null)
+  más sus bytes UTF-8.
+- Confirmación en grupo: los registros se acumulan en un buffer en memoria y un único hilo
+  escritor los baja al archivo con FileChannel.write + force. El escritor espera hasta
+  'esperaGrupo' (o hasta juntar TAMANIO_GRUPO bytes) antes de cada force, así un solo fsync
+  confirma los registros de todos los hilos que llegaron en esa ventana. Mientras escribe un
+  grupo, los registros nuevos van al otro buffer.
+- Cada registro tiene una posición (el byte del archivo donde termina). esperarDurable(posicion)
+  bloquea al llamador hasta que el archivo está sincronizado al menos hasta esa posición.
+- reproducir() lee el archivo desde el principio (o desde la posición guardada en una
+  instantánea) y entrega cada registro válido. Un registro
+  incompleto o con CRC incorrecto al final (escritura interrumpida por una caída) se descarta
+  y el archivo se trunca en el último registro válido.
+El stock se registra siempre como diferencias (STOCK_SUMADO): sumar es conmutativo, así que el
+orden en que los hilos agregan sus registros no cambia el stock que se obtiene al reproducir.
+ */
+class BitacoraInventario implements AutoCloseable {
+    static final byte CATEGORIA_AGREGADA = 1;
+    static final byte CATEGORIA_ELIMINADA = 2;
+    static final byte PRODUCTO_AGREGADO = 3;
+    static final byte PRODUCTO_ELIMINADO = 4;
+    static final byte STOCK_SUMADO = 5;
+    static final byte PRECIO_ACTUALIZADO = 6;
+    static final byte UMBRAL_ESTABLECIDO = 7;
+
+    private static final int TAMANIO_CABECERA = 8; //Longitud y CRC
+    private static final int TAMANIO_REGISTRO_MAXIMO = 1 << 24;
+    private static final int TAMANIO_GRUPO = 256 * 1024; //Al juntar estos bytes se escribe sin esperar más
+    private static final int TAMANIO_BUFFER_INICIAL = 64 * 1024;
+
+    //Recibe los registros durante reproducir()
+    interface Reproductor {
+        void categoriaAgregada(String nombre);
+
+        void categoriaEliminada(String nombre);
+
+        void productoAgregado(String codigo, String nombre, String categoria, double precio, int stock);
+
+        void productoEliminado(String codigo);
+
+        void stockSumado(String codigo, int delta);
+
+        void precioActualizado(String codigo, double precio);
+
+        void umbralEstablecido(String codigo, int umbral);
+    }
+
+    private final Path archivo;
+    private final FileChannel canal;
+    private final long esperaGrupoNanos;
+
+    private final ReentrantLock bloqueo = new ReentrantLock();
+    private final Condition hayPendientes = bloqueo.newCondition();
+    private final Condition grupoLleno = bloqueo.newCondition();
+    private final Condition hayDurables = bloqueo.newCondition();
+    private ByteBuffer pendientes = ByteBuffer.allocate(TAMANIO_BUFFER_INICIAL); //Registros aún no escritos
+    private ByteBuffer reserva = ByteBuffer.allocate(TAMANIO_BUFFER_INICIAL); //Buffer libre para el próximo grupo
+    private long posicionAgregada; //Fin del último registro agregado
+    private long posicionDurable; //Fin del último registro sincronizado en disco
+    private boolean cerrando;
+    private IOException falla;
+    private Thread escritor;
+
+    //Buffer por hilo donde se arma el registro antes de tomar el bloqueo
+    private static final ThreadLocal<ByteBuffer> BUFFER_REGISTRO =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(256));
+    private static final ThreadLocal<CRC32C> CRC = ThreadLocal.withInitial(CRC32C::new);
+
+    BitacoraInventario(Path archivo, long esperaGrupo, TimeUnit unidad) throws IOException {
+        if (esperaGrupo < 0) {
+            throw new IllegalArgumentException("La espera de grupo no puede ser negativa: " + esperaGrupo);
+        }
+        this.archivo = archivo;
+        this.esperaGrupoNanos = unidad.toNanos(esperaGrupo);
+        this.canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    Path getArchivo() {
+        return archivo;
+    }
+
+    /* ******************************************************************
+     * RECUPERACIÓN
+     ****************************************************************** */
+
+    /*
+    Entrega al reproductor cada registro válido del archivo a partir de 'desde' (el inicio de un
+    registro, p. ej. la posición guardada en una instantánea), en orden, y deja la bitácora lista
+    para agregar registros al final. Debe llamarse una sola vez, antes de registrar operaciones.
+    Retorna la cantidad de registros reproducidos.
+     */
+    int reproducir(Reproductor reproductor, long desde) throws IOException {
+        long tamanio = canal.size();
+        if (desde < 0 || desde > tamanio) {
+            throw new IOException("La bitácora '" + archivo + "' (" + tamanio + " bytes) no llega a la posición " + desde);
+        }
+        ByteBuffer lectura = ByteBuffer.allocate(TAMANIO_BUFFER_INICIAL);
+        ByteBuffer cabecera = ByteBuffer.allocate(TAMANIO_CABECERA);
+        CRC32C crc = new CRC32C();
+        long posicion = desde;
+        int reproducidos = 0;
+
+        while (posicion + TAMANIO_CABECERA <= tamanio) {
+            cabecera.clear();
+            leerCompleto(cabecera, posicion);
+            int longitud = cabecera.getInt(0);
+            int crcEsperado = cabecera.getInt(4);
+            if (longitud <= 0 || longitud > TAMANIO_REGISTRO_MAXIMO || posicion + TAMANIO_CABECERA + longitud > tamanio) {
+                break;
+            }
+            if (lectura.capacity() < longitud) {
+                lectura = ByteBuffer.allocate(Math.max(longitud, lectura.capacity() * 2));
+            }
+            lectura.clear().limit(longitud);
+            leerCompleto(lectura, posicion + TAMANIO_CABECERA);
+            lectura.flip();
+            crc.reset();
+            crc.update(lectura.duplicate());
+            if ((int) crc.getValue() != crcEsperado) {
+                break;
+            }
+            aplicar(lectura, reproductor);
+            posicion += TAMANIO_CABECERA + longitud;
+            reproducidos++;
+        }
+
+        if (posicion < tamanio) {
+            BusEventos.publicar(TipoEvento.BITACORA_TRUNCADA, archivo, tamanio - posicion);
+            canal.truncate(posicion);
+            canal.force(true);
+        }
+        canal.position(posicion);
+        posicionAgregada = posicion;
+        posicionDurable = posicion;
+        iniciarEscritor();
+        return reproducidos;
+    }
+
+    private void leerCompleto(ByteBuffer destino, long posicion) throws IOException {
+        while (destino.hasRemaining()) {
+            int leidos = canal.read(destino, posicion);
+            if (leidos < 0) {
+                throw new IOException("Fin inesperado de la bitácora en la posición " + posicion);
+            }
+            posicion += leidos;
+        }
+    }
+
+    private static void aplicar(ByteBuffer registro, Reproductor reproductor) throws IOException {
+        byte tipo = registro.get();
+        switch (tipo) {
+            case CATEGORIA_AGREGADA:
+                reproductor.categoriaAgregada(leerTexto(registro));
+                break;
+            case CATEGORIA_ELIMINADA:
+                reproductor.categoriaEliminada(leerTexto(registro));
+                break;
+            case PRODUCTO_AGREGADO:
+                reproductor.productoAgregado(leerTexto(registro), leerTexto(registro), leerTexto(registro),
+                        registro.getDouble(), registro.getInt());
+                break;
+            case PRODUCTO_ELIMINADO:
+                reproductor.productoEliminado(leerTexto(registro));
+                break;
+            case STOCK_SUMADO:
+                reproductor.stockSumado(leerTexto(registro), registro.getInt());
+                break;
+            case PRECIO_ACTUALIZADO:
+                reproductor.precioActualizado(leerTexto(registro), registro.getDouble());
+                break;
+            case UMBRAL_ESTABLECIDO:
+                reproductor.umbralEstablecido(leerTexto(registro), registro.getInt());
+                break;
+            default:
+                throw new IOException("Tipo de registro desconocido en la bitácora: " + tipo);
+        }
+    }
+
+    private static String leerTexto(ByteBuffer registro) {
+        int longitud = registro.getInt();
+        if (longitud < 0) {
+            return null;
+        }
+        String texto = new String(registro.array(), registro.arrayOffset() + registro.position(), longitud, StandardCharsets.UTF_8);
+        registro.position(registro.position() + longitud);
+        return texto;
+    }
+
+    /* ******************************************************************
+     * REGISTRO DE OPERACIONES
+     * Cada método retorna la posición que hay que pasar a esperarDurable().
+     ****************************************************************** */
+
+    long registrarCategoriaAgregada(String nombre) {
+        ByteBuffer registro = iniciarRegistro(CATEGORIA_AGREGADA);
+        registro = escribirTexto(registro, nombre);
+        return agregar(registro);
+    }
+
+    long registrarCategoriaEliminada(String nombre) {
+        ByteBuffer registro = iniciarRegistro(CATEGORIA_ELIMINADA);
+        registro = escribirTexto(registro, nombre);
+        return agregar(registro);
+    }
+
+    long registrarProductoAgregado(String codigo, String nombre, String categoria, double precio, int stock) {
+        ByteBuffer registro = iniciarRegistro(PRODUCTO_AGREGADO);
+        registro = escribirTexto(registro, codigo);
+        registro = escribirTexto(registro, nombre);
+        registro = escribirTexto(registro, categoria);
+        registro = asegurarEspacio(registro, 12);
+        registro.putDouble(precio).putInt(stock);
+        return agregar(registro);
+    }
+
+    long registrarProductoEliminado(String codigo) {
+        ByteBuffer registro = iniciarRegistro(PRODUCTO_ELIMINADO);
+        registro = escribirTexto(registro, codigo);
+        return agregar(registro);
+    }
+
+    long registrarStockSumado(String codigo, int delta) {
+        ByteBuffer registro = iniciarRegistro(STOCK_SUMADO);
+        registro = escribirTexto(registro, codigo);
+        registro = asegurarEspacio(registro, 4);
+        registro.putInt(delta);
+        return agregar(registro);
+    }
+
+    long registrarPrecioActualizado(String codigo, double precio) {
+        ByteBuffer registro = iniciarRegistro(PRECIO_ACTUALIZADO);
+        registro = escribirTexto(registro, codigo);
+        registro = asegurarEspacio(registro, 8);
+        registro.putDouble(precio);
+        return agregar(registro);
+    }
+
+    long registrarUmbralEstablecido(String codigo, int umbral) {
+        ByteBuffer registro = iniciarRegistro(UMBRAL_ESTABLECIDO);
+        registro = escribirTexto(registro, codigo);
+        registro = asegurarEspacio(registro, 4);
+        registro.putInt(umbral);
+        return agregar(registro);
+    }
+
+    private static ByteBuffer iniciarRegistro(byte tipo) {
+        ByteBuffer registro = BUFFER_REGISTRO.get();
+        registro.clear();
+        registro.position(TAMANIO_CABECERA);
+        registro.put(tipo);
+        return registro;
+    }
+
+    private static ByteBuffer asegurarEspacio(ByteBuffer registro, int bytes) {
+        if (registro.remaining() >= bytes) {
+            return registro;
+        }
+        ByteBuffer mayor = ByteBuffer.allocate(Math.max(registro.capacity() * 2, registro.position() + bytes));
+        registro.flip();
+        mayor.put(registro);
+        BUFFER_REGISTRO.set(mayor);
+        return mayor;
+    }
+
+    private static ByteBuffer escribirTexto(ByteBuffer registro, String texto) {
+        if (texto == null) {
+            registro = asegurarEspacio(registro, 4);
+            registro.putInt(-1);
+            return registro;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        registro = asegurarEspacio(registro, 4 + bytes.length);
+        registro.putInt(bytes.length).put(bytes);
+        return registro;
+    }
+
+    //Completa la cabecera (fuera del bloqueo) y copia el registro al buffer de pendientes
+    private long agregar(ByteBuffer registro) {
+        int longitud = registro.position() - TAMANIO_CABECERA;
+        CRC32C crc = CRC.get();
+        crc.reset();
+        crc.update(registro.array(), TAMANIO_CABECERA, longitud);
+        registro.putInt(0, longitud).putInt(4, (int) crc.getValue());
+        registro.flip();
+
+        bloqueo.lock();
+        try {
+            comprobarDisponible();
+            if (pendientes.remaining() < registro.remaining()) {
+                ByteBuffer mayor = ByteBuffer.allocate(Math.max(pendientes.capacity() * 2, pendientes.position() + registro.remaining()));
+                pendientes.flip();
+                mayor.put(pendientes);
+                pendientes = mayor;
+            }
+            boolean estabaVacio = pendientes.position() == 0;
+            pendientes.put(registro);
+            posicionAgregada += registro.limit();
+            if (estabaVacio) {
+                hayPendientes.signal();
+            } else if (pendientes.position() >= TAMANIO_GRUPO) {
+                grupoLleno.signal();
+            }
+            return posicionAgregada;
+        } finally {
+            bloqueo.unlock();
+        }
+    }
+
+    private void comprobarDisponible() {
+        if (falla != null) {
+            throw new UncheckedIOException("La bitácora dejó de escribirse", falla);
+        }
+        if (cerrando || escritor == null) {
+            throw new IllegalStateException("La bitácora no está abierta para registrar operaciones");
+        }
+    }
+
+    /* ******************************************************************
+     * CONFIRMACIÓN EN GRUPO
+     ****************************************************************** */
+
+    //Bloquea hasta que el archivo esté sincronizado al menos hasta 'posicion'
+    void esperarDurable(long posicion) {
+        bloqueo.lock();
+        try {
+            boolean interrumpido = false;
+            while (posicionDurable < posicion && falla == null && escritor != null && escritor.isAlive()) {
+                try {
+                    hayDurables.await();
+                } catch (InterruptedException e) {
+                    interrumpido = true; //La operación ya se aplicó: se espera igual su confirmación
+                }
+            }
+            if (interrumpido) {
+                Thread.currentThread().interrupt();
+            }
+            if (posicionDurable < posicion) {
+                throw new UncheckedIOException("La bitácora no pudo confirmar la operación",
+                        falla != null ? falla : new IOException("El escritor de la bitácora terminó"));
+            }
+        } finally {
+            bloqueo.unlock();
+        }
+    }
+
+    //Espera a que se confirme todo lo registrado hasta ahora por cualquier hilo
+    void esperarTodo() {
+        long posicion;
+        bloqueo.lock();
+        try {
+            posicion = posicionAgregada;
+        } finally {
+            bloqueo.unlock();
+        }
+        esperarDurable(posicion);
+    }
+
+    //Fin del último registro agregado (todavía puede no estar en disco)
+    long getPosicionAgregada() {
+        bloqueo.lock();
+        try {
+            return posicionAgregada;
+        } finally {
+            bloqueo.unlock();
+        }
+    }
+
+    long getPosicionDurable() {
+        bloqueo.lock();
+        try {
+            return posicionDurable;
+        } finally {
+            bloqueo.unlock();
+        }
+    }
+
+    private void iniciarEscritor() {
+        escritor = new Thread(this::escribirGrupos, "bitacora-" + archivo.getFileName());
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    private void escribirGrupos() {
+        while (true) {
+            ByteBuffer grupo;
+            long objetivo;
+            bloqueo.lock();
+            try {
+                while (pendientes.position() == 0 && !cerrando) {
+                    hayPendientes.awaitUninterruptibly();
+                }
+                if (pendientes.position() == 0) {
+                    return; //Cerrando y sin nada pendiente
+                }
+                //Ventana del grupo: se juntan los registros que lleguen mientras tanto
+                long restante = esperaGrupoNanos;
+                while (restante > 0 && !cerrando && pendientes.position() < TAMANIO_GRUPO) {
+                    try {
+                        restante = grupoLleno.awaitNanos(restante);
+                    } catch (InterruptedException e) {
+                        restante = 0;
+                    }
+                }
+                grupo = pendientes;
+                pendientes = reserva;
+                reserva = null;
+                objetivo = posicionAgregada;
+            } finally {
+                bloqueo.unlock();
+            }
+
+            IOException error = null;
+            try {
+                grupo.flip();
+                while (grupo.hasRemaining()) {
+                    canal.write(grupo);
+                }
+                canal.force(false);
+            } catch (IOException e) {
+                error = e;
+            }
+            grupo.clear();
+
+            bloqueo.lock();
+            try {
+                reserva = grupo;
+                if (error != null) {
+                    falla = error;
+                } else {
+                    posicionDurable = objetivo;
+                }
+                hayDurables.signalAll();
+                if (error != null) {
+                    return;
+                }
+            } finally {
+                bloqueo.unlock();
+            }
+        }
+    }
+
+    //Escribe lo pendiente, detiene el escritor y cierra el archivo
+    @Override
+    public void close() throws IOException {
+        bloqueo.lock();
+        try {
+            cerrando = true;
+            hayPendientes.signal();
+            grupoLleno.signal();
+        } finally {
+            bloqueo.unlock();
+        }
+        if (escritor != null) {
+            boolean interrumpido = false;
+            while (escritor.isAlive()) {
+                try {
+                    escritor.join();
+                } catch (InterruptedException e) {
+                    interrumpido = true;
+                }
+            }
+            if (interrumpido) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        bloqueo.lock();
+        try {
+            hayDurables.signalAll();
+        } finally {
+            bloqueo.unlock();
+        }
+        canal.close();
+        if (falla != null) {
+            throw falla;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package Inventario;
+
+import java.util.Arrays;
+
+/*
+Imagen consistente de los datos del almacén (código, nombre, categoría, precio y umbral de cada handle)
+en el instante de AlmacenProductos.capturar(), por copia en escritura a nivel de tramo.
+- Los arreglos no se copian al capturar: se guardan sus referencias y una copia del mapa de bits
+  de handles ocupados (1 bit por handle).
+- Antes de modificar un handle, el almacén avisa a la captura; si el tramo de ese handle todavía
+  no se leyó ni se conservó, se copia (TAMANIO_TRAMO handles) y la captura lee esa copia.
+- leerTramo() entrega cada tramo una sola vez (la copia conservada o una copia de los arreglos
+  vivos) y lo marca como leído: desde ahí las modificaciones de ese tramo ya no copian nada.
+Las altas y bajas son poco frecuentes comparadas con las operaciones de stock, así que la
+sincronización es un único monitor (el de la captura).
+ */
+class CapturaAlmacen {
+    static final int TAMANIO_TRAMO = 4096;
+
+    //Datos de un tramo de handles [inicio, inicio + codigos.length)
+    static final class Tramo {
+        final String[] codigos;
+        final String[] nombres;
+        final int[] categorias;
+        final double[] precios;
+        final int[] umbrales;
+        final long[] posicionesNombre; //null si el almacén no tenía nombres diferidos
+
+        private Tramo(String[] codigos, String[] nombres, int[] categorias, double[] precios, int[] umbrales,
+                      long[] posicionesNombre) {
+            this.codigos = codigos;
+            this.nombres = nombres;
+            this.categorias = categorias;
+            this.precios = precios;
+            this.umbrales = umbrales;
+            this.posicionesNombre = posicionesNombre;
+        }
+    }
+
+    private static final Tramo LEIDO = new Tramo(null, null, null, null, null, null);
+
+    private final AlmacenProductos almacen;
+    private final String[] codigos;
+    private final String[] nombres;
+    private final int[] categorias;
+    private final double[] precios;
+    private final int[] umbrales;
+    private final long[] posicionesNombre;
+    private final InstantaneaInventario.ArchivoMapeado nombresDiferidos;
+    private final long[] ocupadas; //Copia del mapa de bits del asignador
+    private final int limite; //Los handles >= limite estaban libres
+    private final Tramo[] tramos; //Copia conservada, LEIDO o null si el tramo sigue intacto
+
+    CapturaAlmacen(AlmacenProductos almacen, String[] codigos, String[] nombres, int[] categorias, double[] precios,
+                   int[] umbrales, long[] posicionesNombre, InstantaneaInventario.ArchivoMapeado nombresDiferidos,
+                   long[] ocupadas, int limite) {
+        this.almacen = almacen;
+        this.codigos = codigos;
+        this.nombres = nombres;
+        this.categorias = categorias;
+        this.precios = precios;
+        this.umbrales = umbrales;
+        this.posicionesNombre = posicionesNombre;
+        this.nombresDiferidos = nombresDiferidos;
+        this.ocupadas = ocupadas;
+        this.limite = limite;
+        this.tramos = new Tramo[(limite + TAMANIO_TRAMO - 1) / TAMANIO_TRAMO];
+    }
+
+    int getLimite() {
+        return limite;
+    }
+
+    int cantidadTramos() {
+        return tramos.length;
+    }
+
+    boolean estabaOcupado(int handle) {
+        return handle < limite && (ocupadas[handle >>> 6] & (1L << handle)) != 0;
+    }
+
+    //Llamado por el almacén antes de modificar los datos del handle
+    synchronized void antesDeModificar(int handle) {
+        if (handle >= limite) {
+            return;
+        }
+        int tramo = handle / TAMANIO_TRAMO;
+        if (tramos[tramo] == null) {
+            tramos[tramo] = copiar(tramo);
+        }
+    }
+
+    //Datos del tramo en el instante de la captura; cada tramo se puede leer una sola vez
+    synchronized Tramo leerTramo(int tramo) {
+        Tramo datos = tramos[tramo];
+        if (datos == LEIDO) {
+            throw new IllegalStateException("El tramo " + tramo + " ya se leyó de la captura");
+        }
+        if (datos == null) {
+            datos = copiar(tramo);
+        }
+        tramos[tramo] = LEIDO;
+        return datos;
+    }
+
+    private Tramo copiar(int tramo) {
+        int inicio = tramo * TAMANIO_TRAMO;
+        int fin = Math.min(inicio + TAMANIO_TRAMO, limite);
+        return new Tramo(Arrays.copyOfRange(codigos, inicio, fin), Arrays.copyOfRange(nombres, inicio, fin),
+                Arrays.copyOfRange(categorias, inicio, fin), Arrays.copyOfRange(precios, inicio, fin),
+                Arrays.copyOfRange(umbrales, inicio, fin), posicionesNombre == null ? null : Arrays.copyOfRange(posicionesNombre, inicio, fin));
+    }
+
+    //Nombre del handle en la posición 'i' del tramo, leyéndolo de la instantánea si estaba diferido
+    String nombre(Tramo datos, int i) {
+        String nombre = datos.nombres[i];
+        if (nombre == null && datos.posicionesNombre != null && datos.posicionesNombre[i] >= 0) {
+            nombre = nombresDiferidos.leerTextoDiferido(datos.posicionesNombre[i]);
+        }
+        return nombre;
+    }
+
+    void liberar() {
+        almacen.terminarCaptura(this);
+    }
+}
@@ -0,0 +1,119 @@
+package Inventario;
+
+import MatrizDispersa.CapturaMatrizInt;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/*
+Imagen del inventario tomada en un instante (una "época") para escribir la instantánea en otro hilo
+mientras el sistema sigue recibiendo operaciones.
+- El stock se captura con CapturaMatrizInt y los datos de los productos con CapturaAlmacen: ambas
+  conservan por copia en escritura solo los bloques que se modifiquen antes de ser leídos.
+- Las categorías se copian enteras al capturar (solo el nombre de cada id, son pocas).
+- Los B+ no se capturan: el orden por código de cada categoría se rearma al escribir, ordenando los
+  handles de la imagen. Así las altas y bajas posteriores pueden modificar los árboles libremente.
+ */
+class CapturaInventario {
+    private final CapturaAlmacen almacen;
+    private final CapturaMatrizInt stocks;
+    private final int columnaStock;
+    private final String[] categoriasPorId;
+    private final long posicionBitacora;
+    private int cantidadCategorias; //Lo escrito en el archivo, disponible después de escribir()
+    private int cantidadProductos;
+
+    CapturaInventario(CapturaAlmacen almacen, CapturaMatrizInt stocks, int columnaStock,
+                      String[] categoriasPorId, long posicionBitacora) {
+        this.almacen = almacen;
+        this.stocks = stocks;
+        this.columnaStock = columnaStock;
+        this.categoriasPorId = categoriasPorId;
+        this.posicionBitacora = posicionBitacora;
+    }
+
+    //Escribe la imagen en el archivo con el mismo formato que SistemaInventario.guardarInstantanea
+    void escribir(Path archivo) throws IOException {
+        int limite = almacen.getLimite();
+        int[] stock = new int[limite];
+        stocks.copiarColumna(columnaStock, stock, null, limite);
+
+        String[] codigos = new String[limite];
+        String[] nombres = new String[limite];
+        double[] precios = new double[limite];
+        int[] umbrales = new int[limite];
+        int[] productosPorCategoria = new int[categoriasPorId.length];
+        int[] categoriaDe = new int[limite];
+        Arrays.fill(categoriaDe, -1);
+        cantidadProductos = 0;
+        for (int t = 0; t < almacen.cantidadTramos(); t++) {
+            CapturaAlmacen.Tramo datos = almacen.leerTramo(t);
+            int inicio = t * CapturaAlmacen.TAMANIO_TRAMO;
+            for (int i = 0; i < datos.codigos.length; i++) {
+                int handle = inicio + i;
+                int idCategoria = datos.categorias[i];
+                if (!almacen.estabaOcupado(handle) || idCategoria >= categoriasPorId.length
+                        || categoriasPorId[idCategoria] == null) {
+                    continue;
+                }
+                codigos[handle] = datos.codigos[i];
+                nombres[handle] = almacen.nombre(datos, i);
+                precios[handle] = datos.precios[i];
+                umbrales[handle] = datos.umbrales[i];
+                categoriaDe[handle] = idCategoria;
+                productosPorCategoria[idCategoria]++;
+                cantidadProductos++;
+            }
+        }
+
+        //Handles agrupados por categoría (conteo) y ordenados por código dentro de cada grupo
+        int[] inicioCategoria = new int[categoriasPorId.length + 1];
+        for (int id = 0; id < categoriasPorId.length; id++) {
+            inicioCategoria[id + 1] = inicioCategoria[id] + productosPorCategoria[id];
+        }
+        Integer[] orden = new Integer[cantidadProductos];
+        int[] siguiente = Arrays.copyOf(inicioCategoria, categoriasPorId.length);
+        for (int handle = 0; handle < limite; handle++) {
+            if (categoriaDe[handle] >= 0) {
+                orden[siguiente[categoriaDe[handle]]++] = handle;
+            }
+        }
+        cantidadCategorias = 0;
+        for (int id = 0; id < categoriasPorId.length; id++) {
+            if (categoriasPorId[id] != null) {
+                cantidadCategorias++;
+                Arrays.sort(orden, inicioCategoria[id], inicioCategoria[id + 1],
+                        (a, b) -> AlmacenProductos.compararCodigos(codigos[a], codigos[b]));
+            }
+        }
+
+        try (InstantaneaInventario.Escritor escritor = new InstantaneaInventario.Escritor(archivo)) {
+            escritor.cabecera(posicionBitacora, cantidadCategorias, cantidadProductos);
+            for (int id = 0; id < categoriasPorId.length; id++) {
+                if (categoriasPorId[id] == null) {
+                    continue;
+                }
+                escritor.categoria(categoriasPorId[id], productosPorCategoria[id]);
+                for (int i = inicioCategoria[id]; i < inicioCategoria[id + 1]; i++) {
+                    int handle = orden[i];
+                    escritor.producto(codigos[handle], nombres[handle], precios[handle], stock[handle], umbrales[handle]);
+                }
+            }
+            escritor.terminar();
+        }
+    }
+
+    int getCantidadCategorias() {
+        return cantidadCategorias;
+    }
+
+    int getCantidadProductos() {
+        return cantidadProductos;
+    }
+
+    //Termina la época: el almacén y la matriz dejan de conservar bloques
+    void liberar() {
+        almacen.liberar();
+        stocks.liberar();
+    }
+}
@@ -36,6 +36,6 @@ public class Categoria implements Comparable<Categoria> {
 
     @Override
     public String toString() {
-        return "Categoría: " + nombreCategoria + " (Productos: " + productosPorCodigo.getTotalClaves().size() + ")";
+        return "Categoría: " + nombreCategoria + " (Productos: " + productosPorCodigo.size() + ")";
     }
 }
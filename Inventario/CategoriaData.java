@@ -1,25 +1,51 @@
 package Inventario;
 
 import BTreePlus.BTreePlus;
+import java.util.Comparator;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
 
+//Datos de una categoría; el id es denso y lo asigna DirectorioCategorias
 class CategoriaData implements Comparable<CategoriaData> {
-    public int indiceHashCategoria;
+    public int idCategoria;
     public String nombreCategoriaOriginal; //Para referencia fácil
-    public BTreePlus<Producto> productosPorCodigo;
+    public BTreePlus<Integer> productosPorCodigo; //Handles del AlmacenProductos, ordenados por código
+    //Totales acumulados en cada alta, baja y cambio de stock o precio (sin recorrer el B+).
+    //Son sumadores: las reservas sin bloqueo de varios hilos pueden acumular a la vez.
+    private final LongAdder unidades = new LongAdder();
+    private final DoubleAdder valor = new DoubleAdder();
 
-    public CategoriaData(int indiceHashCategoria, String nombreCategoria, int ordenBTreePlus) {
-        this.indiceHashCategoria = indiceHashCategoria;
+    public CategoriaData(int idCategoria, String nombreCategoria, int ordenBTreePlus, Comparator<Integer> ordenPorCodigo) {
+        this.idCategoria = idCategoria;
         this.nombreCategoriaOriginal = nombreCategoria;
-        this.productosPorCodigo = new BTreePlus<Producto>(ordenBTreePlus);
+        this.productosPorCodigo = new BTreePlus<Integer>(ordenBTreePlus, ordenPorCodigo);
+    }
+
+    void acumular(long deltaUnidades, double deltaValor) {
+        unidades.add(deltaUnidades);
+        valor.add(deltaValor);
+    }
+
+    long getUnidades() {
+        return unidades.sum();
+    }
+
+    double getValor() {
+        return valor.sum();
+    }
+
+    ResumenCategoria resumen() {
+        return new ResumenCategoria(nombreCategoriaOriginal, productosPorCodigo.size(), getUnidades(), getValor());
     }
 
     @Override
     public int compareTo(CategoriaData otra) {
-        return Integer.compare(this.indiceHashCategoria, otra.indiceHashCategoria);
+        return Integer.compare(this.idCategoria, otra.idCategoria);
     }
 
     @Override
     public String toString() {
-        return "CatData[Hash:" + indiceHashCategoria + ", Nombre:'" + nombreCategoriaOriginal + "', Prods:" + productosPorCodigo.getTotalClaves().size() + "]";
+        return "CatData[Id:" + idCategoria + ", Nombre:'" + nombreCategoriaOriginal + "', Prods:" + productosPorCodigo.size()
+                + ", Unidades:" + getUnidades() + ", Valor:" + String.format("%.2f", getValor()) + "]";
     }
 }
@@ -0,0 +1,288 @@
+package Inventario;
+
+import Hash.FuncionHashMurmur;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.Consumer;
+
+/*
+Directorio de categorías: nombre normalizado -> id denso -> CategoriaData.
+- Los nombres se comparan sin distinguir mayúsculas y sin espacios al inicio o al final.
+- La tabla de nombres es de direccionamiento abierto (sondeo lineal, borrado por desplazamiento
+  hacia atrás) con el hash de cada nombre guardado en un int[]; como compara nombres completos,
+  dos categorías distintas nunca chocan aunque caigan en la misma casilla.
+- Cada categoría recibe un id denso (0, 1, 2, ...) que indexa el arreglo de CategoriaData.
+  Los ids liberados se reutilizan, así los arreglos indexados por id se mantienen compactos.
+La búsqueda no crea objetos: el hash y la comparación se calculan sobre la cadena recibida.
+ */
+class DirectorioCategorias {
+    private static final double FACTOR_CARGA_MAXIMO = 0.6;
+    private static final int CAPACIDAD_MINIMA = 16;
+    private static final int SIN_ID = -1;
+
+    //Tabla de nombres: id de la categoría en cada casilla (SIN_ID si está vacía) y su hash
+    private int[] idsPorCasilla;
+    private int[] hashesPorCasilla;
+    private int mascara;
+    private int limiteRedimension;
+
+    //Datos indexados por id
+    private CategoriaData[] categorias;
+    private int[] hashesPorId;
+    private int proximoId; //Ids [0, proximoId) ya fueron asignados alguna vez
+    private int[] idsLibres; //Pila de ids liberados para reutilizar
+    private int cantidadIdsLibres;
+    private int cantidad;
+
+    DirectorioCategorias(int capacidadEsperada) {
+        int capacidad = CAPACIDAD_MINIMA;
+        while (capacidad * FACTOR_CARGA_MAXIMO < capacidadEsperada) {
+            capacidad <<= 1;
+        }
+        inicializarTabla(capacidad);
+        this.categorias = new CategoriaData[Math.max(capacidadEsperada, 4)];
+        this.hashesPorId = new int[categorias.length];
+        this.idsLibres = new int[4];
+    }
+
+    private void inicializarTabla(int capacidad) {
+        this.idsPorCasilla = new int[capacidad];
+        Arrays.fill(this.idsPorCasilla, SIN_ID);
+        this.hashesPorCasilla = new int[capacidad];
+        this.mascara = capacidad - 1;
+        this.limiteRedimension = (int) (capacidad * FACTOR_CARGA_MAXIMO);
+    }
+
+    /* ******************************************************************
+     * NORMALIZACIÓN (sin crear cadenas intermedias)
+     ****************************************************************** */
+
+    static int inicioSinEspacios(String nombre) {
+        int inicio = 0;
+        while (inicio < nombre.length() && Character.isWhitespace(nombre.charAt(inicio))) {
+            inicio++;
+        }
+        return inicio;
+    }
+
+    static int finSinEspacios(String nombre, int inicio) {
+        int fin = nombre.length();
+        while (fin > inicio && Character.isWhitespace(nombre.charAt(fin - 1))) {
+            fin--;
+        }
+        return fin;
+    }
+
+    //Misma equivalencia de caracteres que equalsIgnoreCase / regionMatches(true, ...)
+    private static char plegar(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static int hashNormalizado(String nombre, int inicio, int fin) {
+        int h = 0;
+        for (int i = inicio; i < fin; i++) {
+            h = 31 * h + plegar(nombre.charAt(i));
+        }
+        return FuncionHashMurmur.mezclar32(h);
+    }
+
+    //Compara el nombre almacenado (ya normalizado) con la región [inicio, fin) de la consulta
+    private static boolean mismoNombre(String almacenado, String nombre, int inicio, int fin) {
+        return almacenado.length() == fin - inicio
+                && almacenado.regionMatches(true, 0, nombre, inicio, fin - inicio);
+    }
+
+    //Nulo o solo espacios: no puede nombrar una categoría
+    static boolean esNombreVacio(String nombre) {
+        return nombre == null || inicioSinEspacios(nombre) == nombre.length();
+    }
+
+    //Nombre con el que se compara la categoría: el original sin espacios externos, con los mismos
+    //límites que usan las búsquedas (trim() difiere en espacios Unicode y caracteres de control)
+    static String normalizar(String nombre) {
+        if (nombre == null) {
+            return null;
+        }
+        int inicio = inicioSinEspacios(nombre);
+        return nombre.substring(inicio, finSinEspacios(nombre, inicio));
+    }
+
+    /* ******************************************************************
+     * CONSULTAS
+     ****************************************************************** */
+
+    //Id de la categoría o -1 si no existe (nombres nulos o vacíos también retornan -1)
+    int idDe(String nombre) {
+        if (nombre == null) {
+            return SIN_ID;
+        }
+        int inicio = inicioSinEspacios(nombre);
+        int fin = finSinEspacios(nombre, inicio);
+        if (inicio == fin) {
+            return SIN_ID;
+        }
+        int casilla = buscarCasilla(nombre, inicio, fin, hashNormalizado(nombre, inicio, fin));
+        return casilla == SIN_ID ? SIN_ID : idsPorCasilla[casilla];
+    }
+
+    //Categoría con ese nombre o null
+    CategoriaData buscar(String nombre) {
+        int id = idDe(nombre);
+        return id == SIN_ID ? null : categorias[id];
+    }
+
+    //Categoría con ese id o null si el id no está en uso
+    CategoriaData obtener(int id) {
+        return id >= 0 && id < proximoId ? categorias[id] : null;
+    }
+
+    private int buscarCasilla(String nombre, int inicio, int fin, int hash) {
+        int casilla = hash & mascara;
+        while (idsPorCasilla[casilla] != SIN_ID) {
+            int id = idsPorCasilla[casilla];
+            if (hashesPorCasilla[casilla] == hash
+                    && mismoNombre(categorias[id].nombreCategoriaOriginal, nombre, inicio, fin)) {
+                return casilla;
+            }
+            casilla = (casilla + 1) & mascara;
+        }
+        return SIN_ID;
+    }
+
+    int cantidad() {
+        return cantidad;
+    }
+
+    //Nombre de cada categoría indexado por id (null en los ids libres)
+    String[] copiarNombres() {
+        String[] nombres = new String[proximoId];
+        for (int id = 0; id < proximoId; id++) {
+            if (categorias[id] != null) {
+                nombres[id] = categorias[id].nombreCategoriaOriginal;
+            }
+        }
+        return nombres;
+    }
+
+    //Límite superior (exclusivo) de los ids asignados, para recorrer con obtener(id)
+    int limiteIds() {
+        return proximoId;
+    }
+
+    boolean estaVacio() {
+        return cantidad == 0;
+    }
+
+    //Recorre las categorías en orden de id
+    void recorrer(Consumer<CategoriaData> accion) {
+        for (int id = 0; id < proximoId; id++) {
+            if (categorias[id] != null) {
+                accion.accept(categorias[id]);
+            }
+        }
+    }
+
+    /* ******************************************************************
+     * ALTAS Y BAJAS
+     ****************************************************************** */
+
+    //Crea la categoría y retorna sus datos, o null si ya existe una con el mismo nombre normalizado
+    CategoriaData agregar(String nombre, int ordenBTreePlus, Comparator<Integer> ordenProductos) {
+        String normalizado = normalizar(nombre);
+        if (normalizado == null || normalizado.isEmpty()) {
+            return null;
+        }
+        int hash = hashNormalizado(normalizado, 0, normalizado.length());
+        if (buscarCasilla(normalizado, 0, normalizado.length(), hash) != SIN_ID) {
+            return null;
+        }
+
+        int id = asignarId();
+        CategoriaData categoria = new CategoriaData(id, normalizado, ordenBTreePlus, ordenProductos);
+        categorias[id] = categoria;
+        hashesPorId[id] = hash;
+        ubicar(id, hash);
+        cantidad++;
+        if (cantidad > limiteRedimension) {
+            redimensionar(idsPorCasilla.length << 1);
+        }
+        return categoria;
+    }
+
+    //Quita la categoría y retorna sus datos, o null si no existe. Su id queda libre para reutilizarse.
+    CategoriaData eliminar(String nombre) {
+        if (nombre == null) {
+            return null;
+        }
+        int inicio = inicioSinEspacios(nombre);
+        int fin = finSinEspacios(nombre, inicio);
+        if (inicio == fin) {
+            return null;
+        }
+        int casilla = buscarCasilla(nombre, inicio, fin, hashNormalizado(nombre, inicio, fin));
+        if (casilla == SIN_ID) {
+            return null;
+        }
+
+        int id = idsPorCasilla[casilla];
+        CategoriaData categoria = categorias[id];
+        vaciarCasilla(casilla);
+        categorias[id] = null;
+        liberarId(id);
+        cantidad--;
+        return categoria;
+    }
+
+    private int asignarId() {
+        if (cantidadIdsLibres > 0) {
+            return idsLibres[--cantidadIdsLibres];
+        }
+        if (proximoId == categorias.length) {
+            categorias = Arrays.copyOf(categorias, categorias.length * 2);
+            hashesPorId = Arrays.copyOf(hashesPorId, hashesPorId.length * 2);
+        }
+        return proximoId++;
+    }
+
+    private void liberarId(int id) {
+        if (cantidadIdsLibres == idsLibres.length) {
+            idsLibres = Arrays.copyOf(idsLibres, idsLibres.length * 2);
+        }
+        idsLibres[cantidadIdsLibres++] = id;
+    }
+
+    private void ubicar(int id, int hash) {
+        int casilla = hash & mascara;
+        while (idsPorCasilla[casilla] != SIN_ID) {
+            casilla = (casilla + 1) & mascara;
+        }
+        idsPorCasilla[casilla] = id;
+        hashesPorCasilla[casilla] = hash;
+    }
+
+    //Borra la casilla desplazando hacia atrás el resto del grupo (sin lápidas)
+    private void vaciarCasilla(int hueco) {
+        int siguiente = (hueco + 1) & mascara;
+        while (idsPorCasilla[siguiente] != SIN_ID) {
+            int ideal = hashesPorCasilla[siguiente] & mascara;
+            //Se mueve al hueco solo si el hueco está entre su posición ideal y su posición actual
+            if (((siguiente - ideal) & mascara) >= ((siguiente - hueco) & mascara)) {
+                idsPorCasilla[hueco] = idsPorCasilla[siguiente];
+                hashesPorCasilla[hueco] = hashesPorCasilla[siguiente];
+                hueco = siguiente;
+            }
+            siguiente = (siguiente + 1) & mascara;
+        }
+        idsPorCasilla[hueco] = SIN_ID;
+        hashesPorCasilla[hueco] = 0;
+    }
+
+    private void redimensionar(int nuevaCapacidad) {
+        inicializarTabla(nuevaCapacidad);
+        for (int id = 0; id < proximoId; id++) {
+            if (categorias[id] != null) {
+                ubicar(id, hashesPorId[id]);
+            }
+        }
+    }
+}
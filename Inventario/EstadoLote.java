@@ -0,0 +1,37 @@
+package Inventario;
+
+//Resultado de cada elemento de las operaciones por lote de SistemaInventario (un byte por elemento)
+public final class EstadoLote {
+    public static final byte CORRECTO = 0;
+    public static final byte DATOS_INVALIDOS = 1; //Producto o código nulo/vacío, stock negativo
+    public static final byte NO_ENCONTRADO = 2;
+    public static final byte DUPLICADO = 3; //El código ya existía o se repite dentro del lote
+    public static final byte CATEGORIA_INEXISTENTE = 4;
+    public static final byte SIN_CAPACIDAD = 5;
+
+    private EstadoLote() {
+    }
+
+    public static String describir(byte estado) {
+        switch (estado) {
+            case CORRECTO: return "correcto";
+            case DATOS_INVALIDOS: return "datos inválidos";
+            case NO_ENCONTRADO: return "no encontrado";
+            case DUPLICADO: return "duplicado";
+            case CATEGORIA_INEXISTENTE: return "categoría inexistente";
+            case SIN_CAPACIDAD: return "sin capacidad";
+            default: return "desconocido (" + estado + ")";
+        }
+    }
+
+    //Cantidad de elementos del lote que terminaron con el estado indicado
+    public static int contar(byte[] estados, byte estado) {
+        int cantidad = 0;
+        for (byte e : estados) {
+            if (e == estado) {
+                cantidad++;
+            }
+        }
+        return cantidad;
+    }
+}
@@ -0,0 +1,291 @@
+package Inventario;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+
+/*
+Índice secundario global por nombre: trie comprimido (radix) de nombres normalizados -> handles.
+- Cada arista guarda un fragmento del nombre. Un nodo sin handles (salvo la raíz) tiene al menos dos
+  hijos, así que recorrer el subárbol de un prefijo visita O(resultados) nodos.
+- Los hijos están ordenados por su primer carácter y los handles de un mismo nombre por código: el
+  recorrido en profundidad entrega los productos en orden lexicográfico del nombre normalizado.
+- Igual que IndicePrecios, se arma la primera vez que se consulta y desde ahí se mantiene en cada
+  alta y baja. Mientras nadie lo consulta, los nombres diferidos de una instantánea no se leen.
+- Antes de liberar un handle hay que quitarlo del índice: se ubica con el nombre y el código actuales.
+ */
+class IndiceNombres {
+    private static final Nodo[] SIN_HIJOS = new Nodo[0];
+    private static final int[] SIN_HANDLES = new int[0];
+
+    private static final class Nodo {
+        String fragmento;
+        Nodo[] hijos = SIN_HIJOS;
+        int cantidadHijos;
+        int[] handles = SIN_HANDLES; //Productos cuyo nombre termina en este nodo
+        int cantidadHandles;
+
+        Nodo(String fragmento) {
+            this.fragmento = fragmento;
+        }
+    }
+
+    private final AlmacenProductos almacen;
+    private Nodo raiz; //null mientras no se consulte
+
+    IndiceNombres(AlmacenProductos almacen) {
+        this.almacen = almacen;
+    }
+
+    //Nombre con el que se indexa el producto: sin espacios externos y en minúsculas. Los espacios
+    //se recortan con los mismos límites que los nombres de categoría y los prefijos consultados
+    static String normalizar(String nombre) {
+        return nombre == null ? "" : DirectorioCategorias.normalizar(nombre).toLowerCase(Locale.ROOT);
+    }
+
+    boolean estaArmado() {
+        return raiz != null;
+    }
+
+    /*
+    Arma el trie con todos los productos actuales. Los handles se agregan al final de su nodo sin
+    mantener el orden por código y cada nodo con varios productos se ordena una sola vez al final,
+    así un nombre repetido por muchos productos no cuesta inserciones cuadráticas.
+     */
+    void armar() {
+        if (raiz != null) {
+            return;
+        }
+        Nodo nueva = new Nodo("");
+        for (int handle = 0; handle < almacen.limiteHandles(); handle++) {
+            if (almacen.estaOcupado(handle)) {
+                Nodo nodo = ubicarOCrear(nueva, normalizar(almacen.getNombre(handle)));
+                if (nodo.cantidadHandles == nodo.handles.length) {
+                    nodo.handles = Arrays.copyOf(nodo.handles, Math.max(2, nodo.cantidadHandles * 2));
+                }
+                nodo.handles[nodo.cantidadHandles++] = handle;
+            }
+        }
+        ArrayDeque<Nodo> pendientes = new ArrayDeque<>();
+        pendientes.push(nueva);
+        while (!pendientes.isEmpty()) {
+            Nodo nodo = pendientes.pop();
+            if (nodo.cantidadHandles > 1) {
+                ordenarPorCodigo(nodo);
+            }
+            for (int i = 0; i < nodo.cantidadHijos; i++) {
+                pendientes.push(nodo.hijos[i]);
+            }
+        }
+        raiz = nueva;
+    }
+
+    private void ordenarPorCodigo(Nodo nodo) {
+        Integer[] ordenados = new Integer[nodo.cantidadHandles];
+        for (int i = 0; i < ordenados.length; i++) {
+            ordenados[i] = nodo.handles[i];
+        }
+        Arrays.sort(ordenados, (a, b) -> AlmacenProductos.compararCodigos(almacen.getCodigo(a), almacen.getCodigo(b)));
+        for (int i = 0; i < ordenados.length; i++) {
+            nodo.handles[i] = ordenados[i];
+        }
+    }
+
+    void agregar(int handle) {
+        if (raiz == null) {
+            return;
+        }
+        Nodo nodo = ubicarOCrear(raiz, normalizar(almacen.getNombre(handle)));
+        int posicion = -buscarHandle(nodo, almacen.getCodigo(handle)) - 1;
+        if (nodo.cantidadHandles == nodo.handles.length) {
+            nodo.handles = Arrays.copyOf(nodo.handles, Math.max(2, nodo.cantidadHandles * 2));
+        }
+        System.arraycopy(nodo.handles, posicion, nodo.handles, posicion + 1, nodo.cantidadHandles - posicion);
+        nodo.handles[posicion] = handle;
+        nodo.cantidadHandles++;
+    }
+
+    //Baja el trie por la clave dividiendo las aristas que la comparten a medias; retorna su nodo
+    private Nodo ubicarOCrear(Nodo raiz, String clave) {
+        Nodo nodo = raiz;
+        int i = 0;
+        while (i < clave.length()) {
+            int posicion = buscarHijo(nodo, clave.charAt(i));
+            if (posicion < 0) {
+                Nodo hoja = new Nodo(clave.substring(i));
+                insertarHijo(nodo, -posicion - 1, hoja);
+                return hoja;
+            }
+            Nodo hijo = nodo.hijos[posicion];
+            int comun = prefijoComun(hijo.fragmento, clave, i);
+            if (comun < hijo.fragmento.length()) {
+                Nodo intermedio = new Nodo(hijo.fragmento.substring(0, comun));
+                hijo.fragmento = hijo.fragmento.substring(comun);
+                intermedio.hijos = new Nodo[]{hijo, null};
+                intermedio.cantidadHijos = 1;
+                nodo.hijos[posicion] = intermedio;
+                hijo = intermedio;
+            }
+            nodo = hijo;
+            i += comun;
+        }
+        return nodo;
+    }
+
+    void quitar(int handle) {
+        if (raiz == null) {
+            return;
+        }
+        String clave = normalizar(almacen.getNombre(handle));
+        //Se recuerdan padre y abuelo para podar o fusionar los nodos que queden sobrando
+        Nodo abuelo = null, padre = null, nodo = raiz;
+        int posicionEnAbuelo = -1, posicionEnPadre = -1;
+        int i = 0;
+        while (i < clave.length()) {
+            int posicion = buscarHijo(nodo, clave.charAt(i));
+            if (posicion < 0 || !clave.startsWith(nodo.hijos[posicion].fragmento, i)) {
+                return;
+            }
+            abuelo = padre;
+            posicionEnAbuelo = posicionEnPadre;
+            padre = nodo;
+            posicionEnPadre = posicion;
+            nodo = nodo.hijos[posicion];
+            i += nodo.fragmento.length();
+        }
+        int posicion = buscarHandle(nodo, almacen.getCodigo(handle));
+        if (posicion < 0 || nodo.handles[posicion] != handle) {
+            return;
+        }
+        System.arraycopy(nodo.handles, posicion + 1, nodo.handles, posicion, nodo.cantidadHandles - posicion - 1);
+        nodo.cantidadHandles--;
+        if (nodo.cantidadHandles > 0 || padre == null) {
+            return;
+        }
+        if (nodo.cantidadHijos == 0) {
+            quitarHijo(padre, posicionEnPadre);
+            if (abuelo != null) {
+                fusionarSiSobra(abuelo, posicionEnAbuelo);
+            }
+        } else {
+            fusionarSiSobra(padre, posicionEnPadre);
+        }
+    }
+
+    //Un nodo sin handles y con un solo hijo se reemplaza por el hijo con el fragmento unido
+    private static void fusionarSiSobra(Nodo padre, int posicion) {
+        Nodo nodo = padre.hijos[posicion];
+        if (nodo.cantidadHandles == 0 && nodo.cantidadHijos == 1) {
+            Nodo hijo = nodo.hijos[0];
+            hijo.fragmento = nodo.fragmento + hijo.fragmento;
+            padre.hijos[posicion] = hijo;
+        }
+    }
+
+    /*
+    Handles cuyo nombre normalizado empieza con el prefijo, en orden lexicográfico (a igual nombre,
+    por código). Se ignoran los espacios iniciales del prefijo y las mayúsculas; los espacios finales
+    sí cuentan. El recorrido se detiene al llegar al límite.
+     */
+    ArrayList<Integer> buscarPorPrefijo(String prefijo, int limite) {
+        ArrayList<Integer> resultado = new ArrayList<>();
+        if (limite <= 0) {
+            return resultado;
+        }
+        String clave = prefijo == null ? ""
+                : prefijo.substring(DirectorioCategorias.inicioSinEspacios(prefijo)).toLowerCase(Locale.ROOT);
+        Nodo nodo = raiz;
+        int i = 0;
+        while (i < clave.length()) {
+            int posicion = buscarHijo(nodo, clave.charAt(i));
+            if (posicion < 0) {
+                return resultado;
+            }
+            nodo = nodo.hijos[posicion];
+            //El prefijo puede terminar en medio del fragmento: todo el subárbol coincide
+            int comparados = Math.min(nodo.fragmento.length(), clave.length() - i);
+            if (!nodo.fragmento.regionMatches(0, clave, i, comparados)) {
+                return resultado;
+            }
+            i += comparados;
+        }
+        ArrayDeque<Nodo> pendientes = new ArrayDeque<>();
+        pendientes.push(nodo);
+        while (!pendientes.isEmpty()) {
+            Nodo actual = pendientes.pop();
+            for (int j = 0; j < actual.cantidadHandles; j++) {
+                resultado.add(actual.handles[j]);
+                if (resultado.size() == limite) {
+                    return resultado;
+                }
+            }
+            for (int j = actual.cantidadHijos - 1; j >= 0; j--) {
+                pendientes.push(actual.hijos[j]);
+            }
+        }
+        return resultado;
+    }
+
+    /* ******************************************************************
+     * AUXILIARES
+     ****************************************************************** */
+
+    //Posición del hijo cuyo fragmento empieza con c, o -(posición de inserción) - 1
+    private static int buscarHijo(Nodo nodo, char c) {
+        int bajo = 0, alto = nodo.cantidadHijos - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            char actual = nodo.hijos[medio].fragmento.charAt(0);
+            if (actual < c) {
+                bajo = medio + 1;
+            } else if (actual > c) {
+                alto = medio - 1;
+            } else {
+                return medio;
+            }
+        }
+        return -bajo - 1;
+    }
+
+    //Posición del código entre los handles del nodo, o -(posición de inserción) - 1
+    private int buscarHandle(Nodo nodo, String codigo) {
+        int bajo = 0, alto = nodo.cantidadHandles - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            int comparacion = AlmacenProductos.compararCodigos(almacen.getCodigo(nodo.handles[medio]), codigo);
+            if (comparacion < 0) {
+                bajo = medio + 1;
+            } else if (comparacion > 0) {
+                alto = medio - 1;
+            } else {
+                return medio;
+            }
+        }
+        return -bajo - 1;
+    }
+
+    //Cantidad de caracteres iniciales del fragmento que coinciden con clave desde 'desde'
+    private static int prefijoComun(String fragmento, String clave, int desde) {
+        int limite = Math.min(fragmento.length(), clave.length() - desde);
+        int i = 0;
+        while (i < limite && fragmento.charAt(i) == clave.charAt(desde + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static void insertarHijo(Nodo nodo, int posicion, Nodo hijo) {
+        if (nodo.cantidadHijos == nodo.hijos.length) {
+            nodo.hijos = Arrays.copyOf(nodo.hijos, Math.max(2, nodo.cantidadHijos * 2));
+        }
+        System.arraycopy(nodo.hijos, posicion, nodo.hijos, posicion + 1, nodo.cantidadHijos - posicion);
+        nodo.hijos[posicion] = hijo;
+        nodo.cantidadHijos++;
+    }
+
+    private static void quitarHijo(Nodo nodo, int posicion) {
+        System.arraycopy(nodo.hijos, posicion + 1, nodo.hijos, posicion, nodo.cantidadHijos - posicion - 1);
+        nodo.hijos[--nodo.cantidadHijos] = null;
+    }
+}
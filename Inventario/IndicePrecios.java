@@ -0,0 +1,151 @@
+package Inventario;
+
+import BTreePlus.BTreePlus;
+import BTreePlus.CursorHojas;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/*
+Índice secundario global por precio: B+ de handles ordenados por (precio, código).
+- Se arma la primera vez que se consulta, ordenando todos los handles y con bulkLoad; desde ahí se
+  mantiene en cada alta, baja y cambio de precio. Mientras nadie lo consulta, las cargas masivas y
+  las instantáneas no pagan su mantenimiento.
+- Antes de cambiar el precio o liberar un handle hay que quitarlo del índice: el B+ lo ubica con
+  el precio y el código actuales.
+- Los límites de una consulta por rango se buscan con dos handles ficticios cuyo precio se toma de
+  un ThreadLocal: SONDA_INFERIOR queda antes que todos los productos de su precio y SONDA_SUPERIOR
+  después. Así varias consultas pueden correr a la vez bajo el bloqueo de lectura.
+ */
+class IndicePrecios {
+    private static final int SONDA_INFERIOR = -1;
+    private static final int SONDA_SUPERIOR = -2;
+
+    private final AlmacenProductos almacen;
+    private final int ordenBTreePlus;
+    private final ThreadLocal<double[]> preciosSonda = ThreadLocal.withInitial(() -> new double[2]);
+    private BTreePlus<Integer> arbol; //null mientras no se consulte
+
+    IndicePrecios(AlmacenProductos almacen, int ordenBTreePlus) {
+        this.almacen = almacen;
+        this.ordenBTreePlus = ordenBTreePlus;
+    }
+
+    private int comparar(int a, int b) {
+        int comparacion = Double.compare(precio(a), precio(b));
+        if (comparacion != 0) {
+            return comparacion;
+        }
+        if (a < 0 || b < 0) {
+            return Integer.compare(rango(a), rango(b));
+        }
+        return AlmacenProductos.compararCodigos(almacen.getCodigo(a), almacen.getCodigo(b));
+    }
+
+    private double precio(int handle) {
+        return handle >= 0 ? almacen.getPrecio(handle) : preciosSonda.get()[-handle - 1];
+    }
+
+    //Posición de la sonda respecto de los productos con su mismo precio
+    private static int rango(int handle) {
+        return handle == SONDA_INFERIOR ? 0 : handle == SONDA_SUPERIOR ? 2 : 1;
+    }
+
+    boolean estaArmado() {
+        return arbol != null;
+    }
+
+    /*
+    Arma el B+ con todos los productos actuales. Para no ordenar con el comparador (que lee precio y
+    código de cada handle en cada comparación), cada handle se empaqueta en un long con el rango de
+    su precio entre los precios distintos y se ordena el long[]. Solo los grupos con el mismo precio
+    se ordenan después por código.
+     */
+    void armar(double factorLlenado) {
+        if (arbol != null) {
+            return;
+        }
+        int cantidad = almacen.cantidad();
+        double[] preciosDistintos = new double[cantidad];
+        long[] claves = new long[cantidad];
+        int n = 0;
+        for (int handle = 0; handle < almacen.limiteHandles(); handle++) {
+            if (almacen.estaOcupado(handle)) {
+                preciosDistintos[n] = almacen.getPrecio(handle);
+                claves[n++] = handle;
+            }
+        }
+        Arrays.sort(preciosDistintos); //Mismo orden que Double.compare
+        int distintos = 0;
+        for (int i = 0; i < n; i++) {
+            if (distintos == 0 || Double.compare(preciosDistintos[distintos - 1], preciosDistintos[i]) != 0) {
+                preciosDistintos[distintos++] = preciosDistintos[i];
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            int handle = (int) claves[i];
+            long rangoPrecio = Arrays.binarySearch(preciosDistintos, 0, distintos, almacen.getPrecio(handle));
+            claves[i] = rangoPrecio << 32 | handle;
+        }
+        Arrays.sort(claves, 0, n);
+
+        Integer[] handles = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            handles[i] = (int) claves[i];
+        }
+        for (int inicio = 0; inicio < n; ) {
+            int fin = inicio + 1;
+            while (fin < n && (claves[fin] >>> 32) == (claves[inicio] >>> 32)) {
+                fin++;
+            }
+            if (fin - inicio > 1) {
+                Arrays.sort(handles, inicio, fin, this::comparar);
+            }
+            inicio = fin;
+        }
+        BTreePlus<Integer> nuevo = new BTreePlus<>(ordenBTreePlus, this::comparar);
+        nuevo.bulkLoad(Arrays.asList(handles).iterator(), factorLlenado);
+        arbol = nuevo;
+    }
+
+    void agregar(int handle) {
+        if (arbol != null) {
+            arbol.insert(handle);
+        }
+    }
+
+    void quitar(int handle) {
+        if (arbol != null) {
+            arbol.remove(handle);
+        }
+    }
+
+    //Handles con precio en [minimo, maximo], de menor a mayor precio (a igual precio, por código)
+    ArrayList<Integer> rango(double minimo, double maximo, int limite) {
+        ArrayList<Integer> resultado = new ArrayList<>();
+        if (arbol.isEmpty() || !(minimo <= maximo) || limite <= 0) {
+            return resultado;
+        }
+        double[] sondas = preciosSonda.get();
+        sondas[0] = minimo;
+        sondas[1] = maximo;
+        CursorHojas<Integer> cursor = arbol.cursor(SONDA_INFERIOR, SONDA_SUPERIOR);
+        while (resultado.size() < limite && cursor.hasNext()) {
+            resultado.add(cursor.next());
+        }
+        return resultado;
+    }
+
+    //Los 'cantidad' handles de menor precio, en orden ascendente
+    ArrayList<Integer> menores(int cantidad) {
+        ArrayList<Integer> resultado = new ArrayList<>();
+        for (CursorHojas<Integer> cursor = arbol.cursor(); resultado.size() < cantidad && cursor.hasNext(); ) {
+            resultado.add(cursor.next());
+        }
+        return resultado;
+    }
+
+    //Los 'cantidad' handles de mayor precio, en orden descendente
+    ArrayList<Integer> mayores(int cantidad) {
+        return arbol.mayores(cantidad);
+    }
+}
@@ -0,0 +1,229 @@
+package Inventario;
+
+import Eventos.BusEventos;
+import Eventos.TipoEvento;
+import MatrizDispersa.MatrizDispersaInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/*
+Cola de prioridad indexada (montículo mínimo) de los productos con umbral de reposición, ordenada
+por stock - umbral: la raíz es el producto más lejos de cubrir su umbral.
+- posiciones[handle] guarda dónde está el handle en el montículo (-1 = sin umbral), así un cambio de
+  stock reubica al producto en O(log n) sin buscarlo. Los productos sin umbral no entran.
+- Un producto está bajo umbral si stock < umbral (clave negativa). Cuando una actualización lo hace
+  pasar de cubierto a bajo umbral se avisa al oyente, fuera del monitor.
+- Las reservas modifican el stock con compare-and-set desde muchos hilos: el montículo usa su propio
+  monitor y, al reubicar, vuelve a leer el stock de la matriz. El último hilo en entrar deja la
+  clave con el valor vigente aunque los cambios lleguen en otro orden.
+ */
+class IndiceUmbrales {
+    private final AlmacenProductos almacen;
+    private final MatrizDispersaInt stocks;
+    private final int columnaStock;
+    private int[] handles = new int[16]; //Montículo: handle de cada posición
+    private long[] claves = new long[16]; //stock - umbral de cada posición
+    private int tamanio;
+    private int[] posiciones; //Por handle
+    private volatile OyenteUmbral oyente;
+
+    IndiceUmbrales(AlmacenProductos almacen, MatrizDispersaInt stocks, int columnaStock) {
+        this.almacen = almacen;
+        this.stocks = stocks;
+        this.columnaStock = columnaStock;
+        this.posiciones = new int[almacen.capacidad()];
+        Arrays.fill(posiciones, -1);
+    }
+
+    void setOyente(OyenteUmbral oyente) {
+        this.oyente = oyente;
+    }
+
+    synchronized void crecer(int nuevaCapacidad) {
+        if (nuevaCapacidad > posiciones.length) {
+            int anterior = posiciones.length;
+            posiciones = Arrays.copyOf(posiciones, nuevaCapacidad);
+            Arrays.fill(posiciones, anterior, nuevaCapacidad, -1);
+        }
+    }
+
+    synchronized int cantidad() {
+        return tamanio;
+    }
+
+    //Arma el montículo con los umbrales del almacén en O(n) (después de cargar una instantánea)
+    synchronized void armar() {
+        tamanio = 0;
+        Arrays.fill(posiciones, -1);
+        for (int handle = 0; handle < almacen.limiteHandles(); handle++) {
+            if (almacen.estaOcupado(handle) && almacen.getUmbral(handle) != AlmacenProductos.SIN_UMBRAL) {
+                asegurarEspacio();
+                handles[tamanio] = handle;
+                claves[tamanio] = clave(handle);
+                posiciones[handle] = tamanio++;
+            }
+        }
+        for (int i = tamanio / 2 - 1; i >= 0; i--) {
+            bajar(i);
+        }
+    }
+
+    //El umbral del handle cambió en el almacén: entra, sale o se reubica
+    void umbralCambiado(int handle) {
+        boolean cruzo;
+        synchronized (this) {
+            if (almacen.getUmbral(handle) == AlmacenProductos.SIN_UMBRAL) {
+                quitarSinAviso(handle);
+                return;
+            }
+            if (posiciones[handle] < 0) {
+                asegurarEspacio();
+                handles[tamanio] = handle;
+                claves[tamanio] = 0; //Cubierto: si ya está bajo umbral se avisa al reubicar
+                posiciones[handle] = tamanio++;
+            }
+            cruzo = reubicar(handle);
+        }
+        if (cruzo) {
+            avisar(handle);
+        }
+    }
+
+    //El stock del handle cambió en la matriz
+    void stockCambiado(int handle) {
+        if (almacen.getUmbral(handle) == AlmacenProductos.SIN_UMBRAL) {
+            return; //Caso común: sin umbral no se toma el monitor
+        }
+        boolean cruzo;
+        synchronized (this) {
+            if (posiciones[handle] < 0) {
+                return;
+            }
+            cruzo = reubicar(handle);
+        }
+        if (cruzo) {
+            avisar(handle);
+        }
+    }
+
+    //Antes de liberar el handle
+    synchronized void quitar(int handle) {
+        quitarSinAviso(handle);
+    }
+
+    //Hasta 'limite' handles bajo umbral, del más lejos de cubrirlo al más cercano. Solo recorre la
+    //parte superior del montículo: O(k log k) para k resultados, sin mirar al resto
+    synchronized ArrayList<Integer> bajoUmbral(int limite) {
+        ArrayList<Integer> resultado = new ArrayList<>();
+        if (tamanio == 0 || claves[0] >= 0 || limite <= 0) {
+            return resultado;
+        }
+        PriorityQueue<Integer> frontera = new PriorityQueue<>((a, b) -> Long.compare(claves[a], claves[b]));
+        frontera.add(0);
+        while (!frontera.isEmpty() && resultado.size() < limite) {
+            int i = frontera.poll();
+            resultado.add(handles[i]);
+            for (int hijo = 2 * i + 1; hijo <= 2 * i + 2 && hijo < tamanio; hijo++) {
+                if (claves[hijo] < 0) {
+                    frontera.add(hijo);
+                }
+            }
+        }
+        return resultado;
+    }
+
+    private long clave(int handle) {
+        return (long) stocks.obtenerVolatil(handle, columnaStock) - almacen.getUmbral(handle);
+    }
+
+    //Recalcula la clave y la reubica; retorna true si el producto acaba de quedar bajo umbral
+    private boolean reubicar(int handle) {
+        int i = posiciones[handle];
+        long anterior = claves[i];
+        claves[i] = clave(handle);
+        if (claves[i] < anterior) {
+            subir(i);
+        } else {
+            bajar(i);
+        }
+        return anterior >= 0 && claves[posiciones[handle]] < 0;
+    }
+
+    private void quitarSinAviso(int handle) {
+        int i = posiciones[handle];
+        if (i < 0) {
+            return;
+        }
+        posiciones[handle] = -1;
+        tamanio--;
+        if (i == tamanio) {
+            return;
+        }
+        int movido = handles[tamanio];
+        handles[i] = movido;
+        claves[i] = claves[tamanio];
+        posiciones[movido] = i;
+        subir(i);
+        bajar(posiciones[movido]);
+    }
+
+    private void subir(int i) {
+        while (i > 0) {
+            int padre = (i - 1) / 2;
+            if (claves[padre] <= claves[i]) {
+                break;
+            }
+            intercambiar(i, padre);
+            i = padre;
+        }
+    }
+
+    private void bajar(int i) {
+        while (true) {
+            int menor = i;
+            int izquierdo = 2 * i + 1;
+            int derecho = izquierdo + 1;
+            if (izquierdo < tamanio && claves[izquierdo] < claves[menor]) {
+                menor = izquierdo;
+            }
+            if (derecho < tamanio && claves[derecho] < claves[menor]) {
+                menor = derecho;
+            }
+            if (menor == i) {
+                return;
+            }
+            intercambiar(i, menor);
+            i = menor;
+        }
+    }
+
+    private void intercambiar(int i, int j) {
+        int handle = handles[i];
+        long clave = claves[i];
+        handles[i] = handles[j];
+        claves[i] = claves[j];
+        handles[j] = handle;
+        claves[j] = clave;
+        posiciones[handles[i]] = i;
+        posiciones[handles[j]] = j;
+    }
+
+    private void asegurarEspacio() {
+        if (tamanio == handles.length) {
+            handles = Arrays.copyOf(handles, tamanio * 2);
+            claves = Arrays.copyOf(claves, tamanio * 2);
+        }
+    }
+
+    private void avisar(int handle) {
+        OyenteUmbral actual = oyente;
+        String codigo = almacen.getCodigo(handle);
+        int umbral = almacen.getUmbral(handle);
+        int stock = stocks.obtenerVolatil(handle, columnaStock);
+        if (actual != null) {
+            actual.umbralCruzado(codigo, stock, umbral);
+        }
+        BusEventos.publicar(TipoEvento.STOCK_BAJO_UMBRAL, codigo, null, stock, umbral);
+    }
+}
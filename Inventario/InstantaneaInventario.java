@@ -0,0 +1,315 @@
+package Inventario;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/*
+Formato binario de las instantáneas (checkpoints) del inventario, versión 2:
+  cabecera:   MAGIA int, VERSION int, posición de la bitácora long (-1 = sin bitácora),
+              cantidad de categorías int, cantidad de productos int
+  categorías: nombre, cantidad de productos de la categoría int
+  productos:  código, nombre, precio double, stock int, umbral de reposición int (-1 = sin umbral)
+              (agrupados por categoría, en el mismo orden que las categorías, y ordenados por
+              código dentro de cada una: así el cargador arma cada B+ con bulkLoad)
+  cola:       CRC32C int de todos los bytes anteriores
+Los textos van como longitud int (-1 = null) más sus bytes UTF-8.
+La versión 1 no tenía el umbral de reposición: se sigue pudiendo leer (productos sin umbral).
+El escritor arma el archivo en "<nombre>.tmp", lo sincroniza y lo renombra: una instantánea
+a medio escribir nunca reemplaza a la anterior.
+El lector mapea el archivo en memoria (FileChannel.map) por ventanas, sin copiarlo a un buffer,
+y deja los nombres de productos en el archivo mapeado hasta que alguien los pide.
+ */
+final class InstantaneaInventario {
+    static final int MAGIA = 0x494E5653; //"INVS"
+    static final int VERSION = 2;
+    private static final int VERSION_SIN_UMBRALES = 1;
+    private static final int TAMANIO_BUFFER_ESCRITURA = 1 << 20;
+    private static final long TAMANIO_VENTANA = 1L << 30; //Bytes mapeados a la vez al leer
+    private static final int TAMANIO_TEXTO_MAXIMO = 1 << 24;
+    private static final long SOLAPAMIENTO_VENTANA = TAMANIO_TEXTO_MAXIMO + 16;
+
+    private InstantaneaInventario() {
+    }
+
+    //Recibe el contenido de la instantánea durante leer(), en el orden del archivo
+    interface Lector {
+        //'archivo' queda mapeado: los nombres de productos se leen de él con leerTextoDiferido
+        void cabecera(long posicionBitacora, int cantidadCategorias, int cantidadProductos, ArchivoMapeado archivo) throws IOException;
+
+        //Los 'cantidadProductos' productos siguientes pertenecen a esta categoría
+        void categoria(String nombre, int cantidadProductos) throws IOException;
+
+        //El nombre no se decodifica al cargar: se entrega la posición donde está guardado
+        void producto(String codigo, long posicionNombre, double precio, int stock, int umbral) throws IOException;
+
+        //Se llama después del último producto
+        void terminar() throws IOException;
+    }
+
+    /* ******************************************************************
+     * ESCRITURA
+     ****************************************************************** */
+
+    //Escribe secuencialmente con un buffer propio, calculando el CRC a medida que vacía el buffer
+    static final class Escritor implements AutoCloseable {
+        private final Path destino;
+        private final Path temporal;
+        private final FileChannel canal;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANIO_BUFFER_ESCRITURA);
+        private final CRC32C crc = new CRC32C();
+        private boolean terminado;
+
+        Escritor(Path destino) throws IOException {
+            this.destino = destino;
+            this.temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+            this.canal = FileChannel.open(temporal, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        void cabecera(long posicionBitacora, int cantidadCategorias, int cantidadProductos) throws IOException {
+            asegurar(24);
+            buffer.putInt(MAGIA).putInt(VERSION).putLong(posicionBitacora)
+                    .putInt(cantidadCategorias).putInt(cantidadProductos);
+        }
+
+        void categoria(String nombre, int cantidadProductos) throws IOException {
+            texto(nombre);
+            asegurar(4);
+            buffer.putInt(cantidadProductos);
+        }
+
+        void producto(String codigo, String nombre, double precio, int stock, int umbral) throws IOException {
+            texto(codigo);
+            texto(nombre);
+            asegurar(16);
+            buffer.putDouble(precio).putInt(stock).putInt(umbral);
+        }
+
+        private void texto(String texto) throws IOException {
+            if (texto == null) {
+                asegurar(4);
+                buffer.putInt(-1);
+                return;
+            }
+            byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > TAMANIO_TEXTO_MAXIMO) {
+                throw new IOException("Texto demasiado largo para la instantánea: " + bytes.length + " bytes");
+            }
+            asegurar(4);
+            buffer.putInt(bytes.length);
+            int escritos = 0;
+            while (escritos < bytes.length) {
+                if (!buffer.hasRemaining()) {
+                    vaciar();
+                }
+                int porEscribir = Math.min(buffer.remaining(), bytes.length - escritos);
+                buffer.put(bytes, escritos, porEscribir);
+                escritos += porEscribir;
+            }
+        }
+
+        private void asegurar(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                vaciar();
+            }
+        }
+
+        private void vaciar() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        //Agrega el CRC, sincroniza el temporal y lo renombra sobre el destino
+        void terminar() throws IOException {
+            vaciar();
+            buffer.putInt((int) crc.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            canal.force(true);
+            canal.close();
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            terminado = true;
+        }
+
+        //Sin terminar(), descarta el temporal y deja intacta la instantánea anterior
+        @Override
+        public void close() throws IOException {
+            if (!terminado) {
+                canal.close();
+                Files.deleteIfExists(temporal);
+            }
+        }
+    }
+
+    /* ******************************************************************
+     * LECTURA
+     ****************************************************************** */
+
+    //Verifica el CRC, valida la cabecera y entrega el contenido al lector
+    static void leer(Path archivo, Lector lector) throws IOException {
+        ArchivoMapeado mapeado = ArchivoMapeado.abrir(archivo);
+        long posicion = 0;
+        int magia = mapeado.leerInt(posicion);
+        int version = mapeado.leerInt(posicion + 4);
+        if (magia != MAGIA) {
+            throw new IOException("'" + archivo + "' no es una instantánea del inventario");
+        }
+        if (version != VERSION && version != VERSION_SIN_UMBRALES) {
+            throw new IOException("Versión de instantánea no soportada: " + version + " (se esperaba " + VERSION + ")");
+        }
+        boolean conUmbrales = version != VERSION_SIN_UMBRALES;
+        long posicionBitacora = mapeado.leerLong(posicion + 8);
+        int cantidadCategorias = mapeado.leerInt(posicion + 16);
+        int cantidadProductos = mapeado.leerInt(posicion + 20);
+        if (cantidadCategorias < 0 || cantidadProductos < 0) {
+            throw new IOException("Cabecera de instantánea inválida");
+        }
+        posicion += 24;
+        lector.cabecera(posicionBitacora, cantidadCategorias, cantidadProductos, mapeado);
+
+        int productosLeidos = 0;
+        for (int c = 0; c < cantidadCategorias; c++) {
+            String nombre = mapeado.leerTexto(posicion);
+            posicion = mapeado.saltarTexto(posicion);
+            int productosCategoria = mapeado.leerInt(posicion);
+            posicion += 4;
+            if (productosCategoria < 0 || productosCategoria > cantidadProductos - productosLeidos) {
+                throw new IOException("Cantidad de productos inválida en la categoría '" + nombre + "'");
+            }
+            lector.categoria(nombre, productosCategoria);
+            for (int p = 0; p < productosCategoria; p++) {
+                String codigo = mapeado.leerTexto(posicion);
+                long posicionNombre = mapeado.saltarTexto(posicion);
+                posicion = mapeado.saltarTexto(posicionNombre);
+                double precio = mapeado.leerDouble(posicion);
+                int stock = mapeado.leerInt(posicion + 8);
+                int umbral = conUmbrales ? mapeado.leerInt(posicion + 12) : AlmacenProductos.SIN_UMBRAL;
+                posicion += conUmbrales ? 16 : 12;
+                lector.producto(codigo, posicionNombre, precio, stock, umbral);
+            }
+            productosLeidos += productosCategoria;
+        }
+        if (productosLeidos != cantidadProductos || posicion != mapeado.fin) {
+            throw new IOException("El contenido de la instantánea no coincide con su cabecera");
+        }
+        lector.terminar();
+    }
+
+    /*
+    Archivo de instantánea mapeado en memoria, de solo lectura, con lecturas por posición absoluta.
+    Se mapea en ventanas de TAMANIO_VENTANA bytes que se solapan en un texto máximo: cualquier
+    dato que empieza en una ventana termina en ella. Las ventanas siguen siendo válidas después
+    de cerrar el canal (y de que otra instantánea reemplace al archivo), por eso el almacén puede
+    leer de aquí los nombres de productos recién cuando se piden.
+    Las lecturas no modifican la posición de los buffers: varios hilos pueden leer a la vez.
+     */
+    static final class ArchivoMapeado {
+        private final MappedByteBuffer[] ventanas;
+        private final long fin; //Fin de los datos (sin el CRC)
+
+        private ArchivoMapeado(MappedByteBuffer[] ventanas, long fin) {
+            this.ventanas = ventanas;
+            this.fin = fin;
+        }
+
+        static ArchivoMapeado abrir(Path archivo) throws IOException {
+            try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+                long tamanio = canal.size();
+                if (tamanio < 28) {
+                    throw new IOException("La instantánea '" + archivo + "' está incompleta");
+                }
+                long fin = tamanio - 4;
+                MappedByteBuffer[] ventanas = new MappedByteBuffer[(int) ((fin + TAMANIO_VENTANA - 1) / TAMANIO_VENTANA)];
+                CRC32C crc = new CRC32C();
+                for (int i = 0; i < ventanas.length; i++) {
+                    long inicio = i * TAMANIO_VENTANA;
+                    long solapada = Math.min(TAMANIO_VENTANA + SOLAPAMIENTO_VENTANA, fin - inicio);
+                    ventanas[i] = canal.map(FileChannel.MapMode.READ_ONLY, inicio, solapada);
+                    crc.update(ventanas[i].slice(0, (int) Math.min(TAMANIO_VENTANA, solapada)));
+                }
+                ByteBuffer cola = ByteBuffer.allocate(4);
+                while (cola.hasRemaining()) {
+                    if (canal.read(cola, fin + cola.position()) < 0) {
+                        throw new IOException("Fin inesperado de la instantánea");
+                    }
+                }
+                if (cola.getInt(0) != (int) crc.getValue()) {
+                    throw new IOException("La instantánea '" + archivo + "' está dañada (CRC incorrecto)");
+                }
+                return new ArchivoMapeado(ventanas, fin);
+            }
+        }
+
+        //Ventana donde empieza el dato de 'bytes' bytes en 'posicion'
+        private MappedByteBuffer ventana(long posicion, int bytes) throws IOException {
+            if (posicion < 0 || posicion + bytes > fin) {
+                throw new IOException("Fin inesperado de la instantánea en la posición " + posicion);
+            }
+            return ventanas[(int) (posicion / TAMANIO_VENTANA)];
+        }
+
+        private static int desplazamiento(long posicion) {
+            return (int) (posicion % TAMANIO_VENTANA);
+        }
+
+        int leerInt(long posicion) throws IOException {
+            return ventana(posicion, 4).getInt(desplazamiento(posicion));
+        }
+
+        long leerLong(long posicion) throws IOException {
+            return ventana(posicion, 8).getLong(desplazamiento(posicion));
+        }
+
+        double leerDouble(long posicion) throws IOException {
+            return ventana(posicion, 8).getDouble(desplazamiento(posicion));
+        }
+
+        //Texto guardado en 'posicion' (su prefijo de longitud)
+        String leerTexto(long posicion) throws IOException {
+            int longitud = leerLongitudTexto(posicion);
+            if (longitud < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[longitud];
+            ventana(posicion, 4 + longitud).get(desplazamiento(posicion) + 4, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        //Posición siguiente al texto guardado en 'posicion'
+        long saltarTexto(long posicion) throws IOException {
+            return posicion + 4 + Math.max(leerLongitudTexto(posicion), 0);
+        }
+
+        private int leerLongitudTexto(long posicion) throws IOException {
+            int longitud = leerInt(posicion);
+            if (longitud > TAMANIO_TEXTO_MAXIMO || longitud < -1) {
+                throw new IOException("Texto inválido en la instantánea (" + longitud + " bytes)");
+            }
+            return longitud;
+        }
+
+        //Para nombres leídos bajo demanda: el archivo ya se validó al abrirlo
+        String leerTextoDiferido(long posicion) {
+            try {
+                return leerTexto(posicion);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
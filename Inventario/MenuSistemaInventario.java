@@ -1,6 +1,8 @@
 package Inventario;
 
 import java.util.Scanner;
+import Eventos.BusEventos;
+import Eventos.OyenteConsola;
 import LinkedList.MensajeException; // Para manejar excepciones de tu ListaEnlazada/AVL
 
 public class MenuSistemaInventario {
@@ -10,6 +12,7 @@ public class MenuSistemaInventario {
 
     public MenuSistemaInventario() {
         this.scanner = new Scanner(System.in);
+        BusEventos.suscribir(new OyenteConsola()); // Los mensajes de cada operación llegan como eventos
         inicializarSistema();
     }
 
@@ -28,21 +31,35 @@ public class MenuSistemaInventario {
             }
         }
 
+        // Orden de los B+ de cada categoría (0 para usar el valor por defecto)
+        int ordenBTreePlus = -1;
+        while (ordenBTreePlus != 0 && ordenBTreePlus < 3) {
+            System.out.print("Ingrese el orden del B+Tree de cada categoría (0 = " + SistemaInventario.ORDEN_BTREEPLUS_POR_DEFECTO + "): ");
+            ordenBTreePlus = leerInt();
+            if (ordenBTreePlus != 0 && ordenBTreePlus < 3) {
+                System.out.println("El orden debe ser al menos 3.");
+            }
+        }
+        if (ordenBTreePlus == 0) {
+            ordenBTreePlus = SistemaInventario.ORDEN_BTREEPLUS_POR_DEFECTO;
+        }
+
         // Aquí inicializamos el sistema con el valor proporcionado.
         // Las capacidades de las tablas hash se calcularán DENTRO de SistemaInventario.
-        this.sistema = new SistemaInventario(numMaxProductosMatriz);
+        this.sistema = new SistemaInventario(numMaxProductosMatriz, ordenBTreePlus);
 
         System.out.println("\n--- Sistema de Inventario Inicializado ---");
         System.out.println("Máximo Productos en Inventario: " + numMaxProductosMatriz);
         // Opcionalmente, podrías agregar getters en SistemaInventario para mostrar los tamaños de hash calculados.
         // System.out.println("Capacidad Hash Categorías (calculada): " + sistema.getCapacidadHashCategorias());
         // System.out.println("Capacidad Hash Productos Global (calculada): " + sistema.getCapacidadHashProductosGlobal());
-        System.out.println("Orden del B+Tree interno: " + sistema.getOrdenBTreePlus()); // Accedemos directamente a la constante estática
+        System.out.println("Orden del B+Tree interno: " + sistema.getOrdenBTreePlus());
     }
 
     public void mostrarMenu() {
         int opcion;
         do {
+            BusEventos.esperarEntrega(); // Muestra los mensajes de la operación anterior antes del menú
             System.out.println("\n--- MENÚ DE GESTIÓN DE INVENTARIO ---");
             System.out.println("1. Gestión de Categorías");
             System.out.println("2. Gestión de Productos");
@@ -74,6 +91,7 @@ public class MenuSistemaInventario {
     private void menuCategorias() {
         int opcion;
         do {
+            BusEventos.esperarEntrega();
             System.out.println("\n--- GESTIÓN DE CATEGORÍAS ---");
             System.out.println("1. Insertar Categoría");
             System.out.println("2. Buscar Categoría");
@@ -95,8 +113,8 @@ public class MenuSistemaInventario {
                     CategoriaData catData = sistema.buscarCategoria(nombreCatBuscar);
                     if (catData != null) {
                         System.out.println("Categoría encontrada: " + catData.nombreCategoriaOriginal +
-                                " (Hash: " + catData.indiceHashCategoria +
-                                ", Productos: " + catData.productosPorCodigo.getTotalClaves().size() + ")");
+                                " (Id: " + catData.idCategoria +
+                                ", Productos: " + catData.productosPorCodigo.size() + ")");
                     } else {
                         System.out.println("Categoría '" + nombreCatBuscar + "' no encontrada.");
                     }
@@ -122,6 +140,7 @@ public class MenuSistemaInventario {
     private void menuProductos() {
         int opcion;
         do {
+            BusEventos.esperarEntrega();
             System.out.println("\n--- GESTIÓN DE PRODUCTOS ---");
             System.out.println("1. Insertar Producto");
             System.out.println("2. Buscar Producto");
@@ -186,6 +205,7 @@ public class MenuSistemaInventario {
     private void menuReportes() {
         int opcion;
         do {
+            BusEventos.esperarEntrega();
             System.out.println("\n--- REPORTES Y VISUALIZACIÓN ---");
             System.out.println("1. Mostrar todas las Categorías (y cantidad de productos)");
             System.out.println("2. Mostrar Productos por Categoría Específica");
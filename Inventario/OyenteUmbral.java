@@ -0,0 +1,8 @@
+package Inventario;
+
+//Aviso de reposición: se llama cuando el stock de un producto pasa a estar por debajo de su umbral.
+//Se ejecuta en el hilo que hizo el cambio de stock, después de aplicarlo: conviene que sea breve.
+@FunctionalInterface
+public interface OyenteUmbral {
+    void umbralCruzado(String codigoProducto, int stock, int umbral);
+}
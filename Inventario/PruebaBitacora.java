@@ -0,0 +1,247 @@
+package Inventario;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+//Recuperación de la bitácora: cola cortada o dañada, reproducción desde una instantánea y fallas del escritor
+public class PruebaBitacora {
+    private static int fallas = 0;
+
+    public static void main(String[] args) throws IOException {
+        System.out.println("=== Prueba de Bitácora del Inventario ===");
+        Path directorio = Files.createTempDirectory("prueba-bitacora");
+        try {
+            probarColaIncompleta(directorio.resolve("incompleta.log"));
+            probarColaDaniada(directorio.resolve("daniada.log"));
+            probarReproduccionDesdeInstantanea(directorio);
+            probarFallaDelEscritor(directorio.resolve("falla.log"));
+        } finally {
+            try (Stream<Path> archivos = Files.list(directorio)) {
+                for (Path archivo : (Iterable<Path>) archivos::iterator) {
+                    Files.deleteIfExists(archivo);
+                }
+            }
+            Files.deleteIfExists(directorio);
+        }
+
+        System.out.println("\n" + (fallas == 0 ? "Todas las verificaciones pasaron." : fallas + " verificaciones fallaron."));
+        if (fallas > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Una caída a mitad de un registro deja una cola incompleta: se descarta y el archivo se trunca
+    private static void probarColaIncompleta(Path archivo) throws IOException {
+        System.out.println("\n--- Registro incompleto al final ---");
+        long[] posiciones = escribirRegistros(archivo);
+        long finValido = posiciones[posiciones.length - 1];
+
+        // Cabecera que anuncia 100 bytes de los que solo llegaron 10
+        ByteBuffer cola = ByteBuffer.allocate(8 + 10);
+        cola.putInt(100).putInt(0x1234).put(new byte[10]).flip();
+        agregarAlArchivo(archivo, cola);
+        System.out.println("Tamaño con la cola cortada: " + Files.size(archivo));
+
+        Registro estado = new Registro();
+        int reproducidos = reabrir(archivo, estado, 0);
+        verificar("se reproducen los 5 registros completos", reproducidos == 5);
+        verificar("el archivo se trunca en el último registro válido (" + finValido + ")", Files.size(archivo) == finValido);
+        verificar("el stock reproducido es el registrado", estado.stocks.equals(Map.of("A1", 15, "B1", 4)));
+    }
+
+    // Un registro completo pero con el CRC incorrecto también marca el final de la bitácora
+    private static void probarColaDaniada(Path archivo) throws IOException {
+        System.out.println("\n--- Registro final con CRC incorrecto ---");
+        long[] posiciones = escribirRegistros(archivo);
+        long inicioUltimo = posiciones[posiciones.length - 2];
+
+        // Se cambia el último byte del último registro (parte del delta de stock)
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer octeto = ByteBuffer.allocate(1);
+            canal.read(octeto, canal.size() - 1);
+            octeto.flip();
+            byte original = octeto.get(0);
+            octeto.put(0, (byte) (original ^ 0x5A));
+            canal.write(octeto, canal.size() - 1);
+        }
+
+        Registro estado = new Registro();
+        int reproducidos = reabrir(archivo, estado, 0);
+        verificar("se descarta el registro dañado (4 de 5)", reproducidos == 4);
+        verificar("el archivo se trunca al inicio del registro dañado (" + inicioUltimo + ")", Files.size(archivo) == inicioUltimo);
+        verificar("el stock no incluye el delta dañado", estado.stocks.equals(Map.of("A1", 10, "B1", 4)));
+
+        // La bitácora truncada sigue aceptando registros y se reabre completa
+        try (BitacoraInventario bitacora = new BitacoraInventario(archivo, 0, TimeUnit.MICROSECONDS)) {
+            bitacora.reproducir(new Registro(), 0);
+            bitacora.esperarDurable(bitacora.registrarStockSumado("A1", 1));
+        }
+        estado = new Registro();
+        verificar("después de agregar uno nuevo se reproducen 5", reabrir(archivo, estado, 0) == 5);
+        verificar("el nuevo delta quedó aplicado", estado.stocks.get("A1") == 11);
+    }
+
+    // La instantánea guarda hasta qué posición de la bitácora llega: al cargarla solo se
+    // reproducen las operaciones posteriores
+    private static void probarReproduccionDesdeInstantanea(Path directorio) throws IOException {
+        System.out.println("\n--- Reproducción desde la posición de una instantánea ---");
+        Path bitacora = directorio.resolve("sistema.log");
+        Path instantanea = directorio.resolve("sistema.snap");
+
+        SistemaInventario sistema = new SistemaInventario(100, 4, bitacora, 0);
+        sistema.insertarCategoria("Frutas");
+        sistema.insertarProducto(new Producto("F1", "Manzana", "Frutas", 1.5, 10));
+        sistema.insertarProducto(new Producto("F2", "Pera", "Frutas", 2.0, 5));
+        sistema.guardarInstantanea(instantanea);
+        // Operaciones posteriores a la instantánea: solo están en la bitácora
+        sistema.incrementarStock("F1", 7);
+        sistema.eliminarProducto("F2");
+        sistema.insertarProducto(new Producto("F3", "Uva", "Frutas", 3.0, 2));
+        sistema.actualizarPrecioProducto("F3", 3.5);
+        sistema.close();
+
+        SistemaInventario recuperado = SistemaInventario.cargarInstantanea(instantanea, 4, bitacora, 0);
+        verificar("F1 tiene el stock de la instantánea más el incremento", recuperado.obtenerStockProducto("F1") == 17);
+        verificar("F2 eliminado después de la instantánea no reaparece", recuperado.buscarProducto("F2") == null);
+        Producto uva = recuperado.buscarProducto("F3");
+        verificar("F3 agregado después de la instantánea existe con su nuevo precio", uva != null && uva.getPrecio() == 3.5);
+        verificar("la categoría tiene 2 productos", recuperado.obtenerProductosCategoria("Frutas").size() == 2);
+        recuperado.close();
+
+        // Reproducir la bitácora completa desde 0 con el sistema vacío da el mismo estado
+        SistemaInventario desdeCero = new SistemaInventario(100, 4, bitacora, 0);
+        verificar("desde cero se obtiene el mismo stock de F1", desdeCero.obtenerStockProducto("F1") == 17);
+        verificar("desde cero F2 tampoco existe", desdeCero.buscarProducto("F2") == null);
+        desdeCero.close();
+    }
+
+    /*
+    Si el escritor no puede escribir (aquí se lo interrumpe: FileChannel cierra el canal al
+    interrumpirse el hilo que escribe), quien espera la confirmación recibe la falla en lugar
+    de bloquearse, y los registros nuevos se rechazan.
+     */
+    private static void probarFallaDelEscritor(Path archivo) throws IOException {
+        System.out.println("\n--- Falla del escritor ---");
+        BitacoraInventario bitacora = new BitacoraInventario(archivo, 0, TimeUnit.MICROSECONDS);
+        bitacora.reproducir(new Registro(), 0);
+        bitacora.esperarDurable(bitacora.registrarCategoriaAgregada("General"));
+        long durable = bitacora.getPosicionDurable();
+
+        Thread escritor = buscarHilo("bitacora-" + archivo.getFileName());
+        escritor.interrupt();
+        long posicion = bitacora.registrarStockSumado("X", 1);
+        try {
+            bitacora.esperarDurable(posicion);
+            verificar("esperarDurable informa la falla", false);
+        } catch (UncheckedIOException e) {
+            verificar("esperarDurable informa la falla (" + e.getCause().getClass().getSimpleName() + ")", true);
+        }
+        verificar("la posición durable no avanza", bitacora.getPosicionDurable() == durable);
+        try {
+            bitacora.registrarStockSumado("X", 1);
+            verificar("los registros nuevos se rechazan", false);
+        } catch (UncheckedIOException e) {
+            verificar("los registros nuevos se rechazan", true);
+        }
+        try {
+            bitacora.close();
+            verificar("close informa la falla", false);
+        } catch (IOException e) {
+            verificar("close informa la falla", true);
+        }
+        Registro estado = new Registro();
+        verificar("al reabrir solo está el registro confirmado", reabrir(archivo, estado, 0) == 1);
+    }
+
+    /* ******************************************************************
+     * AUXILIARES
+     ****************************************************************** */
+
+    // Escribe 5 registros y retorna la posición donde termina cada uno (índice 0 = inicio)
+    private static long[] escribirRegistros(Path archivo) throws IOException {
+        long[] posiciones = new long[6];
+        try (BitacoraInventario bitacora = new BitacoraInventario(archivo, 0, TimeUnit.MICROSECONDS)) {
+            bitacora.reproducir(new Registro(), 0);
+            posiciones[1] = bitacora.registrarCategoriaAgregada("General");
+            posiciones[2] = bitacora.registrarProductoAgregado("A1", "Arroz", "General", 2.5, 10);
+            posiciones[3] = bitacora.registrarProductoAgregado("B1", "Frijol", "General", 3.0, 4);
+            posiciones[4] = bitacora.registrarPrecioActualizado("A1", 2.75);
+            posiciones[5] = bitacora.registrarStockSumado("A1", 5);
+            bitacora.esperarTodo();
+        }
+        System.out.println("Registros escritos, fin en " + posiciones[5] + " bytes");
+        return posiciones;
+    }
+
+    private static int reabrir(Path archivo, Registro estado, long desde) throws IOException {
+        try (BitacoraInventario bitacora = new BitacoraInventario(archivo, 0, TimeUnit.MICROSECONDS)) {
+            return bitacora.reproducir(estado, desde);
+        }
+    }
+
+    private static void agregarAlArchivo(Path archivo, ByteBuffer datos) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (datos.hasRemaining()) {
+                canal.write(datos);
+            }
+        }
+    }
+
+    private static Thread buscarHilo(String nombre) {
+        for (Thread hilo : Thread.getAllStackTraces().keySet()) {
+            if (hilo.getName().equals(nombre)) {
+                return hilo;
+            }
+        }
+        throw new IllegalStateException("No se encontró el hilo " + nombre);
+    }
+
+    private static void verificar(String descripcion, boolean correcto) {
+        System.out.println((correcto ? "[OK]    " : "[FALLA] ") + descripcion);
+        if (!correcto) {
+            fallas++;
+        }
+    }
+
+    // Reproductor que solo junta el stock por código y los nombres de categoría vistos
+    private static class Registro implements BitacoraInventario.Reproductor {
+        final Map<String, Integer> stocks = new LinkedHashMap<>();
+        final ArrayList<String> categorias = new ArrayList<>();
+
+        public void categoriaAgregada(String nombre) {
+            categorias.add(nombre);
+        }
+
+        public void categoriaEliminada(String nombre) {
+            categorias.remove(nombre);
+        }
+
+        public void productoAgregado(String codigo, String nombre, String categoria, double precio, int stock) {
+            stocks.put(codigo, stock);
+        }
+
+        public void productoEliminado(String codigo) {
+            stocks.remove(codigo);
+        }
+
+        public void stockSumado(String codigo, int delta) {
+            stocks.merge(codigo, delta, Integer::sum);
+        }
+
+        public void precioActualizado(String codigo, double precio) {
+        }
+
+        public void umbralEstablecido(String codigo, int umbral) {
+        }
+    }
+}
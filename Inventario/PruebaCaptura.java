@@ -0,0 +1,174 @@
+package Inventario;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+Instantánea en segundo plano con captura por copia en escritura: mientras el hilo
+"instantanea-inventario" escribe el archivo, otros hilos eliminan y reinsertan productos (se
+reutilizan sus handles), agregan productos hasta que almacén y matriz crecen, cambian precios,
+umbrales y stock y reemplazan una categoría. El archivo cargado debe coincidir con el estado del
+instante de la captura, no con el estado final.
+ */
+public class PruebaCaptura {
+    private static final int CATEGORIAS = 10;
+    private static int fallas = 0;
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        System.out.println("=== Prueba de Instantánea en Segundo Plano (copia en escritura) ===");
+        System.out.println("Productos: " + cantidad);
+
+        // Capacidad justa: las altas durante la escritura obligan a duplicar almacén y matriz
+        SistemaInventarioConcurrente sistema = new SistemaInventarioConcurrente(cantidad, 32, 64);
+        ArrayList<Producto> productos = new ArrayList<>(cantidad);
+        for (int c = 0; c < CATEGORIAS; c++) {
+            sistema.insertarCategoria("Categoria" + c);
+        }
+        for (int i = 0; i < cantidad; i++) {
+            productos.add(new Producto("P" + i, "Producto " + i, "Categoria" + (i % CATEGORIAS), 1 + i % 97, i % 500));
+        }
+        sistema.cargarProductosMasivo(productos);
+        for (int i = 0; i < cantidad; i += 3) {
+            sistema.establecerUmbralReposicion("P" + i, i % 50);
+        }
+
+        // Estado esperado: el del instante de la captura (nadie modifica el sistema hasta después)
+        Map<String, Producto> esperados = new HashMap<>(cantidad * 2);
+        for (int c = 0; c < CATEGORIAS; c++) {
+            for (Producto producto : sistema.obtenerProductosCategoria("Categoria" + c)) {
+                esperados.put(producto.getCodigoProducto(), producto);
+            }
+        }
+
+        Path archivo = Files.createTempFile("prueba-captura", ".snap");
+        try {
+            AtomicInteger modificaciones = new AtomicInteger();
+            AtomicInteger duranteEscritura = new AtomicInteger();
+            long inicio = System.nanoTime();
+            CompletableFuture<Void> escritura = sistema.guardarInstantaneaEnSegundoPlano(archivo);
+            escritura.whenComplete((r, e) -> duranteEscritura.set(modificaciones.get()));
+            Thread estructura = new Thread(() -> modificarEstructura(sistema, cantidad, modificaciones));
+            Thread stock = new Thread(() -> modificarStock(sistema, cantidad, modificaciones));
+            estructura.start();
+            stock.start();
+            escritura.get();
+            double milisegundos = (System.nanoTime() - inicio) / 1e6;
+            estructura.join();
+            stock.join();
+            System.out.printf("Escritura: %.0f ms; modificaciones hechas mientras se escribía: %d de %d%n",
+                    milisegundos, duranteEscritura.get(), modificaciones.get());
+
+            verificar("hubo modificaciones durante la escritura", duranteEscritura.get() > 0);
+            verificar("el sistema en vivo sí cambió (P2 eliminado)", sistema.buscarProducto("P2") == null);
+            verificarInstantanea(archivo, esperados);
+        } finally {
+            Files.deleteIfExists(archivo);
+            sistema.close();
+        }
+
+        System.out.println("\n" + (fallas == 0 ? "Todas las verificaciones pasaron." : fallas + " verificaciones fallaron."));
+        if (fallas > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Bajas, reinserciones con otros datos, altas que fuerzan el crecimiento, precios, umbrales y categorías
+    private static void modificarEstructura(SistemaInventarioConcurrente sistema, int cantidad, AtomicInteger operaciones) {
+        for (int i = 0; i < cantidad; i += 2) {
+            sistema.eliminarProducto("P" + i);
+            sistema.insertarProducto(new Producto("N" + i, "Nuevo " + i, "Categoria1", 999, 7));
+            if (i % 4 == 0) {
+                sistema.insertarProducto(new Producto("P" + i, "Reinsertado " + i, "Categoria2", 555, 3));
+            }
+            operaciones.incrementAndGet();
+        }
+        for (int i = 1; i < cantidad; i += 4) {
+            sistema.actualizarPrecioProducto("P" + i, 12345);
+            sistema.establecerUmbralReposicion("P" + i, 1000);
+            operaciones.incrementAndGet();
+        }
+        sistema.eliminarCategoria("Categoria9");
+        sistema.insertarCategoria("Categoria9");
+        sistema.insertarCategoria("Posterior");
+        sistema.insertarProducto(new Producto("X", "Posterior", "Posterior", 1, 1));
+    }
+
+    private static void modificarStock(SistemaInventarioConcurrente sistema, int cantidad, AtomicInteger operaciones) {
+        Random aleatorio = new Random(42);
+        for (int k = 0; k < cantidad; k++) {
+            String codigo = "P" + aleatorio.nextInt(cantidad);
+            if (aleatorio.nextBoolean()) {
+                sistema.actualizarStockProducto(codigo, aleatorio.nextInt(10000));
+            } else {
+                sistema.incrementarStock(codigo, 1 + aleatorio.nextInt(10));
+            }
+            operaciones.incrementAndGet();
+        }
+    }
+
+    private static void verificarInstantanea(Path archivo, Map<String, Producto> esperados) throws IOException {
+        SistemaInventario cargado = SistemaInventario.cargarInstantanea(archivo, 32);
+        int distintos = 0;
+        String primeraDiferencia = null;
+        for (Producto esperado : esperados.values()) {
+            Producto leido = cargado.buscarProducto(esperado.getCodigoProducto());
+            if (leido == null || !leido.getNombre().equals(esperado.getNombre())
+                    || !leido.getCategoria().equals(esperado.getCategoria())
+                    || leido.getPrecio() != esperado.getPrecio()
+                    || leido.getStockDisponible() != esperado.getStockDisponible()) {
+                distintos++;
+                if (primeraDiferencia == null) {
+                    primeraDiferencia = esperado + " / " + leido;
+                }
+            }
+        }
+        verificar("los " + esperados.size() + " productos tienen los datos de la captura"
+                + (primeraDiferencia == null ? "" : " (" + distintos + " distintos, p. ej. " + primeraDiferencia + ")"), distintos == 0);
+
+        int umbralesDistintos = 0;
+        for (String codigo : esperados.keySet()) {
+            int indice = Integer.parseInt(codigo.substring(1));
+            int umbralEsperado = indice % 3 == 0 ? indice % 50 : AlmacenProductos.SIN_UMBRAL;
+            if (cargado.obtenerUmbralReposicion(codigo) != umbralEsperado) {
+                umbralesDistintos++;
+            }
+        }
+        verificar("los umbrales son los de la captura", umbralesDistintos == 0);
+
+        int total = 0;
+        for (int c = 0; c < CATEGORIAS; c++) {
+            total += cargado.obtenerProductosCategoria("Categoria" + c).size();
+        }
+        verificar("no hay productos agregados después de la captura", total == esperados.size()
+                && cargado.buscarProducto("N0") == null && cargado.buscarProducto("X") == null);
+        verificar("la categoría creada después no está", cargado.buscarCategoria("Posterior") == null);
+        verificar("la categoría reemplazada conserva sus productos",
+                cargado.obtenerProductosCategoria("Categoria9").size() == contarCategoria(esperados, "Categoria9"));
+    }
+
+    private static int contarCategoria(Map<String, Producto> productos, String categoria) {
+        int cantidad = 0;
+        for (Producto producto : productos.values()) {
+            if (producto.getCategoria().equals(categoria)) {
+                cantidad++;
+            }
+        }
+        return cantidad;
+    }
+
+    private static void verificar(String descripcion, boolean correcto) {
+        System.out.println((correcto ? "[OK]    " : "[FALLA] ") + descripcion);
+        if (!correcto) {
+            fallas++;
+        }
+    }
+}
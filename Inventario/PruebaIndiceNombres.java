@@ -0,0 +1,63 @@
+package Inventario;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//Búsqueda por prefijo de nombre: orden, límite, mayúsculas, espacios externos y bajas
+public class PruebaIndiceNombres {
+    private static int fallas = 0;
+
+    public static void main(String[] args) {
+        System.out.println("=== Prueba de Búsqueda por Prefijo de Nombre ===");
+        SistemaInventario sistema = new SistemaInventario(100, 4);
+        sistema.insertarCategoria("General");
+        sistema.insertarProducto(new Producto("P1", "Manzana roja", "General", 1.0, 10));
+        sistema.insertarProducto(new Producto("P2", "manzana verde", "General", 1.0, 10));
+        sistema.insertarProducto(new Producto("P3", "Mango", "General", 1.0, 10));
+        sistema.insertarProducto(new Producto("P4", "Pera", "General", 1.0, 10));
+        sistema.insertarProducto(new Producto("P0", "Manzana roja", "General", 1.0, 10));
+        // Espacios externos: uno ASCII y uno Unicode (em space), que trim() no recorta
+        sistema.insertarProducto(new Producto("P5", "  Mandarina", "General", 1.0, 10));
+        sistema.insertarProducto(new Producto("P6", "\u2003Maracuyá\u2003", "General", 1.0, 10));
+
+        System.out.println("\n--- Consultas ---");
+        verificar("'man' en orden de nombre y, a igual nombre, por código",
+                codigos(sistema.buscarPorPrefijoNombre("man", 10)), List.of("P5", "P3", "P0", "P1", "P2"));
+        verificar("sin distinguir mayúsculas", codigos(sistema.buscarPorPrefijoNombre("MANZANA V", 10)), List.of("P2"));
+        verificar("el límite corta el recorrido", codigos(sistema.buscarPorPrefijoNombre("ma", 2)), List.of("P5", "P3"));
+        verificar("nombre con espacios ASCII al inicio", codigos(sistema.buscarPorPrefijoNombre("mand", 10)), List.of("P5"));
+        verificar("nombre con em space se encuentra sin él", codigos(sistema.buscarPorPrefijoNombre("mara", 10)), List.of("P6"));
+        verificar("prefijo con em space al inicio", codigos(sistema.buscarPorPrefijoNombre("\u2003mar", 10)), List.of("P6"));
+        verificar("prefijo inexistente", codigos(sistema.buscarPorPrefijoNombre("kiwi", 10)), List.of());
+        verificar("prefijo vacío: todos en orden", codigos(sistema.buscarPorPrefijoNombre("", 10)),
+                List.of("P5", "P3", "P0", "P1", "P2", "P6", "P4"));
+
+        System.out.println("\n--- Bajas y altas después de armar el índice ---");
+        sistema.eliminarProducto("P3");
+        sistema.eliminarProducto("P0");
+        sistema.insertarProducto(new Producto("P7", "Manzanilla", "General", 1.0, 10));
+        verificar("'man' sin los eliminados y con el nuevo",
+                codigos(sistema.buscarPorPrefijoNombre("man", 10)), List.of("P5", "P1", "P2", "P7"));
+
+        System.out.println("\n" + (fallas == 0 ? "Todas las verificaciones pasaron." : fallas + " verificaciones fallaron."));
+        if (fallas > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static List<String> codigos(ArrayList<Producto> productos) {
+        ArrayList<String> codigos = new ArrayList<>();
+        for (Producto producto : productos) {
+            codigos.add(producto.getCodigoProducto());
+        }
+        return codigos;
+    }
+
+    private static void verificar(String descripcion, List<String> obtenidos, List<String> esperados) {
+        boolean correcto = obtenidos.equals(esperados);
+        System.out.println((correcto ? "[OK]    " : "[FALLA] ") + descripcion + ": " + obtenidos);
+        if (!correcto) {
+            fallas++;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package Inventario;
+
+//Totales de una categoría en un instante: cantidad de productos, unidades en stock y valor (precio * stock)
+public class ResumenCategoria {
+    private final String nombreCategoria;
+    private final int cantidadProductos;
+    private final long unidades;
+    private final double valor;
+
+    public ResumenCategoria(String nombreCategoria, int cantidadProductos, long unidades, double valor) {
+        this.nombreCategoria = nombreCategoria;
+        this.cantidadProductos = cantidadProductos;
+        this.unidades = unidades;
+        this.valor = valor;
+    }
+
+    public String getNombreCategoria() { return nombreCategoria; }
+
+    public int getCantidadProductos() { return cantidadProductos; }
+
+    public long getUnidades() { return unidades; }
+
+    public double getValor() { return valor; }
+
+    public String toString() {
+        return String.format("Categoria{nombre='%s', productos=%d, unidades=%d, valor=%.2f}",
+                nombreCategoria, cantidadProductos, unidades, valor);
+    }
+}
@@ -1,153 +1,230 @@
 package Inventario;
 
-import Excepciones.*;
-import AVLTree.AVLTree;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import Hash.HashSondeoLineal;
-import Hash.HashEncadenamiento;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import Eventos.BusEventos;
+import Eventos.TipoEvento;
 import LinkedList.MensajeException;
-import MatrizDispersa.MatrizDispersa;
+import MatrizDispersa.MatrizDispersaInt;
 
-public class SistemaInventario {
-    private final int ORDEN_BTREEPLUS = 5;
+public class SistemaInventario implements AutoCloseable {
+    // Orden de los B+ de cada categoría: con nodos sobre arreglos y búsqueda binaria conviene
+    // un orden alto (64-256), así una búsqueda toca pocos nodos grandes y contiguos
+    public static final int ORDEN_BTREEPLUS_POR_DEFECTO = 64;
+    private final int ordenBTreePlus;
+    // Las hojas quedan al 90%: deja lugar para inserciones posteriores sin dividir de inmediato
+    private static final double FACTOR_LLENADO_CARGA_MASIVA = 0.9;
+    // Límite de filas de la matriz y del almacén (margen bajo Integer.MAX_VALUE para los arreglos)
+    private static final int CAPACIDAD_MAXIMA_PRODUCTOS = Integer.MAX_VALUE - 8;
 
-    private HashSondeoLineal<String> hashCategorias;
-    private AVLTree<CategoriaData> arbolCategoriasProductos;
-    private MatrizDispersa<Integer> matrizStocks;
+    // Nombre normalizado -> id denso -> CategoriaData, resuelto con una sola búsqueda en una tabla
+    private DirectorioCategorias directorioCategorias;
+    // Cada producto tiene un handle estable en el almacén (código, nombre, categoría y precio en
+    // arreglos paralelos) y su stock está en la fila de la matriz con el mismo número.
+    // Los B+ de las categorías guardan solo handles. Las filas liberadas se reutilizan y, si no
+    // queda ninguna, almacén y matriz duplican su capacidad (numMaxProductosMatriz es solo la inicial).
+    private AlmacenProductos almacenProductos;
+    private MatrizDispersaInt matrizStocks;
     private final int COLUMNA_STOCK = 0;
+    // Índice global por (precio, código) para rangos y top-N; se arma en la primera consulta
+    private IndicePrecios indicePrecios;
+    // Trie comprimido de nombres normalizados para búsquedas por prefijo; también se arma al consultarlo
+    private IndiceNombres indiceNombres;
+    // Montículo indexado por stock - umbral de los productos con umbral de reposición
+    private IndiceUmbrales indiceUmbrales;
+    // Bitácora de escritura anticipada (null = sin durabilidad). Cada operación exitosa se
+    // registra y, salvo confirmación diferida, espera a que su grupo se sincronice en disco.
+    private BitacoraInventario bitacora;
+    private boolean confirmacionDiferida;
 
-    // AHORA: HashEncadenamiento para almacenar objetos ProductoFilaMapping
-    private HashEncadenamiento<ProductoFilaMapeo> mapeoCodigoProductoFila;
-    private int proximaFilaDisponibleMatriz = 0;
+    // Constructor
+    public SistemaInventario(int numMaxProductosMatriz) {
+        this(numMaxProductosMatriz, ORDEN_BTREEPLUS_POR_DEFECTO);
+    }
+
+    // Constructor con el orden de los B+ de categoría ajustado al tamaño del catálogo
+    public SistemaInventario(int numMaxProductosMatriz, int ordenBTreePlus) {
+        if (ordenBTreePlus < 3) {
+            throw new IllegalArgumentException("El orden del B+ debe ser al menos 3: " + ordenBTreePlus);
+        }
+        this.ordenBTreePlus = ordenBTreePlus;
+        int capacidadCategoriasCalculada = Math.max(10, numMaxProductosMatriz / 10); // Mínimo 10, o 10% de productos (el directorio crece si hace falta)
+        int capacidadProductos = numMaxProductosMatriz + 50;
 
-    // También necesitamos un HashEncadenamiento para almacenar los objetos Producto completos
-    // Esto es vital para 'buscarProducto' globalmente y obtener todos sus datos.
-    private HashEncadenamiento<Producto> hashProductosGlobal;
+        this.directorioCategorias = new DirectorioCategorias(capacidadCategoriasCalculada);
+        this.almacenProductos = new AlmacenProductos(capacidadProductos);
+        this.indicePrecios = new IndicePrecios(almacenProductos, ordenBTreePlus);
+        this.indiceNombres = new IndiceNombres(almacenProductos);
+        // Columna int[] con mapa de bits de presencia: actualizar el stock no crea objetos ni hace boxing
+        this.matrizStocks = new MatrizDispersaInt(capacidadProductos, 1, 0);
+        this.indiceUmbrales = new IndiceUmbrales(almacenProductos, matrizStocks, COLUMNA_STOCK);
+    }
 
+    /*
+    Constructor con bitácora: reproduce las operaciones guardadas en el archivo (si existe) y
+    registra en él cada operación posterior. esperaGrupoMicros es cuánto espera el escritor de
+    la bitácora para juntar las operaciones de varios hilos en un mismo fsync (0 = sin esperar).
+     */
+    public SistemaInventario(int numMaxProductosMatriz, int ordenBTreePlus, Path archivoBitacora, long esperaGrupoMicros) throws IOException {
+        this(numMaxProductosMatriz, ordenBTreePlus);
+        abrirBitacora(archivoBitacora, esperaGrupoMicros, 0);
+    }
 
-    // Constructor
-    public SistemaInventario(int numMaxProductosMatriz) {
-        int capacidadHashCategoriasCalculada = Math.max(10, numMaxProductosMatriz / 10); // Mínimo 10, o 10% de productos
+    // Reproduce la bitácora desde la posición indicada y la deja registrando las operaciones nuevas
+    private void abrirBitacora(Path archivoBitacora, long esperaGrupoMicros, long desde) throws IOException {
+        BitacoraInventario abierta = new BitacoraInventario(archivoBitacora, esperaGrupoMicros, TimeUnit.MICROSECONDS);
+        try {
+            int reproducidas = abierta.reproducir(new ReproductorBitacora(), desde);
+            BusEventos.publicar(TipoEvento.BITACORA_RECUPERADA, archivoBitacora, reproducidas);
+        } catch (IOException | RuntimeException e) {
+            try {
+                abierta.close();
+            } catch (IOException ignorada) {
+                e.addSuppressed(ignorada);
+            }
+            throw e;
+        }
+        this.bitacora = abierta;
+    }
+
+    public boolean tieneBitacora() {
+        return bitacora != null;
+    }
 
-        // Para HashEncadenamiento (productos globales y mapeo producto-fila):
-        // Si el máximo de productos es 2000, entonces el tamaño de la tabla HashEncadenamiento será 4000.
-        int capacidadHashEncadenamientoCalculada = numMaxProductosMatriz * 2; // El doble del máximo de productos
+    // Confirma en disco lo pendiente de la bitácora y la cierra; el sistema sigue usable sin registrar
+    @Override
+    public void close() throws IOException {
+        if (bitacora != null) {
+            BitacoraInventario cerrada = bitacora;
+            bitacora = null;
+            cerrada.close();
+        }
+    }
 
-        this.hashCategorias = new HashSondeoLineal<>(capacidadHashCategoriasCalculada);
-        this.arbolCategoriasProductos = new AVLTree<CategoriaData>(); // El AVL no tiene tamaño fijo por constructor
-        this.hashProductosGlobal = new HashEncadenamiento<>(capacidadHashEncadenamientoCalculada);
-        this.matrizStocks = new MatrizDispersa<>(numMaxProductosMatriz + 50, 1, 0);
-        this.mapeoCodigoProductoFila = new HashEncadenamiento<>(capacidadHashEncadenamientoCalculada);
+    // Con confirmación diferida las operaciones no esperan el fsync: quien llama debe usar
+    // esperarBitacora() (SistemaInventarioConcurrente lo hace después de soltar sus bloqueos)
+    void setConfirmacionDiferida(boolean confirmacionDiferida) {
+        this.confirmacionDiferida = confirmacionDiferida;
+    }
 
+    // Espera a que todo lo registrado hasta ahora esté sincronizado en disco
+    void esperarBitacora() {
+        BitacoraInventario actual = bitacora;
+        if (actual != null) {
+            actual.esperarTodo();
+        }
     }
 
+    private void confirmar(long posicion) {
+        if (!confirmacionDiferida) {
+            bitacora.esperarDurable(posicion);
+        }
+    }
+
+    // Filas libres antes de que haga falta ampliar la capacidad
     public int getCapacidadDisponible() {
-        return matrizStocks.getFilas() - proximaFilaDisponibleMatriz;
+        return almacenProductos.capacidad() - almacenProductos.cantidad();
     }
 
     public boolean tieneCapacidadDisponible() {
-        return proximaFilaDisponibleMatriz < matrizStocks.getFilas();
+        return !almacenProductos.estaLleno();
+    }
+
+    public int getCapacidadProductos() {
+        return almacenProductos.capacidad();
+    }
+
+    // Amplía almacén y matriz (al doble, o más si hace falta) para que entren 'productosNuevos' más.
+    // La matriz solo agrega bloques de filas: las celdas de stock existentes no se copian.
+    private boolean asegurarCapacidad(int productosNuevos) {
+        long necesaria = (long) almacenProductos.cantidad() + productosNuevos;
+        int capacidad = almacenProductos.capacidad();
+        if (necesaria <= capacidad) {
+            return true;
+        }
+        if (necesaria > CAPACIDAD_MAXIMA_PRODUCTOS) {
+            BusEventos.publicar(TipoEvento.CAPACIDAD_AGOTADA, null, CAPACIDAD_MAXIMA_PRODUCTOS);
+            return false;
+        }
+        long nuevaCapacidad = capacidad;
+        while (nuevaCapacidad < necesaria) {
+            nuevaCapacidad = Math.min(nuevaCapacidad * 2, CAPACIDAD_MAXIMA_PRODUCTOS);
+        }
+        almacenProductos.crecer((int) nuevaCapacidad);
+        matrizStocks.agregarFilas((int) nuevaCapacidad - matrizStocks.getFilas());
+        indiceUmbrales.crecer((int) nuevaCapacidad);
+        BusEventos.publicar(TipoEvento.CAPACIDAD_AMPLIADA, null, nuevaCapacidad);
+        return true;
     }
 
     public int getOrdenBTreePlus() {
-        return ORDEN_BTREEPLUS;
+        return ordenBTreePlus;
     }
 
     /* ******************************************************************
-     * GESTIÓN DE CATEGORÍAS (sin cambios relevantes en esta sección)
+     * GESTIÓN DE CATEGORÍAS
      ****************************************************************** */
 
     public boolean insertarCategoria(String nombreCategoria) {
-        if (nombreCategoria == null || nombreCategoria.trim().isEmpty()) {
-            System.out.println("El nombre de la categoría no puede estar vacío.");
+        if (DirectorioCategorias.esNombreVacio(nombreCategoria)) {
+            BusEventos.publicar(TipoEvento.DATOS_INVALIDOS, null, "El nombre de la categoría no puede estar vacío.", 0, 0);
             return false;
         }
 
-        int indiceHash = hashCategorias.principal(nombreCategoria);
-
-        CategoriaData busquedaCatData = null;
-        try {
-            busquedaCatData = arbolCategoriasProductos.search(new CategoriaData(indiceHash, "", ORDEN_BTREEPLUS));
-            if (busquedaCatData != null) {
-                if (busquedaCatData.nombreCategoriaOriginal.equalsIgnoreCase(nombreCategoria)) {
-                    System.out.println("La categoría '" + nombreCategoria + "' ya existe.");
-                    return false;
-                } else {
-                    System.err.println("¡Colisión de hash! La categoría '" + nombreCategoria + "' tiene el mismo hash (" + indiceHash + ") que '" + busquedaCatData.nombreCategoriaOriginal + "'. Considera ajustar la función hash o aumentar la capacidad de la tabla hash de categorías.");
-                    return false;
-                }
-            }
-        } catch (ItemNotFound ignored) {
-            // No encontrado, se puede insertar.
-        } catch (Exception e) {
-            System.err.println("Error al buscar categoría en AVL: " + e.getMessage());
+        // Los nombres se comparan completos: dos categorías distintas nunca chocan entre sí
+        CategoriaData nuevaCatData = directorioCategorias.agregar(nombreCategoria, ordenBTreePlus, almacenProductos.ordenPorCodigo());
+        if (nuevaCatData == null) {
+            BusEventos.publicar(TipoEvento.CATEGORIA_DUPLICADA, nombreCategoria);
             return false;
         }
-
-        if (!hashCategorias.insertar(nombreCategoria)) {
-            System.err.println("Error al insertar categoría en la tabla hash de categorías: " + nombreCategoria);
-            return false;
-        }
-
-        CategoriaData nuevaCatData = new CategoriaData(indiceHash, nombreCategoria, ORDEN_BTREEPLUS);
-        try {
-            arbolCategoriasProductos.insert(nuevaCatData);
-            System.out.println("Categoría '" + nombreCategoria + "' insertada con hash: " + indiceHash);
-            return true;
-        } catch (ItemDuplicated e) {
-            System.err.println("Error inesperado: Categoría duplicada en AVL: " + e.getMessage());
-            hashCategorias.eliminar(nombreCategoria);
-            return false;
+        if (bitacora != null) {
+            confirmar(bitacora.registrarCategoriaAgregada(nuevaCatData.nombreCategoriaOriginal));
         }
+        BusEventos.publicar(TipoEvento.CATEGORIA_INSERTADA, nuevaCatData.nombreCategoriaOriginal, nuevaCatData.idCategoria);
+        return true;
     }
 
+    // Una sola búsqueda en el directorio, sin crear objetos
     public CategoriaData buscarCategoria(String nombreCategoria) {
-        if (nombreCategoria == null || nombreCategoria.trim().isEmpty()) {
-            return null;
-        }
-        int indiceHash = hashCategorias.principal(nombreCategoria);
-        try {
-            CategoriaData encontrado = arbolCategoriasProductos.search(new CategoriaData(indiceHash, "", ORDEN_BTREEPLUS));
-            if (encontrado != null && encontrado.nombreCategoriaOriginal.equalsIgnoreCase(nombreCategoria)) {
-                return encontrado;
-            }
-        } catch (ItemNotFound e) {
-            // Categoría no encontrada
-        }
-        return null;
+        return directorioCategorias.buscar(nombreCategoria);
+    }
+
+    public int getCantidadCategorias() {
+        return directorioCategorias.cantidad();
     }
 
     public boolean eliminarCategoria(String nombreCategoria) {
-        if (nombreCategoria == null || nombreCategoria.trim().isEmpty()) {
+        if (DirectorioCategorias.esNombreVacio(nombreCategoria)) {
             return false;
         }
 
-        CategoriaData catDataAEliminar = buscarCategoria(nombreCategoria);
+        CategoriaData catDataAEliminar = directorioCategorias.eliminar(nombreCategoria);
         if (catDataAEliminar == null) {
-            System.out.println("La categoría '" + nombreCategoria + "' no existe.");
+            BusEventos.publicar(TipoEvento.CATEGORIA_NO_ENCONTRADA, nombreCategoria);
             return false;
         }
+        BusEventos.publicar(TipoEvento.CATEGORIA_ELIMINADA, catDataAEliminar.nombreCategoriaOriginal);
+        liberarProductosCategoria(catDataAEliminar);
+        if (bitacora != null) {
+            confirmar(bitacora.registrarCategoriaEliminada(catDataAEliminar.nombreCategoriaOriginal));
+        }
+        return true;
+    }
 
-        boolean eliminadoHash = hashCategorias.eliminar(nombreCategoria);
-
-        try {
-            arbolCategoriasProductos.delete(catDataAEliminar);
-            System.out.println("Categoría '" + nombreCategoria + "' eliminada del AVL.");
-
-            ArrayList<Producto> productosEliminados = catDataAEliminar.productosPorCodigo.getTotalClaves();
-            for (Producto p : productosEliminados) {
-                hashProductosGlobal.eliminarClave(p);
-                // Usamos la nueva clase ProductoFilaMapeo para la eliminación
-                mapeoCodigoProductoFila.eliminarClave(new ProductoFilaMapeo(p.getCodigoProducto()));
-                Integer filaProducto = getFilaProductoMatriz(p.getCodigoProducto()); // Esto aún usa el valor anterior o null
-                if (filaProducto != null) {
-                    matrizStocks.eliminar(filaProducto, COLUMNA_STOCK);
-                }
-            }
-            return eliminadoHash;
-        } catch (ExceptionIsEmpty e) {
-            System.err.println("Error: El AVL de categorías está vacío. " + e.getMessage());
-            return false;
+    // El B+ de la categoría ya no se modifica: se recorre con el cursor sin copiarlo
+    private void liberarProductosCategoria(CategoriaData categoria) {
+        for (int handle : categoria.productosPorCodigo) {
+            indicePrecios.quitar(handle);
+            indiceNombres.quitar(handle);
+            indiceUmbrales.quitar(handle);
+            matrizStocks.eliminar(handle, COLUMNA_STOCK);
+            almacenProductos.eliminar(handle);
         }
     }
 
@@ -155,177 +232,799 @@ public class SistemaInventario {
      * GESTIÓN DE PRODUCTOS (AQUÍ ESTÁN LOS CAMBIOS IMPORTANTES)
      ****************************************************************** */
 
+    // Nulo o solo espacios (Character.isWhitespace): la misma regla para las operaciones
+    // individuales y por lote
+    private static boolean esCodigoVacio(String codigo) {
+        return codigo == null || codigo.isBlank();
+    }
+
     public boolean insertarProducto(Producto producto) {
         if (producto == null) {
-            System.out.println("El producto no puede ser nulo.");
+            BusEventos.publicar(TipoEvento.DATOS_INVALIDOS, null, "El producto no puede ser nulo.", 0, 0);
+            return false;
+        }
+        String codigo = producto.getCodigoProducto();
+        if (esCodigoVacio(codigo)) {
+            BusEventos.publicar(TipoEvento.DATOS_INVALIDOS, null, "El código de producto no puede estar vacío.", 0, 0);
             return false;
         }
 
         CategoriaData categoriaDelProducto = buscarCategoria(producto.getCategoria());
         if (categoriaDelProducto == null) {
-            System.out.println("La categoría '" + producto.getCategoria() + "' no existe. Por favor, insértela primero.");
+            BusEventos.publicar(TipoEvento.CATEGORIA_NO_ENCONTRADA, producto.getCategoria());
             return false;
         }
 
-        // Primero, verificar si el producto ya existe globalmente
-        if (buscarProducto(producto.getCodigoProducto()) != null) {
-            System.out.println("Error: El producto con código '" + producto.getCodigoProducto() + "' ya existe.");
+        if (almacenProductos.buscar(codigo) != AlmacenProductos.SIN_HANDLE) {
+            BusEventos.publicar(TipoEvento.PRODUCTO_DUPLICADO, codigo);
             return false;
         }
 
-        // VALIDACIÓN AGREGADA: Verificar si hay espacio en la matriz
-        if (proximaFilaDisponibleMatriz >= matrizStocks.getFilas()) {
-            System.err.println("Error: No hay más espacio en la matriz de stocks. Capacidad máxima alcanzada (" + matrizStocks.getFilas() + " productos).");
+        int handle = agregarProducto(codigo, producto.getNombre(), categoriaDelProducto, producto.getPrecio(), producto.getStockDisponible());
+        if (handle == AlmacenProductos.SIN_HANDLE) {
             return false;
         }
+        if (bitacora != null) {
+            confirmar(bitacora.registrarProductoAgregado(codigo, producto.getNombre(),
+                    categoriaDelProducto.nombreCategoriaOriginal, producto.getPrecio(), producto.getStockDisponible()));
+        }
 
-        // 1. Insertar en el BTreePlus de su categoría
-        categoriaDelProducto.productosPorCodigo.insert(producto);
+        BusEventos.publicar(TipoEvento.PRODUCTO_INSERTADO, codigo, producto.getNombre(), handle, 0);
+        return true;
+    }
 
-        // 2. Insertar en el HashGlobal de productos (para búsqueda rápida por código en todo el sistema)
-        try {
-            if (!hashProductosGlobal.insertarClave(producto)) {
-                // Si la inserción global falla, revertir inserción en BTreePlus
-                categoriaDelProducto.productosPorCodigo.remove(producto);
-                System.err.println("Error: No se pudo insertar el producto globalmente (posible duplicado, o problema de rehashing).");
-                return false;
+    // Una sola alta en el índice principal; la fila de la matriz es el handle asignado
+    // (la fila libre más baja, que puede ser la de un producto eliminado).
+    // Retorna SIN_HANDLE si no se pudo ampliar la capacidad.
+    private int agregarProducto(String codigo, String nombre, CategoriaData categoria, double precio, int stock) {
+        if (!asegurarCapacidad(1)) {
+            return AlmacenProductos.SIN_HANDLE;
+        }
+        int handle = almacenProductos.agregar(codigo, nombre, categoria.idCategoria, precio);
+        matrizStocks.establecer(handle, COLUMNA_STOCK, stock);
+        categoria.productosPorCodigo.insert(handle);
+        categoria.acumular(stock, precio * stock);
+        indicePrecios.agregar(handle);
+        indiceNombres.agregar(handle);
+        return handle;
+    }
+
+    /*
+    Carga masiva de productos (arranque en frío del catálogo).
+    Los productos se ordenan por categoría y código, se registran en el almacén y en la
+    matriz de stocks, y cada categoría arma su B+ con bulkLoad en lugar de insertar uno por uno.
+    La capacidad se amplía una sola vez al principio si los productos no entran.
+    Se omiten (y se cuentan) los productos nulos, sin categoría existente o con código repetido.
+    Retorna la cantidad de productos cargados.
+     */
+    public int cargarProductosMasivo(Collection<Producto> productos) {
+        if (productos == null || productos.isEmpty()) {
+            return 0;
+        }
+
+        ArrayList<Producto> ordenados = new ArrayList<>(productos.size());
+        int omitidos = 0;
+        for (Producto p : productos) {
+            if (p == null || esCodigoVacio(p.getCodigoProducto()) || p.getCategoria() == null) {
+                omitidos++;
+            } else {
+                ordenados.add(p);
             }
-        } catch (MensajeException e) {
-            System.err.println("Error al insertar producto en hash global: " + e.getMessage());
-            try { categoriaDelProducto.productosPorCodigo.remove(producto); } catch (Exception ignored) {}
-            return false;
         }
+        // Mismo orden por código que los B+ de las categorías
+        if (!asegurarCapacidad(ordenados.size())) {
+            return 0;
+        }
+        ordenados.sort(Comparator.comparing(Producto::getCategoria)
+                .thenComparing(Producto::getCodigoProducto, AlmacenProductos::compararCodigos));
 
-        // 3. Actualizar Matriz Dispersa de Stocks
-        // Asignar una fila al producto si es nuevo
-        Integer filaAsignada = getFilaProductoMatriz(producto.getCodigoProducto());
-        if (filaAsignada == null) {
-            filaAsignada = proximaFilaDisponibleMatriz++;
-            // AHORA: Insertamos un objeto ProductoFilaMapping en el HashEncadenamiento
-            try {
-                mapeoCodigoProductoFila.insertarClave(new ProductoFilaMapeo(producto.getCodigoProducto(), filaAsignada));
-            } catch (MensajeException e) {
-                System.err.println("Error al mapear producto a fila en matriz: " + e.getMessage());
-                // Revertir cambios si falla el mapeo
-                proximaFilaDisponibleMatriz--; // Revertir el incremento
-                hashProductosGlobal.eliminarClave(producto);
-                try { categoriaDelProducto.productosPorCodigo.remove(producto); } catch (Exception ignored) {}
-                return false;
+        int cargados = 0;
+        int inicioGrupo = 0;
+        long ultimaPosicion = -1; // Toda la carga se confirma con una sola espera
+        while (inicioGrupo < ordenados.size()) {
+            String nombreCategoria = ordenados.get(inicioGrupo).getCategoria();
+            int finGrupo = inicioGrupo;
+            while (finGrupo < ordenados.size() && ordenados.get(finGrupo).getCategoria().equals(nombreCategoria)) {
+                finGrupo++;
+            }
+
+            CategoriaData categoria = buscarCategoria(nombreCategoria);
+            if (categoria == null) {
+                omitidos += finGrupo - inicioGrupo;
+            } else {
+                ArrayList<Integer> aceptados = new ArrayList<>(finGrupo - inicioGrupo);
+                for (int i = inicioGrupo; i < finGrupo; i++) {
+                    Producto producto = ordenados.get(i);
+                    int handle = registrarProductoCargaMasiva(producto, categoria.idCategoria);
+                    if (handle != AlmacenProductos.SIN_HANDLE) {
+                        aceptados.add(handle);
+                        if (bitacora != null) {
+                            ultimaPosicion = bitacora.registrarProductoAgregado(producto.getCodigoProducto(), producto.getNombre(),
+                                    categoria.nombreCategoriaOriginal, producto.getPrecio(), producto.getStockDisponible());
+                        }
+                    } else {
+                        omitidos++;
+                    }
+                }
+                categoria.productosPorCodigo.bulkLoad(aceptados.iterator(), FACTOR_LLENADO_CARGA_MASIVA);
+                cargados += aceptados.size();
             }
+            inicioGrupo = finGrupo;
         }
 
-        // Establecer el stock en la matriz
-        try {
-            matrizStocks.establecer(filaAsignada, COLUMNA_STOCK, producto.getStockDisponible());
-        } catch (IndexOutOfBoundsException e) {
-            System.err.println("Error: Fila " + filaAsignada + " fuera de rango en matriz de stocks. " + e.getMessage());
-            // Revertir todos los cambios
-            if (filaAsignada == proximaFilaDisponibleMatriz - 1) {
-                proximaFilaDisponibleMatriz--;
+        if (ultimaPosicion >= 0) {
+            confirmar(ultimaPosicion);
+        }
+        BusEventos.publicar(TipoEvento.CARGA_MASIVA_COMPLETADA, null, null, cargados, omitidos);
+        return cargados;
+    }
+
+    // Registra el producto en el almacén y en la matriz; el B+ de la categoría se arma después.
+    // Retorna SIN_HANDLE si el código ya está registrado (antes o en esta misma carga).
+    private int registrarProductoCargaMasiva(Producto producto, int idCategoria) {
+        int handle = almacenProductos.agregar(producto.getCodigoProducto(), producto.getNombre(), idCategoria, producto.getPrecio());
+        if (handle != AlmacenProductos.SIN_HANDLE) {
+            matrizStocks.establecer(handle, COLUMNA_STOCK, producto.getStockDisponible());
+            acumularStock(handle, producto.getStockDisponible());
+            indicePrecios.agregar(handle);
+            indiceNombres.agregar(handle);
+        }
+        return handle;
+    }
+
+    /*
+    Alta por lote (sincronizaciones del ERP). Igual que insertarProducto, pero sin mensajes y con
+    un estado por elemento (EstadoLote) en la misma posición del arreglo de entrada.
+    Los productos se ordenan por categoría y código: cada categoría se resuelve una sola vez y su
+    B+ recibe los handles en orden (con bulkLoad si estaba vacío). La capacidad se amplía una sola
+    vez y, con bitácora, se espera una única confirmación al final del lote.
+     */
+    public byte[] insertarProductosLote(Producto[] productos) {
+        if (productos == null) {
+            throw new IllegalArgumentException("El lote de productos no puede ser nulo");
+        }
+        byte[] estados = new byte[productos.length];
+        ArrayList<Integer> validos = new ArrayList<>(productos.length);
+        for (int i = 0; i < productos.length; i++) {
+            Producto p = productos[i];
+            if (p == null || esCodigoVacio(p.getCodigoProducto()) || p.getCategoria() == null) {
+                estados[i] = EstadoLote.DATOS_INVALIDOS;
+            } else {
+                validos.add(i);
             }
-            mapeoCodigoProductoFila.eliminarClave(new ProductoFilaMapeo(producto.getCodigoProducto()));
-            hashProductosGlobal.eliminarClave(producto);
-            try { categoriaDelProducto.productosPorCodigo.remove(producto); } catch (Exception ignored) {}
-            return false;
         }
+        if (!asegurarCapacidad(validos.size())) {
+            for (int i : validos) {
+                estados[i] = EstadoLote.SIN_CAPACIDAD;
+            }
+            return estados;
+        }
+        validos.sort(Comparator.comparing((Integer i) -> productos[i].getCategoria())
+                .thenComparing(i -> productos[i].getCodigoProducto(), AlmacenProductos::compararCodigos));
 
-        System.out.println("Producto '" + producto.getNombre() + "' insertado correctamente en la fila " + filaAsignada + ".");
-        return true;
+        long ultimaPosicion = -1;
+        int inicioGrupo = 0;
+        while (inicioGrupo < validos.size()) {
+            String nombreCategoria = productos[validos.get(inicioGrupo)].getCategoria();
+            int finGrupo = inicioGrupo;
+            while (finGrupo < validos.size() && productos[validos.get(finGrupo)].getCategoria().equals(nombreCategoria)) {
+                finGrupo++;
+            }
+
+            CategoriaData categoria = buscarCategoria(nombreCategoria);
+            if (categoria == null) {
+                for (int k = inicioGrupo; k < finGrupo; k++) {
+                    estados[validos.get(k)] = EstadoLote.CATEGORIA_INEXISTENTE;
+                }
+            } else {
+                ArrayList<Integer> aceptados = new ArrayList<>(finGrupo - inicioGrupo);
+                for (int k = inicioGrupo; k < finGrupo; k++) {
+                    int i = validos.get(k);
+                    Producto producto = productos[i];
+                    int handle = registrarProductoCargaMasiva(producto, categoria.idCategoria);
+                    if (handle == AlmacenProductos.SIN_HANDLE) {
+                        estados[i] = EstadoLote.DUPLICADO;
+                        continue;
+                    }
+                    aceptados.add(handle);
+                    if (bitacora != null) {
+                        ultimaPosicion = bitacora.registrarProductoAgregado(producto.getCodigoProducto(), producto.getNombre(),
+                                categoria.nombreCategoriaOriginal, producto.getPrecio(), producto.getStockDisponible());
+                    }
+                }
+                if (categoria.productosPorCodigo.isEmpty()) {
+                    categoria.productosPorCodigo.bulkLoad(aceptados.iterator(), FACTOR_LLENADO_CARGA_MASIVA);
+                } else {
+                    for (int handle : aceptados) {
+                        categoria.productosPorCodigo.insert(handle);
+                    }
+                }
+            }
+            inicioGrupo = finGrupo;
+        }
+
+        if (ultimaPosicion >= 0) {
+            confirmar(ultimaPosicion);
+        }
+        return estados;
+    }
+
+    /*
+    Actualización de stock por lote: codigos[i] pasa a tener nuevosStocks[i]. Sin mensajes; retorna
+    un estado por elemento (EstadoLote). Primero se resuelven todos los handles (una búsqueda por
+    código) y después se aplican los cambios en una sola pasada sobre la columna de stock.
+    Si un código se repite, gana el último valor del lote. Con bitácora se espera una sola vez.
+     */
+    public byte[] actualizarStocksLote(String[] codigos, int[] nuevosStocks) {
+        if (codigos == null || nuevosStocks == null || codigos.length != nuevosStocks.length) {
+            throw new IllegalArgumentException("Los arreglos de códigos y stocks deben tener el mismo largo");
+        }
+        byte[] estados = new byte[codigos.length];
+        int[] handles = new int[codigos.length];
+        for (int i = 0; i < codigos.length; i++) {
+            if (esCodigoVacio(codigos[i]) || nuevosStocks[i] < 0) {
+                estados[i] = EstadoLote.DATOS_INVALIDOS;
+                handles[i] = AlmacenProductos.SIN_HANDLE;
+            } else {
+                handles[i] = almacenProductos.buscar(codigos[i]);
+                if (handles[i] == AlmacenProductos.SIN_HANDLE) {
+                    estados[i] = EstadoLote.NO_ENCONTRADO;
+                }
+            }
+        }
+
+        long ultimaPosicion = -1;
+        for (int i = 0; i < codigos.length; i++) {
+            int handle = handles[i];
+            if (handle == AlmacenProductos.SIN_HANDLE) {
+                continue;
+            }
+            int stockAnterior = matrizStocks.obtenerYEstablecer(handle, COLUMNA_STOCK, nuevosStocks[i]);
+            acumularStock(handle, (long) nuevosStocks[i] - stockAnterior);
+            indiceUmbrales.stockCambiado(handle);
+            if (bitacora != null && stockAnterior != nuevosStocks[i]) {
+                ultimaPosicion = bitacora.registrarStockSumado(codigos[i], nuevosStocks[i] - stockAnterior);
+            }
+        }
+        if (ultimaPosicion >= 0) {
+            confirmar(ultimaPosicion);
+        }
+        return estados;
     }
 
+    // Retorna una copia del producto con el stock actual, o null si no existe
     public Producto buscarProducto(String codigoProducto) {
-        if (codigoProducto == null || codigoProducto.trim().isEmpty()) {
+        if (esCodigoVacio(codigoProducto)) {
             return null;
         }
-        try {
-            // Para buscar en hashProductosGlobal, necesitas un objeto Producto que solo contenga el código
-            // porque el método 'equals' de Producto solo compara por código.
-            Producto productoDummy = new Producto(codigoProducto, null, null, 0, 0);
-            return hashProductosGlobal.obtenerPorClave(productoDummy);
-        } catch (MensajeException e) {
-            System.err.println("Error al buscar producto en hash global: " + e.getMessage());
+        int handle = almacenProductos.buscar(codigoProducto);
+        return handle == AlmacenProductos.SIN_HANDLE ? null : materializarProducto(handle);
+    }
+
+    // Para la lectura optimista del envoltorio concurrente: no escribe en el almacén (no guarda el
+    // nombre diferido), así una lectura que después se descarta no deja datos de otro producto
+    Producto buscarProductoSinBloqueo(String codigoProducto) {
+        if (esCodigoVacio(codigoProducto)) {
             return null;
         }
+        int handle = almacenProductos.buscar(codigoProducto);
+        return handle == AlmacenProductos.SIN_HANDLE ? null : materializarProducto(handle, almacenProductos.leerNombre(handle));
+    }
+
+    // Arma un Producto a partir de los arreglos del almacén y la celda de stock
+    private Producto materializarProducto(int handle) {
+        return materializarProducto(handle, almacenProductos.getNombre(handle));
+    }
+
+    private Producto materializarProducto(int handle, String nombre) {
+        CategoriaData categoria = directorioCategorias.obtener(almacenProductos.getIdCategoria(handle));
+        return new Producto(almacenProductos.getCodigo(handle), nombre,
+                categoria == null ? null : categoria.nombreCategoriaOriginal,
+                almacenProductos.getPrecio(handle), matrizStocks.obtenerVolatil(handle, COLUMNA_STOCK));
+    }
+
+    // Productos de la categoría en orden de código (lista vacía si la categoría no existe)
+    public ArrayList<Producto> obtenerProductosCategoria(String nombreCategoria) {
+        CategoriaData categoria = buscarCategoria(nombreCategoria);
+        if (categoria == null) {
+            return new ArrayList<>();
+        }
+        ArrayList<Producto> productos = new ArrayList<>(categoria.productosPorCodigo.size());
+        for (int handle : categoria.productosPorCodigo) {
+            productos.add(materializarProducto(handle));
+        }
+        return productos;
     }
 
     public boolean eliminarProducto(String codigoProducto) {
-        if (codigoProducto == null || codigoProducto.trim().isEmpty()) {
-            System.out.println("El código de producto no puede ser nulo.");
+        if (esCodigoVacio(codigoProducto)) {
+            BusEventos.publicar(TipoEvento.DATOS_INVALIDOS, null, "El código de producto no puede ser nulo.", 0, 0);
             return false;
         }
 
-        Producto productoAEliminar = buscarProducto(codigoProducto);
-        if (productoAEliminar == null) {
-            System.out.println("Producto con código '" + codigoProducto + "' no encontrado.");
+        int handle = almacenProductos.buscar(codigoProducto);
+        if (handle == AlmacenProductos.SIN_HANDLE) {
+            BusEventos.publicar(TipoEvento.PRODUCTO_NO_ENCONTRADO, codigoProducto);
             return false;
         }
 
-        // 1. Eliminar del BTreePlus de su categoría
-        CategoriaData categoriaDelProducto = buscarCategoria(productoAEliminar.getCategoria());
+        quitarProducto(handle);
+        if (bitacora != null) {
+            confirmar(bitacora.registrarProductoEliminado(codigoProducto));
+        }
+
+        BusEventos.publicar(TipoEvento.PRODUCTO_ELIMINADO, codigoProducto);
+        return true;
+    }
+
+    private void quitarProducto(int handle) {
+        // El B+ ordena por el código del almacén: se quita antes de liberar el handle
+        CategoriaData categoriaDelProducto = directorioCategorias.obtener(almacenProductos.getIdCategoria(handle));
         if (categoriaDelProducto != null) {
-            try {
-                categoriaDelProducto.productosPorCodigo.remove(productoAEliminar);
-            } catch (Exception e) {
-                System.err.println("Error al eliminar producto del BTreePlus de categoría: " + e.getMessage());
-                // Podría ocurrir si el producto ya no estaba en el BTreePlus por alguna razón
-            }
+            categoriaDelProducto.productosPorCodigo.remove(handle);
         }
+        acumularStock(handle, -matrizStocks.obtenerVolatil(handle, COLUMNA_STOCK));
+        indicePrecios.quitar(handle);
+        indiceNombres.quitar(handle);
+        indiceUmbrales.quitar(handle);
+        matrizStocks.eliminar(handle, COLUMNA_STOCK); // Establece el stock a 0 (valor por defecto)
+        almacenProductos.eliminar(handle);
+    }
 
-        // 2. Eliminar del HashGlobal de productos
-        hashProductosGlobal.eliminarClave(productoAEliminar);
+    public boolean actualizarStockProducto(String codigoProducto, int nuevoStock) {
+        if (esCodigoVacio(codigoProducto) || nuevoStock < 0) {
+            BusEventos.publicar(TipoEvento.DATOS_INVALIDOS, codigoProducto, "Datos de stock inválidos.", nuevoStock, 0);
+            return false;
+        }
 
-        // 3. Eliminar de la Matriz Dispersa de Stocks
-        Integer filaProducto = getFilaProductoMatriz(codigoProducto);
-        if (filaProducto != null) {
-            matrizStocks.eliminar(filaProducto, COLUMNA_STOCK); // Establece el stock a 0 (valor por defecto)
-            // AHORA: Eliminar el objeto ProductoFilaMapping del HashEncadenamiento
-            mapeoCodigoProductoFila.eliminarClave(new ProductoFilaMapeo(codigoProducto));
+        int handle = almacenProductos.buscar(codigoProducto);
+        if (handle == AlmacenProductos.SIN_HANDLE) {
+            BusEventos.publicar(TipoEvento.PRODUCTO_NO_ENCONTRADO, codigoProducto);
+            return false;
         }
 
-        System.out.println("Producto '" + codigoProducto + "' eliminado correctamente.");
+        // La bitácora guarda la diferencia con el valor reemplazado, igual que las reservas
+        int stockAnterior = matrizStocks.obtenerYEstablecer(handle, COLUMNA_STOCK, nuevoStock);
+        acumularStock(handle, (long) nuevoStock - stockAnterior);
+        indiceUmbrales.stockCambiado(handle);
+        if (bitacora != null && stockAnterior != nuevoStock) {
+            confirmar(bitacora.registrarStockSumado(codigoProducto, nuevoStock - stockAnterior));
+        }
+        if (BusEventos.hayOyentes()) { // El nombre puede estar diferido: solo se lee si alguien escucha
+            BusEventos.publicar(TipoEvento.STOCK_ACTUALIZADO, codigoProducto, almacenProductos.getNombre(handle), nuevoStock, 0);
+        }
         return true;
     }
 
-    public boolean actualizarStockProducto(String codigoProducto, int nuevoStock) {
-        if (codigoProducto == null || codigoProducto.trim().isEmpty() || nuevoStock < 0) {
-            System.out.println("Datos de stock inválidos.");
+    // Cambia el precio y reubica el producto en el índice de precios (si ya está armado)
+    public boolean actualizarPrecioProducto(String codigoProducto, double nuevoPrecio) {
+        if (esCodigoVacio(codigoProducto) || !(nuevoPrecio >= 0)) {
+            BusEventos.publicar(TipoEvento.DATOS_INVALIDOS, codigoProducto, "Datos de precio inválidos.", 0, 0);
             return false;
         }
 
-        Producto productoAActualizar = buscarProducto(codigoProducto);
-        if (productoAActualizar == null) {
-            System.out.println("Producto con código '" + codigoProducto + "' no encontrado.");
+        int handle = almacenProductos.buscar(codigoProducto);
+        if (handle == AlmacenProductos.SIN_HANDLE) {
+            BusEventos.publicar(TipoEvento.PRODUCTO_NO_ENCONTRADO, codigoProducto);
             return false;
         }
 
-        productoAActualizar.setStockDisponible(nuevoStock);
+        cambiarPrecio(handle, nuevoPrecio);
+        if (bitacora != null) {
+            confirmar(bitacora.registrarPrecioActualizado(codigoProducto, nuevoPrecio));
+        }
+        if (BusEventos.hayOyentes()) { // Evita crear el Double del precio si nadie escucha
+            BusEventos.publicar(TipoEvento.PRECIO_ACTUALIZADO, codigoProducto, nuevoPrecio, 0, 0);
+        }
+        return true;
+    }
 
-        Integer filaProducto = getFilaProductoMatriz(codigoProducto);
-        if (filaProducto != null) {
-            matrizStocks.establecer(filaProducto, COLUMNA_STOCK, nuevoStock);
-            System.out.println("Stock de '" + productoAActualizar.getNombre() + "' actualizado a " + nuevoStock);
-            return true;
-        } else {
-            System.err.println("Error: No se encontró la fila para el producto en la matriz de stock.");
+    private void cambiarPrecio(int handle, double nuevoPrecio) {
+        double precioAnterior = almacenProductos.getPrecio(handle);
+        indicePrecios.quitar(handle);
+        almacenProductos.setPrecio(handle, nuevoPrecio);
+        indicePrecios.agregar(handle);
+        // Las unidades no cambian: solo se revalúa el stock actual
+        CategoriaData categoria = directorioCategorias.obtener(almacenProductos.getIdCategoria(handle));
+        if (categoria != null) {
+            categoria.acumular(0, (nuevoPrecio - precioAnterior) * matrizStocks.obtenerVolatil(handle, COLUMNA_STOCK));
+        }
+    }
+
+    /* ******************************************************************
+     * UMBRALES DE REPOSICIÓN
+     * Cada cambio de stock reubica al producto en el montículo en O(log n); consultar los k
+     * productos bajo umbral no recorre el resto del inventario.
+     ****************************************************************** */
+
+    // Vigila el producto: queda bajo umbral si su stock es menor que 'umbral'. Un umbral negativo
+    // deja de vigilarlo. Si el stock ya está por debajo, se avisa al oyente de inmediato.
+    public boolean establecerUmbralReposicion(String codigoProducto, int umbral) {
+        if (esCodigoVacio(codigoProducto)) {
+            BusEventos.publicar(TipoEvento.DATOS_INVALIDOS, null, "El código de producto no puede estar vacío.", 0, 0);
+            return false;
+        }
+        int handle = almacenProductos.buscar(codigoProducto);
+        if (handle == AlmacenProductos.SIN_HANDLE) {
+            BusEventos.publicar(TipoEvento.PRODUCTO_NO_ENCONTRADO, codigoProducto);
+            return false;
+        }
+
+        int nuevoUmbral = Math.max(umbral, AlmacenProductos.SIN_UMBRAL);
+        cambiarUmbral(handle, nuevoUmbral);
+        if (bitacora != null) {
+            confirmar(bitacora.registrarUmbralEstablecido(codigoProducto, nuevoUmbral));
+        }
+        BusEventos.publicar(TipoEvento.UMBRAL_ESTABLECIDO, codigoProducto, nuevoUmbral);
+        return true;
+    }
+
+    private void cambiarUmbral(int handle, int umbral) {
+        almacenProductos.setUmbral(handle, umbral);
+        indiceUmbrales.umbralCambiado(handle);
+    }
+
+    // Umbral del producto, -1 si no tiene o si el producto no existe
+    public int obtenerUmbralReposicion(String codigoProducto) {
+        int handle = almacenProductos.buscar(codigoProducto);
+        return handle == AlmacenProductos.SIN_HANDLE ? AlmacenProductos.SIN_UMBRAL : almacenProductos.getUmbral(handle);
+    }
+
+    // Hasta 'limite' productos bajo su umbral, empezando por los que más les falta para cubrirlo
+    public ArrayList<Producto> productosBajoUmbral(int limite) {
+        return materializarProductos(indiceUmbrales.bajoUmbral(limite));
+    }
+
+    // Oyente que recibe cada cruce de umbral (null = ninguno)
+    public void setOyenteUmbral(OyenteUmbral oyente) {
+        indiceUmbrales.setOyente(oyente);
+    }
+
+    // Suma a los totales de la categoría del producto el cambio de stock (y su valor al precio actual)
+    private void acumularStock(int handle, long deltaUnidades) {
+        if (deltaUnidades == 0) {
+            return;
+        }
+        CategoriaData categoria = directorioCategorias.obtener(almacenProductos.getIdCategoria(handle));
+        if (categoria != null) {
+            categoria.acumular(deltaUnidades, deltaUnidades * almacenProductos.getPrecio(handle));
+        }
+    }
+
+    // Retorna el stock registrado en la matriz o -1 si el producto no existe
+    public int obtenerStockProducto(String codigoProducto) {
+        if (esCodigoVacio(codigoProducto)) {
+            return -1;
+        }
+        int handle = almacenProductos.buscar(codigoProducto);
+        return handle == AlmacenProductos.SIN_HANDLE ? -1 : matrizStocks.obtenerVolatil(handle, COLUMNA_STOCK);
+    }
+
+    /* ******************************************************************
+     * STOCK ATÓMICO (compare-and-set sobre la celda del producto, sin bloqueos)
+     * La matriz de stocks es la única copia del stock; buscarProducto la lee al armar el Producto.
+     * No imprimen mensajes: están pensados para el checkout desde muchos hilos.
+     ****************************************************************** */
+
+    // Descuenta 'cantidad' solo si hay stock suficiente. Retorna false si no alcanza o el producto no existe.
+    public boolean reservarStock(String codigoProducto, int cantidad) {
+        if (codigoProducto == null || cantidad <= 0) {
+            return false;
+        }
+        int handle = almacenProductos.buscar(codigoProducto);
+        if (handle == AlmacenProductos.SIN_HANDLE) {
             return false;
         }
+
+        int actual;
+        do {
+            actual = matrizStocks.obtenerVolatil(handle, COLUMNA_STOCK);
+            if (actual < cantidad) {
+                return false; // Nunca se vende más de lo disponible
+            }
+        } while (!matrizStocks.compararYEstablecer(handle, COLUMNA_STOCK, actual, actual - cantidad));
+        acumularStock(handle, -cantidad);
+        indiceUmbrales.stockCambiado(handle);
+        if (bitacora != null) {
+            confirmar(bitacora.registrarStockSumado(codigoProducto, -cantidad));
+        }
+        return true;
+    }
+
+    // Devuelve al stock una cantidad reservada previamente (p. ej. un pedido cancelado)
+    public boolean liberarStock(String codigoProducto, int cantidad) {
+        return incrementarStock(codigoProducto, cantidad);
+    }
+
+    // Suma 'cantidad' al stock. Retorna false si el producto no existe o el stock desbordaría.
+    public boolean incrementarStock(String codigoProducto, int cantidad) {
+        if (codigoProducto == null || cantidad <= 0) {
+            return false;
+        }
+        int handle = almacenProductos.buscar(codigoProducto);
+        if (handle == AlmacenProductos.SIN_HANDLE) {
+            return false;
+        }
+
+        int actual;
+        do {
+            actual = matrizStocks.obtenerVolatil(handle, COLUMNA_STOCK);
+            if (actual > Integer.MAX_VALUE - cantidad) {
+                return false;
+            }
+        } while (!matrizStocks.compararYEstablecer(handle, COLUMNA_STOCK, actual, actual + cantidad));
+        acumularStock(handle, cantidad);
+        indiceUmbrales.stockCambiado(handle);
+        if (bitacora != null) {
+            confirmar(bitacora.registrarStockSumado(codigoProducto, cantidad));
+        }
+        return true;
+    }
+
+    /* ******************************************************************
+     * CONSULTAS POR PRECIO (índice secundario por precio y código)
+     * La primera consulta arma el índice ordenando todos los productos; las siguientes son
+     * logarítmicas más la cantidad de resultados.
+     ****************************************************************** */
+
+    // Productos con precio entre minimo y maximo (inclusivos), de menor a mayor precio y, a igual
+    // precio, por código. Se devuelven como mucho 'limite' productos.
+    public ArrayList<Producto> buscarPorRangoPrecio(double minimo, double maximo, int limite) {
+        armarIndicePrecios();
+        return materializarProductos(indicePrecios.rango(minimo, maximo, limite));
+    }
+
+    // Los 'cantidad' productos más caros, del más caro al más barato
+    public ArrayList<Producto> productosMasCaros(int cantidad) {
+        armarIndicePrecios();
+        return materializarProductos(indicePrecios.mayores(cantidad));
+    }
+
+    // Los 'cantidad' productos más baratos, del más barato al más caro
+    public ArrayList<Producto> productosMasBaratos(int cantidad) {
+        armarIndicePrecios();
+        return materializarProductos(indicePrecios.menores(cantidad));
+    }
+
+    boolean indicePreciosArmado() {
+        return indicePrecios.estaArmado();
+    }
+
+    // Modifica estructuras compartidas: el envoltorio concurrente lo llama con bloqueo exclusivo
+    void armarIndicePrecios() {
+        indicePrecios.armar(FACTOR_LLENADO_CARGA_MASIVA);
+    }
+
+    /* ******************************************************************
+     * BÚSQUEDA POR PREFIJO DE NOMBRE (trie comprimido de nombres normalizados)
+     * El costo depende del largo del prefijo y de la cantidad de resultados, no del catálogo.
+     ****************************************************************** */
+
+    // Productos cuyo nombre empieza con el prefijo, sin distinguir mayúsculas, en orden
+    // lexicográfico del nombre y, a igual nombre, por código. Como mucho 'limite' productos.
+    public ArrayList<Producto> buscarPorPrefijoNombre(String prefijo, int limite) {
+        armarIndiceNombres();
+        return materializarProductos(indiceNombres.buscarPorPrefijo(prefijo, limite));
+    }
+
+    boolean indiceNombresArmado() {
+        return indiceNombres.estaArmado();
+    }
+
+    // Igual que armarIndicePrecios: el envoltorio concurrente lo llama con bloqueo exclusivo
+    void armarIndiceNombres() {
+        indiceNombres.armar();
+    }
+
+    private ArrayList<Producto> materializarProductos(ArrayList<Integer> handles) {
+        ArrayList<Producto> productos = new ArrayList<>(handles.size());
+        for (int handle : handles) {
+            productos.add(materializarProducto(handle));
+        }
+        return productos;
     }
 
-    // OBTENER LA FILA DE UN PRODUCTO EN LA MATRIZ DE STOCK (CORREGIDO)
-    private Integer getFilaProductoMatriz(String codigoProducto) {
+    /* ******************************************************************
+     * INSTANTÁNEAS (checkpoints)
+     * El archivo guarda categorías, productos y stock en el orden de los B+, así la carga
+     * arma los árboles con bulkLoad en lugar de repetir inserciones y divisiones de nodos.
+     ****************************************************************** */
+
+    // Guarda el estado completo en el archivo. Con bitácora, registra también la posición hasta
+    // la que llega la instantánea, para reproducir después solo las operaciones posteriores.
+    public void guardarInstantanea(Path archivo) throws IOException {
+        long posicionBitacora = bitacora == null ? -1 : bitacora.getPosicionAgregada();
+        try (InstantaneaInventario.Escritor escritor = new InstantaneaInventario.Escritor(archivo)) {
+            escritor.cabecera(posicionBitacora, directorioCategorias.cantidad(), almacenProductos.cantidad());
+            for (int id = 0; id < directorioCategorias.limiteIds(); id++) {
+                CategoriaData categoria = directorioCategorias.obtener(id);
+                if (categoria == null) {
+                    continue;
+                }
+                escritor.categoria(categoria.nombreCategoriaOriginal, categoria.productosPorCodigo.size());
+                for (int handle : categoria.productosPorCodigo) {
+                    escritor.producto(almacenProductos.getCodigo(handle), almacenProductos.getNombre(handle),
+                            almacenProductos.getPrecio(handle), matrizStocks.obtenerVolatil(handle, COLUMNA_STOCK),
+                            almacenProductos.getUmbral(handle));
+                }
+            }
+            escritor.terminar();
+        }
+        BusEventos.publicar(TipoEvento.INSTANTANEA_GUARDADA, archivo, null, directorioCategorias.cantidad(), almacenProductos.cantidad());
+    }
+
+    // Igual que guardarInstantanea, pero el archivo se escribe en otro hilo mientras el sistema sigue
+    // atendiendo operaciones. La imagen se toma en esta llamada (ninguna escritura puede estar en curso
+    // mientras tanto) y las escrituras posteriores solo copian los bloques que todavía no se guardaron.
+    // Lanza IllegalStateException si ya hay otra instantánea en segundo plano en curso.
+    public CompletableFuture<Void> guardarInstantaneaEnSegundoPlano(Path archivo) {
+        CapturaInventario captura = capturar();
+        CompletableFuture<Void> resultado = new CompletableFuture<>();
+        Thread escritor = new Thread(() -> {
+            try {
+                captura.escribir(archivo);
+                BusEventos.publicar(TipoEvento.INSTANTANEA_GUARDADA, archivo, null, captura.getCantidadCategorias(),
+                        captura.getCantidadProductos());
+                resultado.complete(null);
+            } catch (Throwable e) {
+                resultado.completeExceptionally(e);
+            } finally {
+                captura.liberar();
+            }
+        }, "instantanea-inventario");
+        escritor.start();
+        return resultado;
+    }
+
+    private CapturaInventario capturar() {
+        long posicionBitacora = bitacora == null ? -1 : bitacora.getPosicionAgregada();
+        CapturaAlmacen almacen = almacenProductos.capturar();
         try {
-            // Creamos un objeto ProductoFilaMapping para buscar por el código de producto
-            ProductoFilaMapeo keyToSearch = new ProductoFilaMapeo(codigoProducto);
-            // Usamos obtenerPorClave para recuperar el objeto ProductoFilaMapping completo
-            ProductoFilaMapeo foundMapping = mapeoCodigoProductoFila.obtenerPorClave(keyToSearch);
+            return new CapturaInventario(almacen, matrizStocks.capturar(), COLUMNA_STOCK,
+                    directorioCategorias.copiarNombres(), posicionBitacora);
+        } catch (IllegalStateException e) {
+            almacen.liberar();
+            throw e;
+        }
+    }
 
-            if (foundMapping != null) {
-                return foundMapping.getFilaMatriz();
+    // Arma un sistema nuevo a partir de una instantánea, con capacidad justa para sus productos.
+    // Los nombres de productos se leen del archivo mapeado la primera vez que se piden.
+    public static SistemaInventario cargarInstantanea(Path archivo, int ordenBTreePlus) throws IOException {
+        CargaInstantanea carga = new CargaInstantanea(ordenBTreePlus);
+        InstantaneaInventario.leer(archivo, carga);
+        BusEventos.publicar(TipoEvento.INSTANTANEA_CARGADA, archivo, null, carga.sistema.directorioCategorias.cantidad(),
+                carga.sistema.almacenProductos.cantidad());
+        return carga.sistema;
+    }
+
+    // Carga la instantánea y después reproduce la bitácora desde la posición guardada en ella
+    // (desde el principio si la instantánea se tomó sin bitácora)
+    public static SistemaInventario cargarInstantanea(Path archivo, int ordenBTreePlus, Path archivoBitacora, long esperaGrupoMicros) throws IOException {
+        CargaInstantanea carga = new CargaInstantanea(ordenBTreePlus);
+        InstantaneaInventario.leer(archivo, carga);
+        carga.sistema.abrirBitacora(archivoBitacora, esperaGrupoMicros, Math.max(carga.posicionBitacora, 0));
+        return carga.sistema;
+    }
+
+    private static final class CargaInstantanea implements InstantaneaInventario.Lector {
+        private final int ordenBTreePlus;
+        private SistemaInventario sistema;
+        private long posicionBitacora;
+        private InstantaneaInventario.ArchivoMapeado archivo;
+        private CategoriaData categoriaActual;
+        private final ArrayList<Integer> handlesCategoria = new ArrayList<>(); // En orden de código
+
+        CargaInstantanea(int ordenBTreePlus) {
+            this.ordenBTreePlus = ordenBTreePlus;
+        }
+
+        @Override
+        public void cabecera(long posicionBitacora, int cantidadCategorias, int cantidadProductos,
+                             InstantaneaInventario.ArchivoMapeado archivo) {
+            this.posicionBitacora = posicionBitacora;
+            this.archivo = archivo;
+            this.sistema = new SistemaInventario(Math.max(cantidadProductos, 1), ordenBTreePlus);
+        }
+
+        @Override
+        public void categoria(String nombre, int cantidadProductos) throws IOException {
+            cerrarCategoria();
+            categoriaActual = sistema.directorioCategorias.agregar(nombre, ordenBTreePlus, sistema.almacenProductos.ordenPorCodigo());
+            if (categoriaActual == null) {
+                throw new IOException("Categoría vacía o repetida en la instantánea: '" + nombre + "'");
+            }
+            handlesCategoria.ensureCapacity(cantidadProductos);
+        }
+
+        @Override
+        public void producto(String codigo, long posicionNombre, double precio, int stock, int umbral) throws IOException {
+            int handle = sistema.almacenProductos.agregarConNombreDiferido(codigo, archivo, posicionNombre,
+                    categoriaActual.idCategoria, precio);
+            if (handle == AlmacenProductos.SIN_HANDLE) {
+                throw new IOException("Código de producto nulo o repetido en la instantánea: '" + codigo + "'");
+            }
+            sistema.matrizStocks.establecer(handle, sistema.COLUMNA_STOCK, stock);
+            categoriaActual.acumular(stock, precio * stock);
+            if (umbral != AlmacenProductos.SIN_UMBRAL) {
+                sistema.almacenProductos.setUmbral(handle, umbral);
+            }
+            handlesCategoria.add(handle);
+        }
+
+        @Override
+        public void terminar() {
+            cerrarCategoria();
+            sistema.indiceUmbrales.armar();
+        }
+
+        private void cerrarCategoria() {
+            if (categoriaActual != null && !handlesCategoria.isEmpty()) {
+                categoriaActual.productosPorCodigo.bulkLoad(handlesCategoria.iterator(), FACTOR_LLENADO_CARGA_MASIVA);
+            }
+            handlesCategoria.clear();
+        }
+    }
+
+    /* ******************************************************************
+     * RECUPERACIÓN DESDE LA BITÁCORA
+     * Aplica los registros sin volver a registrarlos ni imprimir cada operación.
+     ****************************************************************** */
+
+    private final class ReproductorBitacora implements BitacoraInventario.Reproductor {
+        @Override
+        public void categoriaAgregada(String nombre) {
+            directorioCategorias.agregar(nombre, ordenBTreePlus, almacenProductos.ordenPorCodigo());
+        }
+
+        @Override
+        public void categoriaEliminada(String nombre) {
+            CategoriaData categoria = directorioCategorias.eliminar(nombre);
+            if (categoria != null) {
+                liberarProductosCategoria(categoria);
+            }
+        }
+
+        @Override
+        public void productoAgregado(String codigo, String nombre, String categoria, double precio, int stock) {
+            CategoriaData categoriaData = buscarCategoria(categoria);
+            if (categoriaData != null && almacenProductos.buscar(codigo) == AlmacenProductos.SIN_HANDLE) {
+                agregarProducto(codigo, nombre, categoriaData, precio, stock);
+            }
+        }
+
+        @Override
+        public void productoEliminado(String codigo) {
+            int handle = almacenProductos.buscar(codigo);
+            if (handle != AlmacenProductos.SIN_HANDLE) {
+                quitarProducto(handle);
+            }
+        }
+
+        @Override
+        public void stockSumado(String codigo, int delta) {
+            int handle = almacenProductos.buscar(codigo);
+            if (handle != AlmacenProductos.SIN_HANDLE) {
+                matrizStocks.obtenerYSumar(handle, COLUMNA_STOCK, delta);
+                acumularStock(handle, delta);
+                indiceUmbrales.stockCambiado(handle);
+            }
+        }
+
+        @Override
+        public void umbralEstablecido(String codigo, int umbral) {
+            int handle = almacenProductos.buscar(codigo);
+            if (handle != AlmacenProductos.SIN_HANDLE) {
+                cambiarUmbral(handle, umbral);
+            }
+        }
+
+        @Override
+        public void precioActualizado(String codigo, double precio) {
+            int handle = almacenProductos.buscar(codigo);
+            if (handle != AlmacenProductos.SIN_HANDLE) {
+                cambiarPrecio(handle, precio);
             }
-            return null; // No se encontró el mapeo para este código de producto
-        } catch (MensajeException e) {
-            System.err.println("Error al buscar fila de producto en mapeo: " + e.getMessage());
-            return null;
         }
     }
 
@@ -333,12 +1032,27 @@ public class SistemaInventario {
      * MÉTODOS DE REPORTE/VISUALIZACIÓN
      ****************************************************************** */
 
+    // Totales de la categoría en O(1), o null si no existe
+    public ResumenCategoria resumenCategoria(String nombreCategoria) {
+        CategoriaData categoria = buscarCategoria(nombreCategoria);
+        return categoria == null ? null : categoria.resumen();
+    }
+
+    // Totales de todas las categorías en orden de id, sin recorrer sus productos
+    public ArrayList<ResumenCategoria> resumenCategorias() {
+        ArrayList<ResumenCategoria> resumenes = new ArrayList<>(directorioCategorias.cantidad());
+        directorioCategorias.recorrer(categoria -> resumenes.add(categoria.resumen()));
+        return resumenes;
+    }
+
     public void mostrarCategorias() throws MensajeException {
         System.out.println("\n--- Resumen de Categorías ---");
-        try {
-            arbolCategoriasProductos.InOrden();
-        } catch (Excepciones.MensajeException e) {
-            System.out.println(e.getMessage());
+        if (directorioCategorias.estaVacio()) {
+            System.out.println("No hay categorías registradas.");
+        } else {
+            for (ResumenCategoria resumen : resumenCategorias()) {
+                System.out.println(resumen);
+            }
         }
         System.out.println("-----------------------------\n");
     }
@@ -347,12 +1061,12 @@ public class SistemaInventario {
         System.out.println("\n--- Productos en Categoría: " + nombreCategoria + " ---");
         CategoriaData categoria = buscarCategoria(nombreCategoria);
         if (categoria != null) {
-            ArrayList<Producto> productos = categoria.productosPorCodigo.getTotalClaves();
-            if (productos.isEmpty()) {
+            if (categoria.productosPorCodigo.isEmpty()) {
                 System.out.println("No hay productos en esta categoría.");
             } else {
-                for (Producto p : productos) {
-                    System.out.println(p);
+                // Recorrido perezoso por las hojas: memoria constante aunque la categoría sea grande
+                for (int handle : categoria.productosPorCodigo) {
+                    System.out.println(materializarProducto(handle));
                 }
             }
         } else {
@@ -369,15 +1083,7 @@ public class SistemaInventario {
 
     public void mostrarProductosYStocks() {
         System.out.println("\n--- Productos y Stocks ---");
-        ArrayList<Producto> todosLosProductos = new ArrayList<>(); // Initialize to avoid NullPointerException
-        try {
-            todosLosProductos = hashProductosGlobal.obtenerTodosLosElementos();
-        } catch (MensajeException e) {
-            System.err.println("Error al obtener todos los productos para mostrar stocks: " + e.getMessage());
-            return;
-        }
-
-        if (todosLosProductos.isEmpty()) {
+        if (almacenProductos.cantidad() == 0) {
             System.out.println("No hay productos en el inventario.");
             return;
         }
@@ -385,14 +1091,23 @@ public class SistemaInventario {
         System.out.printf("%-20s %-30s %-10s%n", "Código Producto", "Nombre Producto", "Stock");
         System.out.println("------------------------------------------------------------------");
 
-        for (Producto p : todosLosProductos) {
-            Integer fila = getFilaProductoMatriz(p.getCodigoProducto());
-            int stock = 0;
-            if (fila != null) {
-                stock = matrizStocks.obtener(fila, COLUMNA_STOCK);
+        // Se recorren los arreglos del almacén directamente, sin armar objetos Producto
+        for (int handle = 0; handle < almacenProductos.limiteHandles(); handle++) {
+            if (almacenProductos.estaOcupado(handle)) {
+                System.out.printf("%-20s %-30s %-10d%n", almacenProductos.getCodigo(handle),
+                        almacenProductos.getNombre(handle), matrizStocks.obtener(handle, COLUMNA_STOCK));
             }
-            System.out.printf("%-20s %-30s %-10d%n", p.getCodigoProducto(), p.getNombre(), stock);
         }
         System.out.println("------------------------------------------------------------------");
     }
-}
\ No newline at end of file
+
+    // Valor total del inventario (precio * stock de cada producto), calculado en paralelo
+    // repartiendo rangos de handles entre los hilos del pool fork-join
+    public double valorTotalInventario() {
+        return IntStream.range(0, almacenProductos.limiteHandles())
+                .parallel()
+                .filter(almacenProductos::estaOcupado)
+                .mapToDouble(h -> almacenProductos.getPrecio(h) * matrizStocks.obtenerVolatil(h, COLUMNA_STOCK))
+                .sum();
+    }
+}
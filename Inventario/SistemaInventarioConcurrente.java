@@ -0,0 +1,517 @@
+package Inventario;
+
+import Hash.FuncionHashMurmur;
+import LinkedList.MensajeException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+/*
+Versión segura para hilos de SistemaInventario, pensada para tráfico con mayoría de lecturas.
+- Catálogo (directorio de categorías, almacén de productos y B+ de cada categoría): StampedLock.
+  Las búsquedas se hacen primero con lectura optimista (sin bloquear) y solo si un escritor
+  intervino se repiten con el bloqueo de lectura. Insertar o eliminar productos y categorías
+  toma el bloqueo de escritura.
+- Stock: un arreglo de ReentrantLock indexado por el hash del código. Dos actualizaciones del
+  mismo producto se serializan; las de productos distintos avanzan en paralelo, ya que cada
+  producto tiene su propia fila en la matriz de stocks.
+- Bitácora (opcional): las operaciones se registran dentro de los bloqueos, pero la espera del
+  fsync se hace después de soltarlos. Así un alta no retiene el bloqueo de escritura durante el
+  fsync y las operaciones de varios hilos se confirman juntas en el mismo grupo.
+ */
+public class SistemaInventarioConcurrente implements AutoCloseable {
+    private static final int SEGMENTOS_POR_NUCLEO = 4;
+
+    private final SistemaInventario sistema;
+    private final StampedLock bloqueoCatalogo = new StampedLock();
+    private final ReentrantLock[] bloqueosStock; //Cantidad potencia de dos
+    private final int mascaraBloqueos;
+
+    public SistemaInventarioConcurrente(int numMaxProductosMatriz) {
+        this(numMaxProductosMatriz, SistemaInventario.ORDEN_BTREEPLUS_POR_DEFECTO,
+                Runtime.getRuntime().availableProcessors() * SEGMENTOS_POR_NUCLEO);
+    }
+
+    public SistemaInventarioConcurrente(int numMaxProductosMatriz, int ordenBTreePlus, int cantidadBloqueosStock) {
+        this(new SistemaInventario(numMaxProductosMatriz, ordenBTreePlus), cantidadBloqueosStock);
+    }
+
+    //Con bitácora: recupera el estado guardado en el archivo y registra las operaciones posteriores
+    public SistemaInventarioConcurrente(int numMaxProductosMatriz, int ordenBTreePlus, int cantidadBloqueosStock,
+                                        Path archivoBitacora, long esperaGrupoMicros) throws IOException {
+        this(new SistemaInventario(numMaxProductosMatriz, ordenBTreePlus, archivoBitacora, esperaGrupoMicros), cantidadBloqueosStock);
+    }
+
+    private SistemaInventarioConcurrente(SistemaInventario sistema, int cantidadBloqueosStock) {
+        if (cantidadBloqueosStock <= 0) {
+            throw new IllegalArgumentException("La cantidad de bloqueos de stock debe ser positiva");
+        }
+        this.sistema = sistema;
+        this.sistema.setConfirmacionDiferida(true);
+
+        int cantidad = Integer.highestOneBit(cantidadBloqueosStock);
+        if (cantidad < cantidadBloqueosStock) {
+            cantidad <<= 1;
+        }
+        this.bloqueosStock = new ReentrantLock[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            this.bloqueosStock[i] = new ReentrantLock();
+        }
+        this.mascaraBloqueos = cantidad - 1;
+    }
+
+    //Bloqueo de stock que corresponde al código de producto
+    private ReentrantLock bloqueoStock(String codigoProducto) {
+        return bloqueosStock[FuncionHashMurmur.mezclar32(codigoProducto.hashCode()) & mascaraBloqueos];
+    }
+
+    public int getCantidadBloqueosStock() {
+        return bloqueosStock.length;
+    }
+
+    public int getOrdenBTreePlus() {
+        return sistema.getOrdenBTreePlus();
+    }
+
+    //Sistema cargado desde una instantánea; con bitácora (si archivoBitacora no es null) reproduce
+    //además las operaciones registradas después de la instantánea
+    public static SistemaInventarioConcurrente cargarInstantanea(Path archivo, int ordenBTreePlus, int cantidadBloqueosStock,
+                                                                 Path archivoBitacora, long esperaGrupoMicros) throws IOException {
+        SistemaInventario sistema = archivoBitacora == null
+                ? SistemaInventario.cargarInstantanea(archivo, ordenBTreePlus)
+                : SistemaInventario.cargarInstantanea(archivo, ordenBTreePlus, archivoBitacora, esperaGrupoMicros);
+        return new SistemaInventarioConcurrente(sistema, cantidadBloqueosStock);
+    }
+
+    //El bloqueo de escritura detiene también las operaciones de stock: la instantánea es consistente
+    public void guardarInstantanea(Path archivo) throws IOException {
+        long stamp = bloqueoCatalogo.writeLock();
+        try {
+            sistema.guardarInstantanea(archivo);
+        } finally {
+            bloqueoCatalogo.unlockWrite(stamp);
+        }
+    }
+
+    //El bloqueo de escritura se toma solo para capturar la imagen; la escritura del archivo corre en
+    //otro hilo sin detener las operaciones de stock ni las altas y bajas
+    public CompletableFuture<Void> guardarInstantaneaEnSegundoPlano(Path archivo) {
+        long stamp = bloqueoCatalogo.writeLock();
+        try {
+            return sistema.guardarInstantaneaEnSegundoPlano(archivo);
+        } finally {
+            bloqueoCatalogo.unlockWrite(stamp);
+        }
+    }
+
+    //Cierra la bitácora cuando ya no quedan operaciones en curso
+    @Override
+    public void close() throws IOException {
+        long stamp = bloqueoCatalogo.writeLock();
+        try {
+            sistema.close();
+        } finally {
+            bloqueoCatalogo.unlockWrite(stamp);
+        }
+    }
+
+    /* ******************************************************************
+     * ESCRITURAS DEL CATÁLOGO (bloqueo exclusivo)
+     ****************************************************************** */
+
+    public boolean insertarCategoria(String nombreCategoria) {
+        boolean resultado;
+        long stamp = bloqueoCatalogo.writeLock();
+        try {
+            resultado = sistema.insertarCategoria(nombreCategoria);
+        } finally {
+            bloqueoCatalogo.unlockWrite(stamp);
+        }
+        sistema.esperarBitacora();
+        return resultado;
+    }
+
+    public boolean eliminarCategoria(String nombreCategoria) {
+        boolean resultado;
+        long stamp = bloqueoCatalogo.writeLock();
+        try {
+            resultado = sistema.eliminarCategoria(nombreCategoria);
+        } finally {
+            bloqueoCatalogo.unlockWrite(stamp);
+        }
+        sistema.esperarBitacora();
+        return resultado;
+    }
+
+    public boolean insertarProducto(Producto producto) {
+        boolean resultado;
+        long stamp = bloqueoCatalogo.writeLock();
+        try {
+            resultado = sistema.insertarProducto(producto);
+        } finally {
+            bloqueoCatalogo.unlockWrite(stamp);
+        }
+        sistema.esperarBitacora();
+        return resultado;
+    }
+
+    public int cargarProductosMasivo(Collection<Producto> productos) {
+        int resultado;
+        long stamp = bloqueoCatalogo.writeLock();
+        try {
+            resultado = sistema.cargarProductosMasivo(productos);
+        } finally {
+            bloqueoCatalogo.unlockWrite(stamp);
+        }
+        sistema.esperarBitacora();
+        return resultado;
+    }
+
+    //Mueve el producto dentro del índice de precios: bloqueo exclusivo
+    public boolean actualizarPrecioProducto(String codigoProducto, double nuevoPrecio) {
+        boolean resultado;
+        long stamp = bloqueoCatalogo.writeLock();
+        try {
+            resultado = sistema.actualizarPrecioProducto(codigoProducto, nuevoPrecio);
+        } finally {
+            bloqueoCatalogo.unlockWrite(stamp);
+        }
+        sistema.esperarBitacora();
+        return resultado;
+    }
+
+    public boolean establecerUmbralReposicion(String codigoProducto, int umbral) {
+        boolean resultado;
+        long stamp = bloqueoCatalogo.writeLock();
+        try {
+            resultado = sistema.establecerUmbralReposicion(codigoProducto, umbral);
+        } finally {
+            bloqueoCatalogo.unlockWrite(stamp);
+        }
+        sistema.esperarBitacora();
+        return resultado;
+    }
+
+    public byte[] insertarProductosLote(Producto[] productos) {
+        byte[] resultado;
+        long stamp = bloqueoCatalogo.writeLock();
+        try {
+            resultado = sistema.insertarProductosLote(productos);
+        } finally {
+            bloqueoCatalogo.unlockWrite(stamp);
+        }
+        sistema.esperarBitacora();
+        return resultado;
+    }
+
+    public boolean eliminarProducto(String codigoProducto) {
+        boolean resultado;
+        long stamp = bloqueoCatalogo.writeLock();
+        try {
+            resultado = sistema.eliminarProducto(codigoProducto);
+        } finally {
+            bloqueoCatalogo.unlockWrite(stamp);
+        }
+        sistema.esperarBitacora();
+        return resultado;
+    }
+
+    /* ******************************************************************
+     * LECTURAS (optimistas, con reintento bajo bloqueo de lectura)
+     ****************************************************************** */
+
+    public Producto buscarProducto(String codigoProducto) {
+        long stamp = bloqueoCatalogo.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                Producto encontrado = sistema.buscarProductoSinBloqueo(codigoProducto);
+                if (bloqueoCatalogo.validate(stamp)) {
+                    return encontrado;
+                }
+            } catch (RuntimeException e) {
+                //Un escritor modificó las tablas durante la lectura, se repite con bloqueo
+            }
+        }
+
+        stamp = bloqueoCatalogo.readLock();
+        try {
+            return sistema.buscarProducto(codigoProducto);
+        } finally {
+            bloqueoCatalogo.unlockRead(stamp);
+        }
+    }
+
+    public int obtenerStockProducto(String codigoProducto) {
+        long stamp = bloqueoCatalogo.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                int stock = sistema.obtenerStockProducto(codigoProducto);
+                if (bloqueoCatalogo.validate(stamp)) {
+                    return stock;
+                }
+            } catch (RuntimeException e) {
+                //Un escritor modificó las tablas durante la lectura, se repite con bloqueo
+            }
+        }
+
+        stamp = bloqueoCatalogo.readLock();
+        try {
+            return sistema.obtenerStockProducto(codigoProducto);
+        } finally {
+            bloqueoCatalogo.unlockRead(stamp);
+        }
+    }
+
+    //El B+ de la categoría se recorre completo: se usa el bloqueo de lectura
+    public ArrayList<Producto> obtenerProductosCategoria(String nombreCategoria) {
+        long stamp = bloqueoCatalogo.readLock();
+        try {
+            return sistema.obtenerProductosCategoria(nombreCategoria);
+        } finally {
+            bloqueoCatalogo.unlockRead(stamp);
+        }
+    }
+
+    public boolean existeCategoria(String nombreCategoria) {
+        long stamp = bloqueoCatalogo.readLock();
+        try {
+            return sistema.buscarCategoria(nombreCategoria) != null;
+        } finally {
+            bloqueoCatalogo.unlockRead(stamp);
+        }
+    }
+
+    //El índice de precios se arma una sola vez con el bloqueo exclusivo; después las consultas
+    //solo leen el B+ y pueden correr en paralelo
+    public ArrayList<Producto> buscarPorRangoPrecio(double minimo, double maximo, int limite) {
+        asegurarIndicePrecios();
+        long stamp = bloqueoCatalogo.readLock();
+        try {
+            return sistema.buscarPorRangoPrecio(minimo, maximo, limite);
+        } finally {
+            bloqueoCatalogo.unlockRead(stamp);
+        }
+    }
+
+    public ArrayList<Producto> productosMasCaros(int cantidad) {
+        asegurarIndicePrecios();
+        long stamp = bloqueoCatalogo.readLock();
+        try {
+            return sistema.productosMasCaros(cantidad);
+        } finally {
+            bloqueoCatalogo.unlockRead(stamp);
+        }
+    }
+
+    public ArrayList<Producto> productosMasBaratos(int cantidad) {
+        asegurarIndicePrecios();
+        long stamp = bloqueoCatalogo.readLock();
+        try {
+            return sistema.productosMasBaratos(cantidad);
+        } finally {
+            bloqueoCatalogo.unlockRead(stamp);
+        }
+    }
+
+    //El trie de nombres sigue el mismo esquema que el índice de precios
+    public ArrayList<Producto> buscarPorPrefijoNombre(String prefijo, int limite) {
+        asegurarIndiceNombres();
+        long stamp = bloqueoCatalogo.readLock();
+        try {
+            return sistema.buscarPorPrefijoNombre(prefijo, limite);
+        } finally {
+            bloqueoCatalogo.unlockRead(stamp);
+        }
+    }
+
+    //El montículo de umbrales tiene su propio monitor: alcanza con que no se eliminen productos
+    public ArrayList<Producto> productosBajoUmbral(int limite) {
+        long stamp = bloqueoCatalogo.readLock();
+        try {
+            return sistema.productosBajoUmbral(limite);
+        } finally {
+            bloqueoCatalogo.unlockRead(stamp);
+        }
+    }
+
+    public int obtenerUmbralReposicion(String codigoProducto) {
+        long stamp = bloqueoCatalogo.readLock();
+        try {
+            return sistema.obtenerUmbralReposicion(codigoProducto);
+        } finally {
+            bloqueoCatalogo.unlockRead(stamp);
+        }
+    }
+
+    //El oyente se llama desde el hilo que cambió el stock, con el bloqueo de lectura tomado
+    public void setOyenteUmbral(OyenteUmbral oyente) {
+        sistema.setOyenteUmbral(oyente);
+    }
+
+    private void asegurarIndicePrecios() {
+        if (sistema.indicePreciosArmado()) {
+            return;
+        }
+        long stamp = bloqueoCatalogo.writeLock();
+        try {
+            sistema.armarIndicePrecios();
+        } finally {
+            bloqueoCatalogo.unlockWrite(stamp);
+        }
+    }
+
+    private void asegurarIndiceNombres() {
+        if (sistema.indiceNombresArmado()) {
+            return;
+        }
+        long stamp = bloqueoCatalogo.writeLock();
+        try {
+            sistema.armarIndiceNombres();
+        } finally {
+            bloqueoCatalogo.unlockWrite(stamp);
+        }
+    }
+
+    /* ******************************************************************
+     * STOCK (bloqueo de lectura del catálogo + segmento del producto)
+     ****************************************************************** */
+
+    //El bloqueo de lectura impide que el producto se elimine mientras se actualiza su fila
+    public boolean actualizarStockProducto(String codigoProducto, int nuevoStock) {
+        if (codigoProducto == null) {
+            return false;
+        }
+        boolean resultado;
+        long stamp = bloqueoCatalogo.readLock();
+        try {
+            ReentrantLock bloqueo = bloqueoStock(codigoProducto);
+            bloqueo.lock();
+            try {
+                resultado = sistema.actualizarStockProducto(codigoProducto, nuevoStock);
+            } finally {
+                bloqueo.unlock();
+            }
+        } finally {
+            bloqueoCatalogo.unlockRead(stamp);
+        }
+        sistema.esperarBitacora();
+        return resultado;
+    }
+
+    //El lote cambia cada celda con un intercambio atómico: basta el bloqueo de lectura del catálogo,
+    //sin tomar un segmento por elemento
+    public byte[] actualizarStocksLote(String[] codigos, int[] nuevosStocks) {
+        byte[] resultado;
+        long stamp = bloqueoCatalogo.readLock();
+        try {
+            resultado = sistema.actualizarStocksLote(codigos, nuevosStocks);
+        } finally {
+            bloqueoCatalogo.unlockRead(stamp);
+        }
+        sistema.esperarBitacora();
+        return resultado;
+    }
+
+    /*
+    Reservas: la celda del producto se modifica con compare-and-set, no hace falta el segmento.
+    El bloqueo de lectura del catálogo solo evita que el producto se elimine durante la operación.
+     */
+    public boolean reservarStock(String codigoProducto, int cantidad) {
+        boolean resultado;
+        long stamp = bloqueoCatalogo.readLock();
+        try {
+            resultado = sistema.reservarStock(codigoProducto, cantidad);
+        } finally {
+            bloqueoCatalogo.unlockRead(stamp);
+        }
+        sistema.esperarBitacora();
+        return resultado;
+    }
+
+    public boolean liberarStock(String codigoProducto, int cantidad) {
+        boolean resultado;
+        long stamp = bloqueoCatalogo.readLock();
+        try {
+            resultado = sistema.liberarStock(codigoProducto, cantidad);
+        } finally {
+            bloqueoCatalogo.unlockRead(stamp);
+        }
+        sistema.esperarBitacora();
+        return resultado;
+    }
+
+    public boolean incrementarStock(String codigoProducto, int cantidad) {
+        boolean resultado;
+        long stamp = bloqueoCatalogo.readLock();
+        try {
+            resultado = sistema.incrementarStock(codigoProducto, cantidad);
+        } finally {
+            bloqueoCatalogo.unlockRead(stamp);
+        }
+        sistema.esperarBitacora();
+        return resultado;
+    }
+
+    /* ******************************************************************
+     * REPORTES (bloqueo de lectura)
+     ****************************************************************** */
+
+    //Los totales son sumadores: se leen sin esperar a las reservas en curso
+    public ResumenCategoria resumenCategoria(String nombreCategoria) {
+        long stamp = bloqueoCatalogo.readLock();
+        try {
+            return sistema.resumenCategoria(nombreCategoria);
+        } finally {
+            bloqueoCatalogo.unlockRead(stamp);
+        }
+    }
+
+    public ArrayList<ResumenCategoria> resumenCategorias() {
+        long stamp = bloqueoCatalogo.readLock();
+        try {
+            return sistema.resumenCategorias();
+        } finally {
+            bloqueoCatalogo.unlockRead(stamp);
+        }
+    }
+
+    public void mostrarCategorias() throws MensajeException {
+        long stamp = bloqueoCatalogo.readLock();
+        try {
+            sistema.mostrarCategorias();
+        } finally {
+            bloqueoCatalogo.unlockRead(stamp);
+        }
+    }
+
+    public void mostrarProductosPorCategoria(String nombreCategoria) {
+        long stamp = bloqueoCatalogo.readLock();
+        try {
+            sistema.mostrarProductosPorCategoria(nombreCategoria);
+        } finally {
+            bloqueoCatalogo.unlockRead(stamp);
+        }
+    }
+
+    public double valorTotalInventario() {
+        long stamp = bloqueoCatalogo.readLock();
+        try {
+            return sistema.valorTotalInventario();
+        } finally {
+            bloqueoCatalogo.unlockRead(stamp);
+        }
+    }
+
+    public void mostrarProductosYStocks() {
+        long stamp = bloqueoCatalogo.readLock();
+        try {
+            sistema.mostrarProductosYStocks();
+        } finally {
+            bloqueoCatalogo.unlockRead(stamp);
+        }
+    }
+}
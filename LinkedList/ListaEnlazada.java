@@ -3,12 +3,23 @@ package LinkedList;
 
 import Stack.Pila;
 
-public class ListaEnlazada<E> implements ListaTDA<E>{
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+public class ListaEnlazada<E> implements ListaTDA<E>, Iterable<E>{
     private Nodo<E> cabecera; //Se crea la variable cabecera de tipo Nodo
+    private Nodo<E> ultimo; //Último nodo de la lista (null si está vacía), permite insertLast en O(1)
+    private int cantidadNodos; //Tamaño de la lista mantenido en cada inserción y eliminación
+    private int modificaciones; //Cambios estructurales, usado por el cursor para detectar modificaciones
 
     public ListaEnlazada(){ //La lista comienza vacía
         cabecera = new Nodo<E>(null);
         cabecera.setSiguiente(null);
+        ultimo = null;
+        cantidadNodos = 0;
+        modificaciones = 0;
     }
 
     //Get de la cabecera de la lista
@@ -29,6 +40,22 @@ public class ListaEnlazada<E> implements ListaTDA<E>{
     //Set del sigueinte de la cabecera
     public void setSiguiente(Nodo<E> siguiente) {
         cabecera.setSiguiente(siguiente);
+        recalcularEnlaces(); //La cadena nueva puede tener cualquier tamaño y último nodo
+    }
+
+    //Recorre la lista una vez para volver a calcular el tamaño y el último nodo
+    private void recalcularEnlaces() {
+        int contador = 0;
+        Nodo<E> nodoTemporal = cabecera.getSiguiente();
+        Nodo<E> anterior = null;
+        while (nodoTemporal != null) {
+            anterior = nodoTemporal;
+            nodoTemporal = nodoTemporal.getSiguiente();
+            contador = contador + 1;
+        }
+        ultimo = anterior;
+        cantidadNodos = contador;
+        modificaciones++;
     }
 
     //Determina si la lista esta vacía
@@ -37,30 +64,30 @@ public class ListaEnlazada<E> implements ListaTDA<E>{
     }
 
     //Determina la longitud de elementos de la lista (el tamaño)
+    //El contador se mantiene en cada inserción y eliminación, por lo que es O(1)
     public int length(){
-        if (isEmpty()){ return 0;}
-        else {
-            int contador = 0; //Se crea una variable contador que cuente la cantidad de nodos
-            Nodo<E> nodoTemporal = cabecera.getSiguiente(); //Se asigna el valor del primer nodo a la variable nodoTemporal
-            while (nodoTemporal != null) { //Ciclo que verifica que no se termino de recorrer la lista
-                nodoTemporal = nodoTemporal.getSiguiente(); //NodoTemporal ahora tiene el valor del siguiente nodo
-                contador = contador + 1; //Y el contador se incrementa en uno
-            }
-            return contador; //Cuando se llega al ultimo nodo de la lista imprime el total
-        }
+        return cantidadNodos;
     }
 
     //Elimina los elementos de la lista dejandola vacía
     public void destroyList(){
         cabecera.setSiguiente(null);//La cabecera apunta a null
+        ultimo = null;
+        cantidadNodos = 0;
+        modificaciones++;
     }
 
-    //Verifica si el elemento x está en la lista y retorna su posición
+    //Verifica si el elemento x está en la lista y retorna su posición (lanza excepción si la lista está vacía)
     public int search(E valor) throws MensajeException{
         if (isEmpty()){ //Verifica si la lista esta vacía
             //Si esta vacía lanza una excepción
             throw new MensajeException("Lista enlazada vacía, no hay elementos.");
         }
+        return indexOf(valor);
+    }
+
+    //Posición del elemento en la lista o -1 si no está (también con la lista vacía), sin excepciones
+    public int indexOf(E valor){
         int posicion = 0; //Se crea una variable posicion que cuente la posicion del nodo
         Nodo<E> nodoTemporal = cabecera.getSiguiente(); //Se asigna el valor del primer nodo a la variable nodoTemporal
         while(nodoTemporal != null){ //Ciclo que verifica que no se termino de recorrer la lista
@@ -70,8 +97,7 @@ public class ListaEnlazada<E> implements ListaTDA<E>{
             nodoTemporal = nodoTemporal.getSiguiente(); //NodoTemporal ahora tiene el valor del siguiente nodo
             posicion = posicion + 1; //La posicion aumenta en uno
         }
-        //throw new MensajeException("No se encontró el valor en la lista enlazada.");
-        return -1;//Caso contrario retorna -1, no se encontro el elemento o  el nodo
+        return -1;//No se encontro el elemento o el nodo
     }
 
     //Busca el k-ésimo elemento por su posición y retorna el nodo (valor)
@@ -83,17 +109,22 @@ public class ListaEnlazada<E> implements ListaTDA<E>{
         else if (k < 0 || k >= length()) {
             throw new MensajeException("Posición fuera de rango.");
         }
-        int posicionK = 0; //Se crea una variable posicion que cuente la cantidad de nodos
+        return getK(k);
+    }
+
+    //Retorna el k-ésimo elemento o null si la posición está fuera de rango, sin excepciones
+    public E getK(int k){
+        if (k < 0 || k >= cantidadNodos){
+            return null;
+        }
+        if (k == cantidadNodos - 1){
+            return ultimo.getValor(); //El último se obtiene en O(1) (back de la cola, top de la pila)
+        }
         Nodo<E> nodoTemporal = cabecera.getSiguiente(); //Se asigna el valor del primer nodo a la variable nodoTemporal
-        while(nodoTemporal != null){ //Ciclo que verifica que no se termino de recorrer la lista
-            if (posicionK == k){ //Compara la posicion actual del nodoTemporal con k
-                return nodoTemporal.getValor(); //Retorna el valor del nodoTemporal o del nodo en la posicion K
-            }
-            nodoTemporal = nodoTemporal.getSiguiente(); //NodoTemporal ahora tiene el valor del siguiente nodo
-            posicionK = posicionK + 1; //Y  posicion se incrementa en uno
+        for (int posicionK = 0; posicionK < k; posicionK++){ //Avanza hasta la posición k
+            nodoTemporal = nodoTemporal.getSiguiente();
         }
-        throw new MensajeException("No se encontró el valor en la lista enlazada.");
-        //return null;
+        return nodoTemporal.getValor(); //Retorna el valor del nodo en la posicion K
     }
 
     /*
@@ -121,11 +152,7 @@ public class ListaEnlazada<E> implements ListaTDA<E>{
 
     //Verifica si el elemento está en la lista
     public boolean contains(E valor) {
-        try {
-            return search(valor) != -1;
-        } catch (MensajeException e) {
-            return false;
-        }
+        return indexOf(valor) != -1;
     }
 
     //Inserta el nuevo nodo al inicio de la lista
@@ -133,48 +160,67 @@ public class ListaEnlazada<E> implements ListaTDA<E>{
         Nodo<E> nuevoNodo = new Nodo<E> (nuevo); //Se crea un nuevo nodo con el valor del nuevo elemento
         nuevoNodo.setSiguiente(cabecera.getSiguiente()); // El nuevo nodo apunta al siguiente de cabecera
         cabecera.setSiguiente(nuevoNodo); //Y la cabecera apunta al nuevo nodo
+        if (ultimo == null) { //Si la lista estaba vacía el nuevo nodo también es el último
+            ultimo = nuevoNodo;
+        }
+        cantidadNodos++;
+        modificaciones++;
     }
 
     //Inserta el nuevo nodo a una posicion x en la lista
     public void insertPosicionK(E nuevo, int posicionK) throws MensajeException{
-        Nodo<E> nuevoNodo = new Nodo<E> (nuevo); //Se crea un nuevo nodo con el valor del nuevo elemento
         if (isEmpty() || posicionK == 0){ //Si la lista esta vacía
             insertFirst(nuevo); //Se inserta el nuevo nodo al inicio
         }
         else if (posicionK < 0 || posicionK > length()) {
             throw new MensajeException("Posición fuera de rango.");
         }
+        else if (posicionK == length()) { //Insertar después del último nodo
+            insertLast(nuevo);
+        }
         else{ //Caso contrario
+            Nodo<E> nuevoNodo = new Nodo<E> (nuevo); //Se crea un nuevo nodo con el valor del nuevo elemento
             Nodo<E> nodoAnterior = searchNodoK(posicionK-1); //El nodo anterior es el nodo anterior al nodo del medio
-            Nodo<E> nodoMedio = searchNodoK(posicionK); //El nodo del medio se refiere a el nodo el cual se desplazara de su posición
+            Nodo<E> nodoMedio = nodoAnterior.getSiguiente(); //El nodo del medio se refiere a el nodo el cual se desplazara de su posición
             nuevoNodo.setSiguiente(nodoMedio); //El nuevo nodo apuntara al nodo medio (nodo desplazado)
             nodoAnterior.setSiguiente(nuevoNodo); //El nodo anterior apuntara al nuevo nodo
+            cantidadNodos++;
+            modificaciones++;
         }
     }
 
-    //Inserta el nuevo nodo al final de la lista
+    //Inserta el nuevo nodo al final de la lista en O(1) usando la referencia al último nodo
     public void insertLast(E nuevo) throws MensajeException{
         Nodo<E> nuevoNodo = new Nodo<E> (nuevo); //Se crea un nuevo nodo con el nuevo elemento
         nuevoNodo.setSiguiente(null); //El siguiente del nuevo nodo apunta a null
         if (isEmpty()){ //Si la lista esta vacía
-            //nuevoNodo.setSiguiente(null);
             cabecera.setSiguiente(nuevoNodo); //La cabecera apunta al nuevo nodo
         }
         else{ //Caso contrario la lista no este vacía
-            //nuevoNodo.setSiguiente(null);
-            Nodo<E> nodoAnterior = searchNodoK(length()-1);//El nodo anterior sera el nodo que tenga la ultima posicion de la lista
-            nodoAnterior.setSiguiente(nuevoNodo); //Y el anterior nodo ultimo apunta al nuevo nodo
+            ultimo.setSiguiente(nuevoNodo); //El anterior nodo ultimo apunta al nuevo nodo
         }
+        ultimo = nuevoNodo;
+        cantidadNodos++;
+        modificaciones++;
     }
 
-    //Elimina un nodo de la lista enlazada por contenido (valor)
+    //Elimina un nodo de la lista enlazada por contenido (valor) en un solo recorrido
     public void removeNode(E nodo) throws MensajeException{
         if (isEmpty()){ //Verifica si la lista esta vacía
             //Si esta vacía lanza una excepción
             throw new MensajeException("Lista enlazada vacía, no hay elementos que eliminar.");
         }
-        int posicionNodo = search(nodo); //La variable posicionNodo sera la posicion del nodo a eliminar en la lista
-        removeNodeK(posicionNodo);
+        Nodo<E> nodoAnterior = cabecera;
+        Nodo<E> nodoTemporal = cabecera.getSiguiente();
+        while (nodoTemporal != null) {
+            if (nodoTemporal.getValor().equals(nodo)) {
+                desenlazar(nodoAnterior, nodoTemporal);
+                return;
+            }
+            nodoAnterior = nodoTemporal;
+            nodoTemporal = nodoTemporal.getSiguiente();
+        }
+        throw new MensajeException("No se encontró el valor en la lista enlazada.");
     }
 
     //Elimina un nodo de la lista enlazada por posición
@@ -186,13 +232,89 @@ public class ListaEnlazada<E> implements ListaTDA<E>{
         else if (posicionK < 0 || posicionK >= length()) {
             throw new MensajeException("Posición fuera de rango.");
         } else if (posicionK == 0) {
-            cabecera.setSiguiente(cabecera.getSiguiente().getSiguiente());
+            desenlazar(cabecera, cabecera.getSiguiente());
             return;
         }
-        Nodo<E> nodoEliminado = searchNodoK(posicionK); //nodoEliminado es el nodo en la posicion del nodo que se quiere eliminar
-        if (nodoEliminado != null){
-            Nodo<E> nodoAnterior = searchNodoK(posicionK-1); //El nodo anterior es el nodo anterior que apunta al nodo que se quiere eliminar
-            nodoAnterior.setSiguiente(nodoEliminado.getSiguiente()); //El nodo anterior al nodo eliminado apunta al siguiente del nodo eliminado
+        Nodo<E> nodoAnterior = searchNodoK(posicionK-1); //El nodo anterior es el nodo anterior que apunta al nodo que se quiere eliminar
+        desenlazar(nodoAnterior, nodoAnterior.getSiguiente());
+    }
+
+    //Quita el nodo de la cadena dado su nodo anterior (la cabecera si es el primero)
+    private void desenlazar(Nodo<E> nodoAnterior, Nodo<E> nodoEliminado) {
+        nodoAnterior.setSiguiente(nodoEliminado.getSiguiente()); //El nodo anterior al nodo eliminado apunta al siguiente del nodo eliminado
+        if (nodoEliminado == ultimo) {
+            ultimo = (nodoAnterior == cabecera) ? null : nodoAnterior;
+        }
+        cantidadNodos--;
+        modificaciones++;
+    }
+
+    //Elimina en un solo recorrido todos los elementos que cumplen la condición
+    //Retorna true si se eliminó al menos uno
+    public boolean removeIf(Predicate<? super E> condicion) {
+        boolean eliminado = false;
+        Nodo<E> nodoAnterior = cabecera;
+        Nodo<E> nodoTemporal = cabecera.getSiguiente();
+        while (nodoTemporal != null) {
+            Nodo<E> siguiente = nodoTemporal.getSiguiente();
+            if (condicion.test(nodoTemporal.getValor())) {
+                desenlazar(nodoAnterior, nodoTemporal);
+                eliminado = true;
+            } else {
+                nodoAnterior = nodoTemporal;
+            }
+            nodoTemporal = siguiente;
+        }
+        return eliminado;
+    }
+
+    //Cursor que recorre la lista nodo a nodo
+    public Iterator<E> iterator() {
+        return new CursorLista();
+    }
+
+    /*
+    Cursor fail-fast: si la lista cambia por fuera del cursor durante el recorrido
+    lanza ConcurrentModificationException. Su propio remove() desenlaza en O(1)
+    el último nodo retornado, porque conserva el nodo anterior.
+     */
+    private class CursorLista implements Iterator<E> {
+        private Nodo<E> anterior = cabecera; //Nodo previo al último retornado
+        private Nodo<E> actual = null; //Último nodo retornado por next(), null si no hay o ya se eliminó
+        private Nodo<E> siguiente = cabecera.getSiguiente();
+        private int modificacionesEsperadas = modificaciones;
+
+        public boolean hasNext() {
+            return siguiente != null;
+        }
+
+        public E next() {
+            verificarModificaciones();
+            if (siguiente == null) {
+                throw new NoSuchElementException();
+            }
+            if (actual != null) {
+                anterior = actual;
+            }
+            actual = siguiente;
+            siguiente = siguiente.getSiguiente();
+            return actual.getValor();
+        }
+
+        public void remove() {
+            verificarModificaciones();
+            if (actual == null) {
+                throw new IllegalStateException("next() no fue llamado o el elemento ya se eliminó.");
+            }
+            desenlazar(anterior, actual);
+            actual = null;
+            modificacionesEsperadas = modificaciones;
+        }
+
+        private void verificarModificaciones() {
+            if (modificaciones != modificacionesEsperadas) {
+                throw new ConcurrentModificationException();
+            }
         }
     }
 
@@ -233,12 +355,10 @@ public class ListaEnlazada<E> implements ListaTDA<E>{
         if(isEmpty()){
             throw new MensajeException("Lista vacía, no se puede imprimir nada."); //Lanza un mensaje
         }
-        Nodo<E> nodoTemporal = cabecera.getSiguiente(); //Se asigna el valor del primer nodo a la variable nodoTemporal
         Pila<E> invertido = new Pila<>(); //Se crea una nueva lista de tipo Pila
 
-        while(nodoTemporal != cabecera){ //Ciclo que verifica que no se llego al inicio de la lista
-            invertido.push(nodoTemporal.getValor());
-            nodoTemporal = nodoTemporal.getSiguiente();
+        for (E valor : this) { //Recorre la lista con el cursor hasta el último nodo
+            invertido.push(valor);
         }
 
         StringBuilder listaInvertida = new StringBuilder();
@@ -8,6 +8,8 @@ public interface ListaTDA<E> {
     void destroyList(); //Método que elimina los elementos de la lista dejandola vacía
     int search(E valor) throws MensajeException; //Método que verifica si el elemento x está en la lista y retorna su posición
     E searchK(int k) throws MensajeException; //Método que busca el k-ésimo elemento
+    int indexOf(E valor); //Método que retorna la posición del elemento o -1, sin excepciones
+    E getK(int k); //Método que retorna el k-ésimo elemento o null, sin excepciones
     void insertFirst(E valor); //Método que inserta el nuevo nodo al inicio de la lista
     void insertLast(E valor) throws MensajeException; //Método que inserta el nuevo nodo al final de la lista
     void removeNode(E valor) throws MensajeException; //Método que elimina un nodo de la lista enlazada
@@ -0,0 +1,126 @@
+package MatrizDispersa;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+//Imagen consistente de una MatrizDispersaInt en el instante de MatrizDispersaInt.capturar().
+//Funciona por copia en escritura a nivel de bloque: la primera escritura de la matriz sobre un
+//bloque que la captura todavía no leyó copia antes el bloque (valores y presencia) y la captura
+//lee esa copia. Los bloques que nadie modificó se leen directamente de la matriz, sin copiarlos.
+//Una vez que la captura leyó un bloque lo marca como leído y las escrituras dejan de copiarlo.
+//La copia y la lectura de un bloque se sincronizan con el monitor del int[] del bloque; las
+//escrituras sobre bloques ya copiados o leídos no toman ningún bloqueo.
+public class CapturaMatrizInt {
+    //Marca de bloque ya leído por la captura: las escrituras no necesitan copiarlo
+    private static final int[] LEIDO = new int[0];
+
+    private final MatrizDispersaInt matriz;
+    private final int[][][] valores; //Referencias a los bloques en el instante de la captura
+    private final long[][][] presencia;
+    private final int desplazamientoBloque;
+    private final int mascaraBloque;
+    private final int filas;
+    private final int columnas;
+    private final int bloques;
+    //Copia de cada bloque (índice columna * bloques + bloque), LEIDO o null si sigue intacto
+    private final AtomicReferenceArray<int[]> copiasValores;
+    private final AtomicReferenceArray<long[]> copiasPresencia;
+    private volatile boolean liberada;
+
+    CapturaMatrizInt(MatrizDispersaInt matriz, int[][][] valores, long[][][] presencia,
+                     int desplazamientoBloque, int filas, int columnas) {
+        this.matriz = matriz;
+        this.columnas = columnas;
+        this.filas = filas;
+        this.desplazamientoBloque = desplazamientoBloque;
+        this.mascaraBloque = (1 << desplazamientoBloque) - 1;
+        this.bloques = ((filas - 1) >>> desplazamientoBloque) + 1;
+        //Los arreglos de referencias pueden reemplazarse al crecer: se copian solo las referencias
+        this.valores = new int[columnas][][];
+        this.presencia = new long[columnas][][];
+        for (int j = 0; j < columnas; j++) {
+            this.valores[j] = Arrays.copyOf(valores[j], bloques);
+            this.presencia[j] = Arrays.copyOf(presencia[j], bloques);
+        }
+        this.copiasValores = new AtomicReferenceArray<>(columnas * bloques);
+        this.copiasPresencia = new AtomicReferenceArray<>(columnas * bloques);
+    }
+
+    //Llamado por la matriz antes de modificar una celda del bloque
+    void antesDeEscribir(int columna, int bloque) {
+        if (bloque >= bloques) {
+            return; //Bloque agregado después de la captura
+        }
+        int indice = columna * bloques + bloque;
+        if (copiasValores.get(indice) != null) {
+            return;
+        }
+        int[] celdas = valores[columna][bloque];
+        synchronized (celdas) {
+            if (copiasValores.get(indice) == null) {
+                copiasPresencia.set(indice, presencia[columna][bloque].clone());
+                copiasValores.set(indice, celdas.clone()); //Se publica último: indica que la copia está completa
+            }
+        }
+    }
+
+    //Llamado por la matriz antes de modificar todos los bloques (limpiar)
+    void antesDeEscribirTodo() {
+        for (int j = 0; j < columnas; j++) {
+            for (int b = 0; b < bloques; b++) {
+                antesDeEscribir(j, b);
+            }
+        }
+    }
+
+    public int getFilas() {
+        return filas;
+    }
+
+    public int getColumnas() {
+        return columnas;
+    }
+
+    /*
+    Copia a destino[0, cantidad) los valores de la columna en el instante de la captura, bloque por
+    bloque, y en 'presentes' (si no es null) marca con true las celdas que tenían valor almacenado.
+    Cada bloque queda marcado como leído: pensado para recorrer la captura una sola vez.
+     */
+    public void copiarColumna(int columna, int[] destino, boolean[] presentes, int cantidad) {
+        if (columna < 0 || columna >= columnas || cantidad < 0 || cantidad > filas) {
+            throw new IndexOutOfBoundsException("Columna o cantidad fuera de la captura: " + columna + ", " + cantidad);
+        }
+        for (int b = 0; b < bloques && (b << desplazamientoBloque) < cantidad; b++) {
+            int primeraFila = b << desplazamientoBloque;
+            int filasBloque = Math.min(mascaraBloque + 1, cantidad - primeraFila);
+            int indice = columna * bloques + b;
+            int[] celdas = valores[columna][b];
+            synchronized (celdas) {
+                int[] copia = copiasValores.get(indice);
+                if (copia == LEIDO) {
+                    throw new IllegalStateException("El bloque " + b + " de la columna " + columna + " ya se leyó de la captura");
+                }
+                boolean intacto = copia == null;
+                int[] origen = intacto ? celdas : copia;
+                long[] bits = intacto ? presencia[columna][b] : copiasPresencia.get(indice);
+                System.arraycopy(origen, 0, destino, primeraFila, filasBloque);
+                if (presentes != null) {
+                    for (int i = 0; i < filasBloque; i++) {
+                        presentes[primeraFila + i] = (bits[i >>> 6] & (1L << i)) != 0;
+                    }
+                }
+                //Ya no hace falta conservar el bloque: se liberan la copia y las copias futuras
+                copiasPresencia.set(indice, null);
+                copiasValores.set(indice, LEIDO);
+            }
+        }
+    }
+
+    //Deja de conservar bloques; la matriz vuelve a escribir sin controles
+    public void liberar() {
+        if (!liberada) {
+            liberada = true;
+            matriz.terminarCaptura(this);
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package MatrizDispersa;
 
 import LinkedList.ListaEnlazada;
-import LinkedList.MensajeException;
+
+import java.util.Arrays;
+import java.util.Iterator;
 
 public class MatrizDispersa<T> {
 
@@ -45,20 +47,43 @@ public class MatrizDispersa<T> {
         }
     }
 
-    private ListaEnlazada<ElementoMatriz> elementos;
+    private ListaEnlazada<ElementoMatriz> elementos; //Usada solo con LISTA_ENLAZADA
+    private TablaCoordenadas<T> tabla; //Usada con TABLA_HASH y TABLA_HASH_INDICE_FILAS
+    private final TipoAlmacenamiento tipoAlmacenamiento;
     private int totalFilas;
     private int totalColumnas;
     private T valorPorDefecto;
 
     //Constructor principal
     public MatrizDispersa(int filas, int columnas, T valorPorDefecto) {
+        this(filas, columnas, valorPorDefecto, TipoAlmacenamiento.LISTA_ENLAZADA);
+    }
+
+    //Constructor que permite elegir el motor de almacenamiento
+    public MatrizDispersa(int filas, int columnas, T valorPorDefecto, TipoAlmacenamiento tipoAlmacenamiento) {
+        this(filas, columnas, valorPorDefecto, tipoAlmacenamiento, 0);
+    }
+
+    //Constructor con motor de almacenamiento y cantidad esperada de elementos no nulos
+    //(permite dimensionar la tabla hash desde el inicio y evitar redimensiones)
+    public MatrizDispersa(int filas, int columnas, T valorPorDefecto, TipoAlmacenamiento tipoAlmacenamiento,
+                          int elementosEsperados) {
         if (filas <= 0 || columnas <= 0) {
             throw new IllegalArgumentException("Las dimensiones deben ser positivas");
         }
+        if (tipoAlmacenamiento == null) {
+            throw new IllegalArgumentException("El tipo de almacenamiento no puede ser null");
+        }
         this.totalFilas = filas;
         this.totalColumnas = columnas;
         this.valorPorDefecto = valorPorDefecto;
-        this.elementos = new ListaEnlazada<>();
+        this.tipoAlmacenamiento = tipoAlmacenamiento;
+        if (tipoAlmacenamiento == TipoAlmacenamiento.LISTA_ENLAZADA) {
+            this.elementos = new ListaEnlazada<>();
+        } else {
+            this.tabla = new TablaCoordenadas<>(elementosEsperados, filas,
+                    tipoAlmacenamiento == TipoAlmacenamiento.TABLA_HASH_INDICE_FILAS);
+        }
     }
 
     //Constructor sin valor por defecto (será null)
@@ -66,6 +91,15 @@ public class MatrizDispersa<T> {
         this(filas, columnas, null);
     }
 
+    //Crea una matriz vacía con el mismo motor de almacenamiento que esta
+    private MatrizDispersa<T> crearVacia(int filas, int columnas, int elementosEsperados) {
+        return new MatrizDispersa<>(filas, columnas, valorPorDefecto, tipoAlmacenamiento, elementosEsperados);
+    }
+
+    private boolean usaTabla() {
+        return tabla != null;
+    }
+
     //Valida que las coordenadas estén dentro de los límites
     private void validarCoordenadas(int fila, int columna) {
         if (fila < 0 || fila >= totalFilas || columna < 0 || columna >= totalColumnas) {
@@ -77,27 +111,30 @@ public class MatrizDispersa<T> {
 
     //Busca un elemento en la lista por coordenadas
     private ElementoMatriz buscarElemento(int fila, int columna) {
-        ElementoMatriz elementoBuscado = new ElementoMatriz(fila, columna, null);
-
-        try {
-            // Recorrer la lista buscando el elemento
-            for (int i = 0; i < elementos.length(); i++) {
-                ElementoMatriz elemento = elementos.searchK(i);
-                if (elemento.getFila() == fila && elemento.getColumna() == columna) {
-                    return elemento;
-                }
+        // Recorrer la lista buscando el elemento
+        for (ElementoMatriz elemento : elementos) {
+            if (elemento.getFila() == fila && elemento.getColumna() == columna) {
+                return elemento;
             }
-        } catch (MensajeException e) {
-            throw new RuntimeException(e);
         }
-
         return null;
     }
 
+    //Agrega un elemento a la lista sin buscar si la coordenada ya existe
+    //Solo se usa cuando el origen garantiza coordenadas distintas (copiar, transponer)
+    private void agregarSinBuscar(int fila, int columna, T valor) {
+        elementos.insertFirst(new ElementoMatriz(fila, columna, valor));
+    }
+
     //Establece un valor en la posición especificada
     public void establecer(int fila, int columna, T valor) {
         validarCoordenadas(fila, columna);
 
+        if (usaTabla()) {
+            tabla.poner(TablaCoordenadas.empaquetar(fila, columna), valor);
+            return;
+        }
+
         ElementoMatriz elementoExistente = buscarElemento(fila, columna);
 
         if (elementoExistente != null) {
@@ -114,6 +151,15 @@ public class MatrizDispersa<T> {
     public T obtener(int fila, int columna) {
         validarCoordenadas(fila, columna);
 
+        if (usaTabla()) {
+            long clave = TablaCoordenadas.empaquetar(fila, columna);
+            T valor = tabla.obtener(clave);
+            if (valor != null || tabla.contiene(clave)) {
+                return valor;
+            }
+            return valorPorDefecto;
+        }
+
         ElementoMatriz elemento = buscarElemento(fila, columna);
         if (elemento != null) {
             return elemento.getValor();
@@ -125,12 +171,18 @@ public class MatrizDispersa<T> {
     public void eliminar(int fila, int columna) {
         validarCoordenadas(fila, columna);
 
-        ElementoMatriz elemento = buscarElemento(fila, columna);
-        if (elemento != null) {
-            try {
-                elementos.removeNode(elemento);
-            } catch (MensajeException e) {
-                // El elemento no existe, no hacer nada
+        if (usaTabla()) {
+            tabla.eliminar(TablaCoordenadas.empaquetar(fila, columna));
+            return;
+        }
+
+        //Se desenlaza desde el cursor en el mismo recorrido de la búsqueda
+        Iterator<ElementoMatriz> cursor = elementos.iterator();
+        while (cursor.hasNext()) {
+            ElementoMatriz elemento = cursor.next();
+            if (elemento.getFila() == fila && elemento.getColumna() == columna) {
+                cursor.remove();
+                return;
             }
         }
     }
@@ -138,16 +190,26 @@ public class MatrizDispersa<T> {
     //Verifica si existe un valor en la posición especificada
     public boolean existe(int fila, int columna) {
         validarCoordenadas(fila, columna);
+        if (usaTabla()) {
+            return tabla.contiene(TablaCoordenadas.empaquetar(fila, columna));
+        }
         return buscarElemento(fila, columna) != null;
     }
 
     //Limpia toda la matriz
     public void limpiar() {
+        if (usaTabla()) {
+            tabla.limpiar();
+            return;
+        }
         elementos.destroyList();
     }
 
     //Retorna el número de elementos no nulos almacenados
     public int cantidadElementos() {
+        if (usaTabla()) {
+            return tabla.cantidad();
+        }
         return elementos.length();
     }
 
@@ -166,11 +228,38 @@ public class MatrizDispersa<T> {
         return valorPorDefecto;
     }
 
+    //Retorna el motor de almacenamiento elegido al construir la matriz
+    public TipoAlmacenamiento getTipoAlmacenamiento() {
+        return tipoAlmacenamiento;
+    }
+
     //Verifica si la matriz está vacía (no tiene elementos no nulos)
     public boolean estaVacia() {
+        if (usaTabla()) {
+            return tabla.cantidad() == 0;
+        }
         return elementos.isEmpty();
     }
 
+    //Retorna las columnas con valor almacenado en una fila
+    //Con TABLA_HASH_INDICE_FILAS solo se recorren las columnas ocupadas de esa fila
+    public int[] columnasOcupadasFila(int fila) {
+        validarCoordenadas(fila, 0);
+
+        if (usaTabla() && tabla.tieneIndiceFilas()) {
+            return tabla.columnasDeFila(fila);
+        }
+
+        int[] columnas = new int[totalColumnas];
+        int cantidad = 0;
+        for (int j = 0; j < totalColumnas; j++) {
+            if (existe(fila, j)) {
+                columnas[cantidad++] = j;
+            }
+        }
+        return Arrays.copyOf(columnas, cantidad);
+    }
+
     //Muestra la matriz completa (incluyendo valores por defecto)
     public void mostrarMatriz() {
         System.out.println("Matriz " + totalFilas + "x" + totalColumnas + ":");
@@ -187,32 +276,46 @@ public class MatrizDispersa<T> {
     public void mostrarElementosNoNulos() {
         System.out.println("Elementos no nulos (" + cantidadElementos() + "):");
 
-        if (elementos.isEmpty()) {
+        if (estaVacia()) {
             System.out.println("La matriz está vacía.");
             return;
         }
 
-        try {
-            for (int i = 0; i < elementos.length(); i++) {
-                ElementoMatriz elemento = elementos.searchK(i);
-                System.out.println(elemento);
+        if (usaTabla()) {
+            for (int i = 0; i < tabla.capacidadTabla(); i++) {
+                if (tabla.ocupada(i)) {
+                    long clave = tabla.claveEn(i);
+                    System.out.println("(" + TablaCoordenadas.filaDe(clave) + "," + TablaCoordenadas.columnaDe(clave)
+                            + ") = " + tabla.valorEn(i));
+                }
             }
-        } catch (MensajeException e) {
-            System.out.println("Error al mostrar elementos: " + e.getMessage());
+            return;
+        }
+
+        for (ElementoMatriz elemento : elementos) {
+            System.out.println(elemento);
         }
     }
 
     //Transpone la matriz (intercambia filas por columnas)
     public MatrizDispersa<T> transponer() {
-        MatrizDispersa<T> resultado = new MatrizDispersa<>(totalColumnas, totalFilas, valorPorDefecto);
-
-        try {
-            for (int i = 0; i < elementos.length(); i++) {
-                ElementoMatriz elemento = elementos.searchK(i);
-                resultado.establecer(elemento.getColumna(), elemento.getFila(), elemento.getValor());
+        MatrizDispersa<T> resultado = crearVacia(totalColumnas, totalFilas, cantidadElementos());
+
+        if (usaTabla()) {
+            //Un solo recorrido de la tabla: O(elementos no nulos)
+            for (int i = 0; i < tabla.capacidadTabla(); i++) {
+                if (tabla.ocupada(i)) {
+                    long clave = tabla.claveEn(i);
+                    resultado.tabla.poner(TablaCoordenadas.empaquetar(TablaCoordenadas.columnaDe(clave),
+                            TablaCoordenadas.filaDe(clave)), tabla.valorEn(i));
+                }
             }
-        } catch (MensajeException e) {
-            System.out.println("Error al transponer: " + e.getMessage());
+            return resultado;
+        }
+
+        //Cada elemento de la lista es una coordenada distinta, así que se agregan sin volver a buscar
+        for (ElementoMatriz elemento : elementos) {
+            resultado.agregarSinBuscar(elemento.getColumna(), elemento.getFila(), elemento.getValor());
         }
 
         return resultado;
@@ -220,15 +323,17 @@ public class MatrizDispersa<T> {
 
     //Crea una copia de la matriz
     public MatrizDispersa<T> copiar() {
+        if (usaTabla()) {
+            //Se clonan los arreglos de la tabla directamente, sin volver a insertar
+            MatrizDispersa<T> copia = crearVacia(totalFilas, totalColumnas, 0);
+            copia.tabla = tabla.copiar();
+            return copia;
+        }
+
         MatrizDispersa<T> copia = new MatrizDispersa<>(totalFilas, totalColumnas, valorPorDefecto);
 
-        try {
-            for (int i = 0; i < elementos.length(); i++) {
-                ElementoMatriz elemento = elementos.searchK(i);
-                copia.establecer(elemento.getFila(), elemento.getColumna(), elemento.getValor());
-            }
-        } catch (MensajeException e) {
-            System.out.println("Error al copiar: " + e.getMessage());
+        for (ElementoMatriz elemento : elementos) {
+            copia.agregarSinBuscar(elemento.getFila(), elemento.getColumna(), elemento.getValor());
         }
 
         return copia;
@@ -241,31 +346,48 @@ public class MatrizDispersa<T> {
             throw new IllegalArgumentException("Las matrices deben tener las mismas dimensiones");
         }
 
+        if (usaTabla()) {
+            //Copia lineal de esta matriz y un recorrido lineal de la otra
+            MatrizDispersa<T> resultado = copiar();
+            otra.recorrerElementos(resultado::establecer);
+            return resultado;
+        }
+
         MatrizDispersa<T> resultado = new MatrizDispersa<>(totalFilas, totalColumnas, valorPorDefecto);
 
         // Copiar elementos de la primera matriz
-        try {
-            for (int i = 0; i < elementos.length(); i++) {
-                ElementoMatriz elemento = elementos.searchK(i);
-                resultado.establecer(elemento.getFila(), elemento.getColumna(), elemento.getValor());
-            }
+        for (ElementoMatriz elemento : elementos) {
+            resultado.agregarSinBuscar(elemento.getFila(), elemento.getColumna(), elemento.getValor());
+        }
+
+        // Procesar elementos de la segunda matriz
+        // Si ya existe un elemento en esta posición, necesitarías implementar la suma
+        // Por ahora, simplemente sobrescribe
+        otra.recorrerElementos(resultado::establecer);
 
-            // Procesar elementos de la segunda matriz
-            for (int i = 0; i < otra.elementos.length(); i++) {
-                ElementoMatriz elemento = otra.elementos.searchK(i);
-                int fila = elemento.getFila();
-                int columna = elemento.getColumna();
-                T valor = elemento.getValor();
+        return resultado;
+    }
+
+    //Acción aplicada a cada elemento no nulo durante un recorrido
+    public interface VisitanteElemento<T> {
+        void visitar(int fila, int columna, T valor);
+    }
 
-                // Si ya existe un elemento en esta posición, necesitarías implementar la suma
-                // Por ahora, simplemente sobrescribe
-                resultado.establecer(fila, columna, valor);
+    //Recorre todos los elementos almacenados, sin importar el motor de almacenamiento
+    public void recorrerElementos(VisitanteElemento<T> visitante) {
+        if (usaTabla()) {
+            for (int i = 0; i < tabla.capacidadTabla(); i++) {
+                if (tabla.ocupada(i)) {
+                    long clave = tabla.claveEn(i);
+                    visitante.visitar(TablaCoordenadas.filaDe(clave), TablaCoordenadas.columnaDe(clave), tabla.valorEn(i));
+                }
             }
-        } catch (MensajeException e) {
-            System.out.println("Error al sumar matrices: " + e.getMessage());
+            return;
         }
 
-        return resultado;
+        for (ElementoMatriz elemento : elementos) {
+            visitante.visitar(elemento.getFila(), elemento.getColumna(), elemento.getValor());
+        }
     }
 
     //Obtiene todos los elementos de una fila específica
@@ -0,0 +1,396 @@
+package MatrizDispersa;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+//Matriz de enteros especializada para tipos primitivos.
+//Cada columna es un int[] con un valor por fila y un mapa de bits (long[]) que indica
+//qué celdas tienen valor almacenado. Establecer u obtener no crea objetos ni hace boxing:
+//cada celda ocupa 4 bytes más 1 bit de presencia.
+//Las filas se guardan en bloques de tamaño fijo (potencia de dos): agregarFilas solo suma
+//bloques nuevos, nunca copia los existentes, y una celda no cambia de arreglo al crecer.
+public class MatrizDispersaInt {
+    //Acceso atómico a cada celda de los int[] de columna (compareAndSet, getAndAdd, lectura volátil)
+    private static final VarHandle CELDA = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final int DESPLAZAMIENTO_BLOQUE_MINIMO = 6; //64 filas: una palabra de presencia
+    private static final int DESPLAZAMIENTO_BLOQUE_MAXIMO = 12; //4096 filas
+
+    private int[][][] valores; //valores[columna][bloque][fila dentro del bloque]
+    private long[][][] presencia; //presencia[columna][bloque][desplazamiento / 64], bit (desplazamiento % 64)
+    private final int desplazamientoBloque; //log2 de las filas por bloque
+    private final int mascaraBloque; //filas por bloque - 1
+    private int totalFilas;
+    private int totalColumnas;
+    private int valorPorDefecto;
+    private int cantidadElementos;
+    //Captura activa (null = ninguna): las escrituras le avisan antes de modificar un bloque
+    private volatile CapturaMatrizInt captura;
+
+    //Constructor principal
+    public MatrizDispersaInt(int filas, int columnas, int valorPorDefecto) {
+        this(filas, columnas, valorPorDefecto, desplazamientoParaFilas(filas));
+    }
+
+    private MatrizDispersaInt(int filas, int columnas, int valorPorDefecto, int desplazamientoBloque) {
+        if (filas <= 0 || columnas <= 0) {
+            throw new IllegalArgumentException("Las dimensiones deben ser positivas");
+        }
+        this.totalFilas = filas;
+        this.totalColumnas = columnas;
+        this.valorPorDefecto = valorPorDefecto;
+        this.desplazamientoBloque = desplazamientoBloque;
+        this.mascaraBloque = (1 << desplazamientoBloque) - 1;
+        this.cantidadElementos = 0;
+
+        int bloques = bloquesParaFilas(filas);
+        this.valores = new int[columnas][bloques][];
+        this.presencia = new long[columnas][bloques][];
+        for (int j = 0; j < columnas; j++) {
+            for (int b = 0; b < bloques; b++) {
+                crearBloque(j, b);
+            }
+        }
+    }
+
+    //Constructor con valor por defecto 0
+    public MatrizDispersaInt(int filas, int columnas) {
+        this(filas, columnas, 0);
+    }
+
+    //Bloques del tamaño de la matriz (entre 64 y 4096 filas): una matriz chica no reserva de más
+    private static int desplazamientoParaFilas(int filas) {
+        int desplazamiento = 32 - Integer.numberOfLeadingZeros(Math.max(filas, 1) - 1);
+        return Math.max(DESPLAZAMIENTO_BLOQUE_MINIMO, Math.min(DESPLAZAMIENTO_BLOQUE_MAXIMO, desplazamiento));
+    }
+
+    private int bloquesParaFilas(int filas) {
+        return ((filas - 1) >>> desplazamientoBloque) + 1;
+    }
+
+    private void crearBloque(int columna, int bloque) {
+        int[] celdas = new int[mascaraBloque + 1];
+        if (valorPorDefecto != 0) {
+            Arrays.fill(celdas, valorPorDefecto);
+        }
+        valores[columna][bloque] = celdas;
+        presencia[columna][bloque] = new long[(mascaraBloque + 1 + 63) >>> 6];
+    }
+
+    //Arreglo que contiene la celda (fila, columna); la posición dentro es fila & mascaraBloque
+    private int[] bloqueDe(int fila, int columna) {
+        return valores[columna][fila >>> desplazamientoBloque];
+    }
+
+    private long[] presenciaDe(int fila, int columna) {
+        return presencia[columna][fila >>> desplazamientoBloque];
+    }
+
+    /*
+    Agrega filas al final de la matriz (con el valor por defecto y sin elementos almacenados).
+    Solo se crean los bloques que faltan; los arreglos de referencias a bloques se amplían al doble,
+    así que crecer de a poco cuesta O(1) amortizado y las celdas existentes no se mueven.
+     */
+    public void agregarFilas(int cantidad) {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad de filas a agregar debe ser positiva");
+        }
+        if (cantidad > Integer.MAX_VALUE - totalFilas) {
+            throw new IllegalArgumentException("La matriz no puede superar " + Integer.MAX_VALUE + " filas");
+        }
+        int nuevasFilas = totalFilas + cantidad;
+        int bloquesActuales = bloquesParaFilas(totalFilas);
+        int bloquesNecesarios = bloquesParaFilas(nuevasFilas);
+
+        if (bloquesNecesarios > valores[0].length) {
+            int capacidadBloques = Math.max(bloquesNecesarios, valores[0].length * 2);
+            for (int j = 0; j < totalColumnas; j++) {
+                valores[j] = Arrays.copyOf(valores[j], capacidadBloques);
+                presencia[j] = Arrays.copyOf(presencia[j], capacidadBloques);
+            }
+        }
+        for (int j = 0; j < totalColumnas; j++) {
+            for (int b = bloquesActuales; b < bloquesNecesarios; b++) {
+                crearBloque(j, b);
+            }
+        }
+        totalFilas = nuevasFilas;
+    }
+
+    //Filas por bloque de almacenamiento
+    public int getFilasPorBloque() {
+        return mascaraBloque + 1;
+    }
+
+    /*
+    Toma una imagen consistente de la matriz sin copiarla: desde ahora cada escritura conserva el
+    bloque que modifica hasta que la captura lo lee (ver CapturaMatrizInt). Quien llama debe
+    asegurar que ninguna escritura esté en curso en este momento. Solo puede haber una captura
+    activa; liberarla con CapturaMatrizInt.liberar().
+     */
+    public CapturaMatrizInt capturar() {
+        if (captura != null) {
+            throw new IllegalStateException("La matriz ya tiene una captura activa");
+        }
+        CapturaMatrizInt nueva = new CapturaMatrizInt(this, valores, presencia, desplazamientoBloque, totalFilas, totalColumnas);
+        captura = nueva;
+        return nueva;
+    }
+
+    void terminarCaptura(CapturaMatrizInt terminada) {
+        if (captura == terminada) {
+            captura = null;
+        }
+    }
+
+    private void antesDeEscribir(int fila, int columna) {
+        CapturaMatrizInt activa = captura;
+        if (activa != null) {
+            activa.antesDeEscribir(columna, fila >>> desplazamientoBloque);
+        }
+    }
+
+    //Valida que las coordenadas estén dentro de los límites
+    private void validarCoordenadas(int fila, int columna) {
+        if (fila < 0 || fila >= totalFilas || columna < 0 || columna >= totalColumnas) {
+            throw new IndexOutOfBoundsException(
+                    "Coordenadas fuera de rango: (" + fila + "," + columna +
+                            "). Rango válido: [0," + (totalFilas - 1) + "] x [0," + (totalColumnas - 1) + "]");
+        }
+    }
+
+    private boolean estaPresente(int fila, int columna) {
+        return (presenciaDe(fila, columna)[(fila & mascaraBloque) >>> 6] & (1L << fila)) != 0;
+    }
+
+    //Establece un valor en la posición especificada
+    public void establecer(int fila, int columna, int valor) {
+        validarCoordenadas(fila, columna);
+        antesDeEscribir(fila, columna);
+
+        long[] bits = presenciaDe(fila, columna);
+        int palabra = (fila & mascaraBloque) >>> 6;
+        long mascara = 1L << fila; //El desplazamiento de un long solo usa los 6 bits bajos
+        if ((bits[palabra] & mascara) == 0) {
+            bits[palabra] |= mascara;
+            cantidadElementos++;
+        }
+        bloqueDe(fila, columna)[fila & mascaraBloque] = valor;
+    }
+
+    //Obtiene el valor en la posición especificada
+    public int obtener(int fila, int columna) {
+        validarCoordenadas(fila, columna);
+        //Las celdas sin valor guardan el valor por defecto, no hace falta consultar el bit
+        return bloqueDe(fila, columna)[fila & mascaraBloque];
+    }
+
+    //Elimina el valor en la posición especificada
+    public void eliminar(int fila, int columna) {
+        validarCoordenadas(fila, columna);
+        antesDeEscribir(fila, columna);
+
+        if (estaPresente(fila, columna)) {
+            presenciaDe(fila, columna)[(fila & mascaraBloque) >>> 6] &= ~(1L << fila);
+            bloqueDe(fila, columna)[fila & mascaraBloque] = valorPorDefecto;
+            cantidadElementos--;
+        }
+    }
+
+    /*
+    OPERACIONES ATÓMICAS
+    Trabajan sobre celdas que ya tienen valor: el mapa de bits de presencia no se modifica,
+    así que varios hilos pueden operar sobre celdas distintas (o la misma) sin bloqueos.
+    Como los bloques no se copian al crecer, la celda sigue en el mismo arreglo después de agregarFilas.
+     */
+
+    //Las operaciones atómicas escriben a continuación: avisa a la captura activa
+    private void validarCeldaPresente(int fila, int columna) {
+        validarCoordenadas(fila, columna);
+        if (!estaPresente(fila, columna)) {
+            throw new IllegalStateException("La celda (" + fila + "," + columna + ") no tiene valor almacenado");
+        }
+        antesDeEscribir(fila, columna);
+    }
+
+    //Lectura con semántica volátil: ve la última escritura atómica de otro hilo
+    public int obtenerVolatil(int fila, int columna) {
+        validarCoordenadas(fila, columna);
+        return (int) CELDA.getVolatile(bloqueDe(fila, columna), fila & mascaraBloque);
+    }
+
+    //Escritura con semántica volátil sobre una celda ya presente
+    public void establecerVolatil(int fila, int columna, int valor) {
+        validarCeldaPresente(fila, columna);
+        CELDA.setVolatile(bloqueDe(fila, columna), fila & mascaraBloque, valor);
+    }
+
+    //Reemplaza el valor solo si sigue siendo el esperado
+    public boolean compararYEstablecer(int fila, int columna, int esperado, int nuevo) {
+        validarCeldaPresente(fila, columna);
+        return CELDA.compareAndSet(bloqueDe(fila, columna), fila & mascaraBloque, esperado, nuevo);
+    }
+
+    //Suma delta de forma atómica y retorna el valor anterior
+    public int obtenerYSumar(int fila, int columna, int delta) {
+        validarCeldaPresente(fila, columna);
+        return (int) CELDA.getAndAdd(bloqueDe(fila, columna), fila & mascaraBloque, delta);
+    }
+
+    //Reemplaza el valor de forma atómica y retorna el anterior
+    public int obtenerYEstablecer(int fila, int columna, int valor) {
+        validarCeldaPresente(fila, columna);
+        return (int) CELDA.getAndSet(bloqueDe(fila, columna), fila & mascaraBloque, valor);
+    }
+
+    //Verifica si existe un valor en la posición especificada
+    public boolean existe(int fila, int columna) {
+        validarCoordenadas(fila, columna);
+        return estaPresente(fila, columna);
+    }
+
+    //Limpia toda la matriz
+    public void limpiar() {
+        CapturaMatrizInt activa = captura;
+        if (activa != null) {
+            activa.antesDeEscribirTodo();
+        }
+        for (int j = 0; j < totalColumnas; j++) {
+            for (int b = 0; b < bloquesParaFilas(totalFilas); b++) {
+                Arrays.fill(valores[j][b], valorPorDefecto);
+                Arrays.fill(presencia[j][b], 0L);
+            }
+        }
+        cantidadElementos = 0;
+    }
+
+    //Retorna el número de elementos almacenados
+    public int cantidadElementos() {
+        return cantidadElementos;
+    }
+
+    //Retorna el número de filas
+    public int getFilas() {
+        return totalFilas;
+    }
+
+    //Retorna el número de columnas
+    public int getColumnas() {
+        return totalColumnas;
+    }
+
+    //Retorna el valor por defecto
+    public int getValorPorDefecto() {
+        return valorPorDefecto;
+    }
+
+    //Verifica si la matriz está vacía (no tiene elementos almacenados)
+    public boolean estaVacia() {
+        return cantidadElementos == 0;
+    }
+
+    //Acción aplicada a cada elemento almacenado durante un recorrido
+    public interface VisitanteElementoInt {
+        void visitar(int fila, int columna, int valor);
+    }
+
+    //Recorre los elementos almacenados columna por columna saltando palabras vacías del mapa de bits
+    public void recorrerElementos(VisitanteElementoInt visitante) {
+        int bloques = bloquesParaFilas(totalFilas);
+        for (int j = 0; j < totalColumnas; j++) {
+            for (int b = 0; b < bloques; b++) {
+                int[] celdas = valores[j][b];
+                long[] bits = presencia[j][b];
+                int primeraFila = b << desplazamientoBloque;
+                for (int palabra = 0; palabra < bits.length; palabra++) {
+                    long restantes = bits[palabra];
+                    while (restantes != 0) {
+                        int desplazamiento = (palabra << 6) + Long.numberOfTrailingZeros(restantes);
+                        visitante.visitar(primeraFila + desplazamiento, j, celdas[desplazamiento]);
+                        restantes &= restantes - 1; //Apaga el bit menos significativo
+                    }
+                }
+            }
+        }
+    }
+
+    //Muestra la matriz completa (incluyendo valores por defecto)
+    public void mostrarMatriz() {
+        System.out.println("Matriz " + totalFilas + "x" + totalColumnas + ":");
+        for (int i = 0; i < totalFilas; i++) {
+            for (int j = 0; j < totalColumnas; j++) {
+                System.out.print(obtener(i, j) + "\t");
+            }
+            System.out.println();
+        }
+    }
+
+    //Muestra solo los elementos almacenados
+    public void mostrarElementosNoNulos() {
+        System.out.println("Elementos no nulos (" + cantidadElementos + "):");
+
+        if (estaVacia()) {
+            System.out.println("La matriz está vacía.");
+            return;
+        }
+        recorrerElementos((fila, columna, valor) ->
+                System.out.println("(" + fila + "," + columna + ") = " + valor));
+    }
+
+    //Transpone la matriz (intercambia filas por columnas)
+    public MatrizDispersaInt transponer() {
+        MatrizDispersaInt resultado = new MatrizDispersaInt(totalColumnas, totalFilas, valorPorDefecto);
+        recorrerElementos((fila, columna, valor) -> resultado.establecer(columna, fila, valor));
+        return resultado;
+    }
+
+    //Crea una copia de la matriz clonando los bloques de cada columna
+    public MatrizDispersaInt copiar() {
+        MatrizDispersaInt copia = new MatrizDispersaInt(totalFilas, totalColumnas, valorPorDefecto, desplazamientoBloque);
+        int bloques = bloquesParaFilas(totalFilas);
+        for (int j = 0; j < totalColumnas; j++) {
+            for (int b = 0; b < bloques; b++) {
+                System.arraycopy(valores[j][b], 0, copia.valores[j][b], 0, valores[j][b].length);
+                System.arraycopy(presencia[j][b], 0, copia.presencia[j][b], 0, presencia[j][b].length);
+            }
+        }
+        copia.cantidadElementos = cantidadElementos;
+        return copia;
+    }
+
+    //Suma esta matriz con otra matriz de enteros
+    //Una celda presente en cualquiera de las dos queda presente en el resultado
+    public MatrizDispersaInt sumar(MatrizDispersaInt otra) {
+        if (this.totalFilas != otra.totalFilas || this.totalColumnas != otra.totalColumnas) {
+            throw new IllegalArgumentException("Las matrices deben tener las mismas dimensiones");
+        }
+
+        MatrizDispersaInt resultado = copiar();
+        otra.recorrerElementos((fila, columna, valor) -> {
+            int actual = resultado.estaPresente(fila, columna) ? resultado.obtener(fila, columna) : 0;
+            resultado.establecer(fila, columna, actual + valor);
+        });
+        return resultado;
+    }
+
+    //Obtiene todos los elementos de una fila específica
+    public void mostrarFila(int fila) {
+        validarCoordenadas(fila, 0);
+
+        System.out.println("Fila " + fila + ":");
+        for (int j = 0; j < totalColumnas; j++) {
+            System.out.print(obtener(fila, j) + "\t");
+        }
+        System.out.println();
+    }
+
+    //Obtiene todos los elementos de una columna específica
+    public void mostrarColumna(int columna) {
+        validarCoordenadas(0, columna);
+
+        System.out.println("Columna " + columna + ":");
+        for (int i = 0; i < totalFilas; i++) {
+            System.out.println(obtener(i, columna));
+        }
+    }
+}
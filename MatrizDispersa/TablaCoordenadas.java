@@ -0,0 +1,262 @@
+package MatrizDispersa;
+
+import java.util.Arrays;
+
+//Tabla hash de direccionamiento abierto (sondeo lineal) para la matriz dispersa.
+//La coordenada (fila, columna) se empaqueta en un long y se guarda en un arreglo primitivo,
+//con los valores en un arreglo paralelo: no se crea ningún nodo por elemento.
+class TablaCoordenadas<T> {
+    private static final long VACIO = -1L; //Ninguna coordenada válida se empaqueta como -1
+    private static final double FACTOR_CARGA_MAXIMO = 0.75;
+    private static final int CAPACIDAD_MINIMA = 16;
+
+    private long[] claves;
+    private Object[] valores;
+    private int mascara; //capacidad - 1, la capacidad siempre es potencia de dos
+    private int cantidad;
+    private int limiteRedimension;
+
+    //Índice por filas (opcional): columnas ocupadas de cada fila para recorridos por fila
+    private final boolean conIndiceFilas;
+    private int[][] columnasPorFila;
+    private int[] cantidadPorFila;
+
+    TablaCoordenadas(int capacidadEsperada, int totalFilas, boolean conIndiceFilas) {
+        this.conIndiceFilas = conIndiceFilas;
+        inicializarTabla(capacidadParaElementos(capacidadEsperada));
+        if (conIndiceFilas) {
+            this.columnasPorFila = new int[totalFilas][];
+            this.cantidadPorFila = new int[totalFilas];
+        }
+    }
+
+    //Empaqueta la coordenada en un long: fila en los 32 bits altos y columna en los bajos
+    static long empaquetar(int fila, int columna) {
+        return ((long) fila << 32) | (columna & 0xFFFFFFFFL);
+    }
+
+    static int filaDe(long clave) {
+        return (int) (clave >>> 32);
+    }
+
+    static int columnaDe(long clave) {
+        return (int) clave;
+    }
+
+    //Calcula una capacidad potencia de dos que mantenga la carga bajo el máximo
+    private static int capacidadParaElementos(int elementos) {
+        int necesaria = (int) Math.ceil(Math.max(elementos, 1) / FACTOR_CARGA_MAXIMO);
+        int capacidad = CAPACIDAD_MINIMA;
+        while (capacidad < necesaria) {
+            capacidad <<= 1;
+        }
+        return capacidad;
+    }
+
+    private void inicializarTabla(int capacidad) {
+        this.claves = new long[capacidad];
+        Arrays.fill(this.claves, VACIO);
+        this.valores = new Object[capacidad];
+        this.mascara = capacidad - 1;
+        this.cantidad = 0;
+        this.limiteRedimension = (int) (capacidad * FACTOR_CARGA_MAXIMO);
+    }
+
+    //Mezcla los bits de la clave (finalizador de MurmurHash3) para repartir filas consecutivas
+    private int posicionInicial(long clave) {
+        clave ^= clave >>> 33;
+        clave *= 0xff51afd7ed558ccdL;
+        clave ^= clave >>> 33;
+        clave *= 0xc4ceb9fe1a85ec53L;
+        clave ^= clave >>> 33;
+        return (int) clave & mascara;
+    }
+
+    //Retorna la posición de la clave en la tabla o -1 si no está
+    private int buscarPosicion(long clave) {
+        int posicion = posicionInicial(clave);
+        while (claves[posicion] != VACIO) {
+            if (claves[posicion] == clave) {
+                return posicion;
+            }
+            posicion = (posicion + 1) & mascara;
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    T obtener(long clave) {
+        int posicion = buscarPosicion(clave);
+        return posicion == -1 ? null : (T) valores[posicion];
+    }
+
+    boolean contiene(long clave) {
+        return buscarPosicion(clave) != -1;
+    }
+
+    //Inserta o actualiza el valor de la coordenada
+    void poner(long clave, T valor) {
+        int posicion = posicionInicial(clave);
+        while (claves[posicion] != VACIO) {
+            if (claves[posicion] == clave) {
+                valores[posicion] = valor; //Ya existe, solo se actualiza
+                return;
+            }
+            posicion = (posicion + 1) & mascara;
+        }
+
+        claves[posicion] = clave;
+        valores[posicion] = valor;
+        cantidad++;
+        if (conIndiceFilas) {
+            agregarAIndiceFila(filaDe(clave), columnaDe(clave));
+        }
+        if (cantidad > limiteRedimension) {
+            redimensionar(claves.length << 1);
+        }
+    }
+
+    //Elimina la coordenada desplazando hacia atrás el resto del grupo (sin lápidas)
+    boolean eliminar(long clave) {
+        int posicion = buscarPosicion(clave);
+        if (posicion == -1) {
+            return false;
+        }
+
+        int hueco = posicion;
+        int siguiente = (hueco + 1) & mascara;
+        while (claves[siguiente] != VACIO) {
+            int ideal = posicionInicial(claves[siguiente]);
+            //Se mueve al hueco solo si el hueco está entre su posición ideal y su posición actual
+            if (((siguiente - ideal) & mascara) >= ((siguiente - hueco) & mascara)) {
+                claves[hueco] = claves[siguiente];
+                valores[hueco] = valores[siguiente];
+                hueco = siguiente;
+            }
+            siguiente = (siguiente + 1) & mascara;
+        }
+        claves[hueco] = VACIO;
+        valores[hueco] = null;
+        cantidad--;
+
+        if (conIndiceFilas) {
+            quitarDeIndiceFila(filaDe(clave), columnaDe(clave));
+        }
+        return true;
+    }
+
+    private void redimensionar(int nuevaCapacidad) {
+        long[] clavesAnteriores = claves;
+        Object[] valoresAnteriores = valores;
+        int cantidadAnterior = cantidad;
+        inicializarTabla(nuevaCapacidad);
+
+        for (int i = 0; i < clavesAnteriores.length; i++) {
+            if (clavesAnteriores[i] != VACIO) {
+                int posicion = posicionInicial(clavesAnteriores[i]);
+                while (claves[posicion] != VACIO) {
+                    posicion = (posicion + 1) & mascara;
+                }
+                claves[posicion] = clavesAnteriores[i];
+                valores[posicion] = valoresAnteriores[i];
+            }
+        }
+        cantidad = cantidadAnterior;
+    }
+
+    private void agregarAIndiceFila(int fila, int columna) {
+        int[] columnas = columnasPorFila[fila];
+        int usadas = cantidadPorFila[fila];
+        if (columnas == null) {
+            columnas = new int[2];
+        } else if (usadas == columnas.length) {
+            columnas = Arrays.copyOf(columnas, usadas * 2);
+        }
+        columnas[usadas] = columna;
+        columnasPorFila[fila] = columnas;
+        cantidadPorFila[fila] = usadas + 1;
+    }
+
+    private void quitarDeIndiceFila(int fila, int columna) {
+        int[] columnas = columnasPorFila[fila];
+        int usadas = cantidadPorFila[fila];
+        for (int i = 0; i < usadas; i++) {
+            if (columnas[i] == columna) {
+                columnas[i] = columnas[usadas - 1]; //El orden dentro de la fila no importa
+                cantidadPorFila[fila] = usadas - 1;
+                return;
+            }
+        }
+    }
+
+    boolean tieneIndiceFilas() {
+        return conIndiceFilas;
+    }
+
+    //Columnas ocupadas de una fila según el índice por filas
+    int[] columnasDeFila(int fila) {
+        if (!conIndiceFilas || columnasPorFila[fila] == null) {
+            return new int[0];
+        }
+        return Arrays.copyOf(columnasPorFila[fila], cantidadPorFila[fila]);
+    }
+
+    int cantidad() {
+        return cantidad;
+    }
+
+    void limpiar() {
+        Arrays.fill(claves, VACIO);
+        Arrays.fill(valores, null);
+        cantidad = 0;
+        if (conIndiceFilas) {
+            Arrays.fill(columnasPorFila, null);
+            Arrays.fill(cantidadPorFila, 0);
+        }
+    }
+
+    /*
+    Acceso por posición para recorrer la tabla completa en tiempo lineal
+    (copiar, transponer, sumar y mostrar los elementos no nulos)
+     */
+    int capacidadTabla() {
+        return claves.length;
+    }
+
+    boolean ocupada(int posicion) {
+        return claves[posicion] != VACIO;
+    }
+
+    long claveEn(int posicion) {
+        return claves[posicion];
+    }
+
+    @SuppressWarnings("unchecked")
+    T valorEn(int posicion) {
+        return (T) valores[posicion];
+    }
+
+    //Copia la tabla clonando los arreglos, sin volver a calcular ningún hash
+    TablaCoordenadas<T> copiar() {
+        TablaCoordenadas<T> copia = new TablaCoordenadas<>(0, 0, conIndiceFilas);
+        copia.claves = claves.clone();
+        copia.valores = valores.clone();
+        copia.mascara = mascara;
+        copia.cantidad = cantidad;
+        copia.limiteRedimension = limiteRedimension;
+        if (conIndiceFilas) {
+            copia.habilitarIndiceCopiado(columnasPorFila, cantidadPorFila);
+        }
+        return copia;
+    }
+
+    private void habilitarIndiceCopiado(int[][] columnasOrigen, int[] cantidadOrigen) {
+        this.columnasPorFila = new int[columnasOrigen.length][];
+        for (int i = 0; i < columnasOrigen.length; i++) {
+            if (columnasOrigen[i] != null) {
+                this.columnasPorFila[i] = columnasOrigen[i].clone();
+            }
+        }
+        this.cantidadPorFila = cantidadOrigen.clone();
+    }
+}
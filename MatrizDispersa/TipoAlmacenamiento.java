@@ -0,0 +1,11 @@
+package MatrizDispersa;
+
+//Motores de almacenamiento disponibles para la matriz dispersa
+public enum TipoAlmacenamiento {
+    //Lista enlazada de elementos: búsqueda lineal por coordenadas
+    LISTA_ENLAZADA,
+    //Tabla hash de direccionamiento abierto con clave (fila, columna) empaquetada en un long
+    TABLA_HASH,
+    //Tabla hash más un índice por filas para recorrer solo las columnas ocupadas de una fila
+    TABLA_HASH_INDICE_FILAS
+}
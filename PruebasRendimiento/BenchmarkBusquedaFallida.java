@@ -0,0 +1,196 @@
+package PruebasRendimiento;
+
+import AVLTree.AVLTree;
+import BinarySearchTree.LinkedBST;
+import Excepciones.ItemNotFound;
+import LinkedList.ListaEnlazada;
+import LinkedList.MensajeException;
+import Inventario.SistemaInventario;
+import java.util.Random;
+
+/*
+Mide el costo de las búsquedas fallidas (el elemento no está) con la API que lanza
+excepciones (search / searchK) frente a la API sin excepciones (find / getK).
+Cada búsqueda fallida de la primera construye una excepción con su traza de pila.
+ */
+public class BenchmarkBusquedaFallida {
+    private static final int TAMANIO_ARBOL = 20_000;
+    private static final int TAMANIO_LISTA = 1_000;
+    private static final int BUSQUEDAS = 1_000_000;
+    private static final int RONDAS_CALENTAMIENTO = 3;
+
+    private long sumidero; //Acumula resultados para que el JIT no elimine las búsquedas
+
+    public static void main(String[] args) {
+        System.out.println("=== BÚSQUEDAS FALLIDAS: EXCEPCIONES vs. RETORNO null / -1 ===\n");
+        new BenchmarkBusquedaFallida().ejecutar();
+    }
+
+    public void ejecutar() {
+        //El sistema se prepara antes de medir: insertarCategoria solo publica eventos y nadie los escucha aquí
+        SistemaInventario sistema = new SistemaInventario(64);
+        String[] existentes = {"Electrónicos", "Ropa", "Hogar", "Deportes", "Libros"};
+        for (String categoria : existentes) {
+            sistema.insertarCategoria(categoria);
+        }
+
+        System.out.printf("%-28s %-18s %-18s %-10s%n", "Estructura", "Con excepción", "Sin excepción", "Mejora");
+        System.out.println("--------------------------------------------------------------------------");
+
+        compararAVL();
+        compararBST();
+        compararListaEnlazada();
+        compararCategorias(sistema);
+
+        System.out.println("\nTiempos en ns por búsqueda fallida (" + BUSQUEDAS + " búsquedas por medición).");
+        if (sumidero == 42) {
+            System.out.println();
+        }
+    }
+
+    //Claves pares almacenadas, se buscan claves impares: todas las búsquedas fallan
+    private void compararAVL() {
+        AVLTree<Integer> avl = new AVLTree<>();
+        try {
+            for (int i = 0; i < TAMANIO_ARBOL; i++) {
+                avl.insert(i * 2);
+            }
+        } catch (Exception e) {
+            System.err.println("Error preparando el AVL: " + e.getMessage());
+            return;
+        }
+
+        double conExcepcion = medir(() -> {
+            long encontrados = 0;
+            for (int i = 0; i < BUSQUEDAS; i++) {
+                try {
+                    encontrados += avl.search(claveImpar(i));
+                } catch (ItemNotFound e) {
+                    encontrados--;
+                }
+            }
+            return encontrados;
+        });
+        double sinExcepcion = medir(() -> {
+            long encontrados = 0;
+            for (int i = 0; i < BUSQUEDAS; i++) {
+                Integer valor = avl.find(claveImpar(i));
+                encontrados += valor != null ? valor : -1;
+            }
+            return encontrados;
+        });
+        imprimir("AVLTree search / find", conExcepcion, sinExcepcion);
+    }
+
+    private void compararBST() {
+        LinkedBST<Integer> bst = new LinkedBST<>();
+        //Inserción en orden aleatorio para que el BST (sin balanceo) no degenere en lista
+        Random random = new Random(42);
+        try {
+            for (int i = 0; i < TAMANIO_ARBOL; i++) {
+                int clave = random.nextInt(TAMANIO_ARBOL * 4) * 2;
+                if (bst.find(clave) == null) {
+                    bst.insert(clave);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Error preparando el BST: " + e.getMessage());
+            return;
+        }
+
+        double conExcepcion = medir(() -> {
+            long encontrados = 0;
+            for (int i = 0; i < BUSQUEDAS; i++) {
+                try {
+                    encontrados += bst.search(claveImpar(i));
+                } catch (ItemNotFound e) {
+                    encontrados--;
+                }
+            }
+            return encontrados;
+        });
+        double sinExcepcion = medir(() -> {
+            long encontrados = 0;
+            for (int i = 0; i < BUSQUEDAS; i++) {
+                Integer valor = bst.find(claveImpar(i));
+                encontrados += valor != null ? valor : -1;
+            }
+            return encontrados;
+        });
+        imprimir("LinkedBST search / find", conExcepcion, sinExcepcion);
+    }
+
+    //Posiciones fuera de rango: searchK lanza MensajeException, getK retorna null
+    private void compararListaEnlazada() {
+        ListaEnlazada<Integer> lista = new ListaEnlazada<>();
+        for (int i = 0; i < TAMANIO_LISTA; i++) {
+            lista.insertFirst(i);
+        }
+
+        double conExcepcion = medir(() -> {
+            long encontrados = 0;
+            for (int i = 0; i < BUSQUEDAS; i++) {
+                try {
+                    encontrados += lista.searchK(TAMANIO_LISTA + (i & 1023));
+                } catch (MensajeException e) {
+                    encontrados--;
+                }
+            }
+            return encontrados;
+        });
+        double sinExcepcion = medir(() -> {
+            long encontrados = 0;
+            for (int i = 0; i < BUSQUEDAS; i++) {
+                Integer valor = lista.getK(TAMANIO_LISTA + (i & 1023));
+                encontrados += valor != null ? valor : -1;
+            }
+            return encontrados;
+        });
+        imprimir("ListaEnlazada searchK / getK", conExcepcion, sinExcepcion);
+    }
+
+    //Camino completo del sistema: buscarCategoria de categorías que no existen (ya usa find)
+    private void compararCategorias(SistemaInventario sistema) {
+        String[] inexistentes = new String[1024];
+        for (int i = 0; i < inexistentes.length; i++) {
+            inexistentes[i] = "Inexistente" + i;
+        }
+
+        double sinExcepcion = medir(() -> {
+            long encontrados = 0;
+            for (int i = 0; i < BUSQUEDAS; i++) {
+                encontrados += sistema.buscarCategoria(inexistentes[i & 1023]) == null ? 1 : 0;
+            }
+            return encontrados;
+        });
+        System.out.printf("%-28s %-18s %-18.1f %-10s%n", "SistemaInventario categoría", "-", sinExcepcion, "-");
+    }
+
+    private static int claveImpar(int i) {
+        return ((i % TAMANIO_ARBOL) * 2) + 1;
+    }
+
+    //Operación medida: retorna un valor que se acumula en el sumidero
+    private interface Medicion {
+        long ejecutar();
+    }
+
+    //Ejecuta rondas de calentamiento y retorna los ns por búsqueda de la mejor de tres mediciones
+    private double medir(Medicion medicion) {
+        for (int i = 0; i < RONDAS_CALENTAMIENTO; i++) {
+            sumidero += medicion.ejecutar();
+        }
+        long mejor = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long inicio = System.nanoTime();
+            sumidero += medicion.ejecutar();
+            mejor = Math.min(mejor, System.nanoTime() - inicio);
+        }
+        return (double) mejor / BUSQUEDAS;
+    }
+
+    private void imprimir(String estructura, double conExcepcion, double sinExcepcion) {
+        System.out.printf("%-28s %-18.1f %-18.1f %.1fx%n", estructura, conExcepcion, sinExcepcion,
+                conExcepcion / sinExcepcion);
+    }
+}